@@ -0,0 +1,35 @@
+package com.ingilizce.calismaapp.config;
+
+import com.ingilizce.calismaapp.service.AuthService;
+import com.ingilizce.calismaapp.util.CurrentUser;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Resolves the Authorization header to a user id once per request (cached in
+ * AuthService) and exposes it through CurrentUser. Does not reject
+ * anonymous requests; endpoints that require a login check for themselves.
+ */
+@Component
+public class CurrentUserInterceptor implements HandlerInterceptor {
+
+    private final AuthService authService;
+
+    public CurrentUserInterceptor(AuthService authService) {
+        this.authService = authService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && !header.isBlank()) {
+            String token = header.startsWith("Bearer ") ? header.substring(7) : header;
+            authService.resolveUserId(token)
+                    .ifPresent(userId -> request.setAttribute(CurrentUser.REQUEST_ATTRIBUTE, userId));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,23 @@
+package com.ingilizce.calismaapp.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final CurrentUserInterceptor currentUserInterceptor;
+
+    public WebConfig(CurrentUserInterceptor currentUserInterceptor) {
+        this.currentUserInterceptor = currentUserInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // /api/auth validates tokens itself
+        registry.addInterceptor(currentUserInterceptor)
+                .addPathPatterns("/api/**")
+                .excludePathPatterns("/api/auth/**");
+    }
+}
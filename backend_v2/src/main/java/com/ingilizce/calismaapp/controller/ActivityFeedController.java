@@ -0,0 +1,37 @@
+package com.ingilizce.calismaapp.controller;
+
+import com.ingilizce.calismaapp.service.ActivityFeedService;
+import com.ingilizce.calismaapp.util.CurrentUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Friends' activity feed (level-ups, achievements, daily goals)
+ */
+@RestController
+@RequestMapping("/api/feed")
+@CrossOrigin(originPatterns = "*")
+public class ActivityFeedController {
+
+    @Autowired
+    private ActivityFeedService activityFeedService;
+
+    /**
+     * Example: GET /api/feed?limit=20
+     * [ { "type": "LEVEL_UP", "userId": 7, "displayName": "Ayşe", "data": { "level": 5 }, "at": "2026-10-17T18:42:10" } ]
+     */
+    @GetMapping
+    public ResponseEntity<?> getFeed(@RequestParam(defaultValue = "20") int limit) {
+        if (CurrentUser.isAnonymous()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Login required");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+        return ResponseEntity.ok(activityFeedService.getFeed(CurrentUser.id(), limit));
+    }
+}
@@ -6,16 +6,27 @@ import com.ingilizce.calismaapp.dto.PracticeSentence;
 import com.ingilizce.calismaapp.service.ChatbotService;
 import com.ingilizce.calismaapp.service.WordService;
 import com.ingilizce.calismaapp.service.GrammarCheckService;
+import com.ingilizce.calismaapp.service.GroqService;
+import com.ingilizce.calismaapp.service.SentenceBankRefillJob;
+import com.ingilizce.calismaapp.service.SentenceBankService;
 import com.ingilizce.calismaapp.entity.Word;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -24,23 +35,29 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/chatbot")
 public class ChatbotController {
 
+    private static final Logger logger = LoggerFactory.getLogger(ChatbotController.class);
+
     @Autowired
     private ChatbotService chatbotService;
 
     @Autowired
     private WordService wordService;
 
-    @Autowired(required = false)
-    private RedisTemplate<String, Object> redisTemplate;
-
     @Autowired(required = false)
     private GrammarCheckService grammarCheckService;
 
-    @Value("${cache.sentences.ttl:604800}") // Default: 7 days
-    private long cacheTtlSeconds;
+    @Autowired
+    private SentenceBankService sentenceBankService;
+
+    @Autowired
+    private SentenceBankRefillJob sentenceBankRefillJob;
+
+    private static final int SENTENCES_PER_REQUEST = 5;
+
+    @Value("${chatbot.stream.timeout-ms:120000}")
+    private long streamTimeoutMs;
 
     private final ObjectMapper objectMapper;
-    private static final String CACHE_KEY_PREFIX = "sentences:";
 
     public ChatbotController() {
         this.objectMapper = new ObjectMapper();
@@ -50,7 +67,8 @@ public class ChatbotController {
     }
 
     @PostMapping("/generate-sentences")
-    public ResponseEntity<Map<String, Object>> generateSentences(@RequestBody Map<String, Object> request) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> generateSentences(
+            @RequestBody Map<String, Object> request) {
         String word = (String) request.get("word");
         @SuppressWarnings("unchecked")
         List<String> levels = request.get("levels") != null ? (List<String>) request.get("levels")
@@ -64,7 +82,7 @@ public class ChatbotController {
         if (word == null || word.trim().isEmpty()) {
             Map<String, Object> error = new HashMap<>();
             error.put("error", "Please provide a word");
-            return ResponseEntity.badRequest().body(error);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
         }
 
         // Validate levels and lengths
@@ -79,247 +97,184 @@ public class ChatbotController {
             lengths = java.util.Arrays.asList("medium");
 
         String normalizedWord = word.trim().toLowerCase();
-        String cacheKey = CACHE_KEY_PREFIX + normalizedWord + ":" + String.join(",", levels) + ":"
-                + String.join(",", lengths);
-
-        try {
-            // Redis cache kontrolü (DISABLED for randomness)
-            if (redisTemplate != null && false) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> cachedData = (Map<String, Object>) redisTemplate.opsForValue().get(cacheKey);
-                if (cachedData != null) {
-                    System.out.println("Cache HIT for word: " + normalizedWord);
-                    return ResponseEntity.ok(cachedData);
-                }
-                System.out.println("Cache MISS for word: " + normalizedWord);
-            }
 
-            // Tüm kombinasyonları tek bir prompt'ta belirtip, LLM'den hepsini birden
-            // üretmesini iste
-            // Bu yaklaşım çok daha hızlıdır çünkü tek bir istek yapılır
-            StringBuilder levelLengthInfo = new StringBuilder();
-            levelLengthInfo.append("Generate 5 diverse sentences total, covering these combinations:\n");
-            for (String level : levels) {
-                for (String length : lengths) {
-                    levelLengthInfo.append(String.format("- Level: %s, Length: %s\n", level, length));
-                }
-            }
-            levelLengthInfo.append(
-                    "Distribute the 5 sentences across these combinations. Make sentences diverse and cover different meanings if the word has multiple meanings.");
+        List<String> requestedLevels = levels;
+        List<String> requestedLengths = lengths;
 
-            String message = String.format("Target word: '%s'.\n%s", normalizedWord, levelLengthInfo.toString());
-
-            String jsonResponse = chatbotService.generateSentences(message);
-
-            // JSON'u temizle (markdown code blocks varsa kaldır)
-            jsonResponse = jsonResponse.trim();
-            jsonResponse = jsonResponse.replaceAll("```json", "").replaceAll("```", "").trim();
-
-            // LLM bazen açıklama metni ekliyor, JSON array'i bul (ilk [ karakterinden
-            // başla)
-            int arrayStartIndex = jsonResponse.indexOf('[');
-            if (arrayStartIndex > 0) {
-                // Array'den önce metin var, onu kaldır
-                jsonResponse = jsonResponse.substring(arrayStartIndex);
-            }
-
-            // Array'in sonunu bul (son ] karakterine kadar)
-            int arrayEndIndex = jsonResponse.lastIndexOf(']');
-            if (arrayEndIndex > 0 && arrayEndIndex < jsonResponse.length() - 1) {
-                // Array'den sonra metin var, onu kaldır
-                jsonResponse = jsonResponse.substring(0, arrayEndIndex + 1);
-            }
-
-            jsonResponse = jsonResponse.trim();
-
-            // LLM bazen yanlış field name kullanabilir, düzelt
-            jsonResponse = jsonResponse.replaceAll("\"turkishTransliteration\"", "\"turkishTranslation\"");
-            jsonResponse = jsonResponse.replaceAll("\"turkish_translation\"", "\"turkishTranslation\"");
-            jsonResponse = jsonResponse.replaceAll("\"turkish\"", "\"turkishTranslation\"");
-
-            List<PracticeSentence> allSentences = new ArrayList<>();
-            try {
-                // Önce JSON'un array mi object mi olduğunu kontrol et
-                Object parsed = objectMapper.readValue(jsonResponse, Object.class);
-
-                if (parsed instanceof List) {
-                    // Array ise direkt parse et
-                    allSentences = objectMapper.readValue(
-                            jsonResponse,
-                            new TypeReference<List<PracticeSentence>>() {
+        try {
+            // Önce hazır cümle bankası (Postgres, tek sorgu); yetmezse canlı üretim
+            List<PracticeSentence> banked = sentenceBankService.take(normalizedWord, requestedLevels,
+                    requestedLengths, SENTENCES_PER_REQUEST);
+            boolean fromBank = banked.size() >= SENTENCES_PER_REQUEST;
+
+            CompletableFuture<List<PracticeSentence>> source = fromBank
+                    ? CompletableFuture.completedFuture(banked)
+                    // Groq cevabı gelene kadar servlet thread'i serbest kalır
+                    : generateLive(normalizedWord, requestedLevels, requestedLengths)
+                            .handle((parsed, error) -> {
+                                if (error != null) {
+                                    // Bankadan alınan satırlar silindi: canlı üretim düşerse elimizdekini dön
+                                    if (banked.isEmpty()) {
+                                        throw error instanceof CompletionException ? (CompletionException) error
+                                                : new CompletionException(error);
+                                    }
+                                    logger.warn("Live sentence generation failed for '{}', serving {} banked: {}",
+                                            normalizedWord, banked.size(), unwrap(error).getMessage());
+                                    return banked;
+                                }
+                                // Bankadan gelen kısmi cümleler önce, kalan canlı üretimden
+                                List<PracticeSentence> merged = new ArrayList<>(banked);
+                                merged.addAll(parsed);
+                                return merged;
                             });
-                } else if (parsed instanceof Map) {
-                    // Object ise, içinde "sentences" veya benzer bir key var mı kontrol et
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> map = (Map<String, Object>) parsed;
-
-                    // "sentences" key'i varsa onu kullan
-                    if (map.containsKey("sentences") && map.get("sentences") instanceof List) {
-                        allSentences = objectMapper.convertValue(
-                                map.get("sentences"),
-                                new TypeReference<List<PracticeSentence>>() {
-                                });
-                    } else {
-                        // Tek bir object ise, onu array'e çevir
-                        try {
-                            PracticeSentence single = objectMapper.convertValue(parsed, PracticeSentence.class);
-                            allSentences.add(single);
-                        } catch (Exception ex) {
-                            System.err.println("Could not parse as single PracticeSentence: " + ex.getMessage());
-                            throw new RuntimeException(
-                                    "LLM returned unexpected JSON format. Expected array or object with 'sentences' key.",
-                                    ex);
-                        }
-                    }
-                } else {
-                    throw new RuntimeException("LLM returned unexpected JSON format. Expected array or object.");
-                }
-            } catch (Exception e) {
-                System.err.println("Error parsing JSON: " + e.getMessage());
-                System.err.println("JSON response (first 500 chars): " +
-                        (jsonResponse.length() > 500 ? jsonResponse.substring(0, 500) + "..." : jsonResponse));
-                throw new RuntimeException("Failed to parse LLM response: " + e.getMessage(), e);
-            }
-
-            // Toplam 5 cümle olacak şekilde sınırla (eğer fazla varsa)
-            if (allSentences.size() > 5) {
-                allSentences = allSentences.subList(0, 5);
-            }
-
-            // LanguageTool ile gramer kontrolü (opsiyonel)
-            if (checkGrammar && grammarCheckService != null && grammarCheckService.isEnabled()) {
-                List<String> englishSentences = allSentences.stream()
-                        .map(PracticeSentence::englishSentence)
-                        .collect(Collectors.toList());
 
-                Map<String, List<Map<String, Object>>> grammarErrors = grammarCheckService
-                        .checkMultipleSentences(englishSentences);
-
-                if (!grammarErrors.isEmpty()) {
-                    System.out.println("Grammar errors found for " + grammarErrors.size() + " sentences");
-                }
-            }
-
-            // Frontend'e İngilizce cümleleri ve Türkçe çevirilerini gönder
-            List<String> sentences = allSentences.stream()
-                    .map(PracticeSentence::englishSentence)
-                    .collect(Collectors.toList());
-
-            List<String> translations = allSentences.stream()
-                    .map(ps -> ps.turkishFullTranslation() != null ? ps.turkishFullTranslation() : "")
-                    .collect(Collectors.toList());
-
-            // Redis'e cache'le (sentences ve translations birlikte)
-            Map<String, Object> result = new HashMap<>();
-            result.put("sentences", sentences);
-            result.put("translations", translations);
-            result.put("count", sentences.size());
-            result.put("cached", false);
-
-            if (redisTemplate != null && false) {
-                try {
-                    redisTemplate.opsForValue().set(
-                            cacheKey,
-                            result,
-                            Duration.ofSeconds(cacheTtlSeconds));
-                    System.out.println(
-                            "Cached sentences for word: " + normalizedWord + " (TTL: " + cacheTtlSeconds + "s)");
-                } catch (Exception e) {
-                    System.err.println("Failed to cache sentences: " + e.getMessage());
-                    // Cache hatası olsa bile devam et
-                }
-            }
-
-            // Debug için structured data'yı da logla
-            System.out
-                    .println("Generated " + allSentences.size() + " structured sentences for word: " + normalizedWord);
-            for (PracticeSentence ps : allSentences) {
-                System.out.println("  - " + ps.englishSentence() + " → " + ps.turkishTranslation());
-            }
+            return source
+                    .thenCompose(parsed -> {
+                        // Toplam 5 cümle olacak şekilde sınırla (eğer fazla varsa)
+                        List<PracticeSentence> allSentences = parsed.size() > SENTENCES_PER_REQUEST
+                                ? parsed.subList(0, SENTENCES_PER_REQUEST)
+                                : parsed;
+
+                        // LanguageTool ile gramer kontrolü (opsiyonel)
+                        if (checkGrammar && grammarCheckService != null && grammarCheckService.isEnabled()) {
+                            List<String> englishSentences = allSentences.stream()
+                                    .map(PracticeSentence::englishSentence)
+                                    .collect(Collectors.toList());
+
+                            return grammarCheckService.checkMultipleSentencesAsync(englishSentences)
+                                    .thenApply(grammarErrors -> {
+                                        if (!grammarErrors.isEmpty()) {
+                                            System.out.println("Grammar errors found for " + grammarErrors.size()
+                                                    + " sentences");
+                                        }
+                                        return allSentences;
+                                    });
+                        }
+                        return CompletableFuture.completedFuture(allSentences);
+                    })
+                    .thenApply(allSentences -> {
+                        // Frontend'e İngilizce cümleleri ve Türkçe çevirilerini gönder
+                        List<String> sentences = allSentences.stream()
+                                .map(PracticeSentence::englishSentence)
+                                .collect(Collectors.toList());
+
+                        List<String> translations = allSentences.stream()
+                                .map(ps -> ps.turkishFullTranslation() != null ? ps.turkishFullTranslation() : "")
+                                .collect(Collectors.toList());
+
+                        Map<String, Object> result = new HashMap<>();
+                        result.put("sentences", sentences);
+                        result.put("translations", translations);
+                        result.put("count", sentences.size());
+                        result.put("cached", fromBank);
+
+                        // Debug için structured data'yı da logla
+                        System.out.println(
+                                "Generated " + allSentences.size() + " structured sentences for word: " + normalizedWord);
+                        for (PracticeSentence ps : allSentences) {
+                            System.out.println("  - " + ps.englishSentence() + " → " + ps.turkishTranslation());
+                        }
 
-            return ResponseEntity.ok(result);
+                        return ResponseEntity.ok(result);
+                    })
+                    .exceptionally(this::sentenceGenerationError);
         } catch (Exception e) {
-            System.err.println("Error generating sentences: " + e.getMessage());
-            System.err.println("Response was: " + (e.getMessage().contains("Response") ? "" : ""));
-            e.printStackTrace();
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "Failed to generate sentences: " + e.getMessage());
-            return ResponseEntity.internalServerError().body(error);
+            return CompletableFuture.completedFuture(sentenceGenerationError(e));
+        }
+    }
+
+    private CompletableFuture<List<PracticeSentence>> generateLive(String word, List<String> levels,
+            List<String> lengths) {
+        try {
+            return chatbotService.generatePracticeSentences(word, levels, lengths, false);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
 
+    private ResponseEntity<Map<String, Object>> sentenceGenerationError(Throwable t) {
+        Throwable e = unwrap(t);
+        System.err.println("Error generating sentences: " + e.getMessage());
+        e.printStackTrace();
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", "Failed to generate sentences: " + e.getMessage());
+        return ResponseEntity.internalServerError().body(error);
+    }
+
     @PostMapping("/check-translation")
-    public ResponseEntity<Map<String, Object>> checkTranslation(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> checkTranslation(
+            @RequestBody Map<String, String> request) {
         String direction = request.getOrDefault("direction", "EN_TO_TR"); // EN_TO_TR or TR_TO_EN
         String userTranslation = request.get("userTranslation");
 
         if (userTranslation == null) {
             Map<String, Object> error = new HashMap<>();
             error.put("error", "Please provide translation");
-            return ResponseEntity.badRequest().body(error);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
         }
 
-        try {
-            String response;
+        CompletableFuture<String> response;
 
-            if ("TR_TO_EN".equals(direction)) {
-                // User translating from Turkish to English
-                String turkishSentence = request.get("turkishSentence");
-                String englishRef = request.get("englishSentence"); // Optional reference
+        if ("TR_TO_EN".equals(direction)) {
+            // User translating from Turkish to English
+            String turkishSentence = request.get("turkishSentence");
+            String englishRef = request.get("englishSentence"); // Optional reference
 
-                if (turkishSentence == null) {
-                    Map<String, Object> error = new HashMap<>();
-                    error.put("error", "Turkish sentence is required for TR_TO_EN direction");
-                    return ResponseEntity.badRequest().body(error);
-                }
+            if (turkishSentence == null) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("error", "Turkish sentence is required for TR_TO_EN direction");
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
+            }
 
-                System.out.println("Checking TR->EN translation:");
-                System.out.println("Turkish Source: " + turkishSentence);
-                System.out.println("User English: " + userTranslation);
+            System.out.println("Checking TR->EN translation:");
+            System.out.println("Turkish Source: " + turkishSentence);
+            System.out.println("User English: " + userTranslation);
 
-                String combinedMessage = "Turkish sentence: " + turkishSentence + ". User's English translation: "
-                        + userTranslation + ".";
-                if (englishRef != null) {
-                    combinedMessage += " (Reference/Target English: " + englishRef + ")";
-                }
-                combinedMessage += " Evaluate this translation generously. Return ONLY JSON.";
+            String combinedMessage = "Turkish sentence: " + turkishSentence + ". User's English translation: "
+                    + userTranslation + ".";
+            if (englishRef != null) {
+                combinedMessage += " (Reference/Target English: " + englishRef + ")";
+            }
+            combinedMessage += " Evaluate this translation generously. Return ONLY JSON.";
 
-                response = chatbotService.checkEnglishTranslation(combinedMessage);
+            response = chatbotService.checkEnglishTranslation(combinedMessage);
 
-            } else {
-                // Default: EN_TO_TR (English to Turkish)
-                String englishSentence = request.get("englishSentence");
+        } else {
+            // Default: EN_TO_TR (English to Turkish)
+            String englishSentence = request.get("englishSentence");
 
-                if (englishSentence == null) {
-                    Map<String, Object> error = new HashMap<>();
-                    error.put("error", "English sentence is required for EN_TO_TR direction");
-                    return ResponseEntity.badRequest().body(error);
-                }
+            if (englishSentence == null) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("error", "English sentence is required for EN_TO_TR direction");
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
+            }
 
-                System.out.println("Checking EN->TR translation:");
-                System.out.println("English Source: " + englishSentence);
-                System.out.println("User Turkish: " + userTranslation);
+            System.out.println("Checking EN->TR translation:");
+            System.out.println("English Source: " + englishSentence);
+            System.out.println("User Turkish: " + userTranslation);
 
-                String combinedMessage = "English sentence: " + englishSentence + ". User's Turkish translation: "
-                        + userTranslation + ". Evaluate this translation generously. Return ONLY JSON.";
+            String combinedMessage = "English sentence: " + englishSentence + ". User's Turkish translation: "
+                    + userTranslation + ". Evaluate this translation generously. Return ONLY JSON.";
 
-                response = chatbotService.checkTranslation(combinedMessage);
-            }
+            response = chatbotService.checkTranslation(combinedMessage);
+        }
 
-            System.out.println("Chatbot response: " + response);
+        return response.thenApply(text -> {
+            System.out.println("Chatbot response: " + text);
 
             // Parse JSON response
-            Map<String, Object> result = parseJsonResponse(response);
+            Map<String, Object> result = parseJsonResponse(text);
 
             return ResponseEntity.ok(result);
-        } catch (Exception e) {
+        }).exceptionally(t -> {
+            Throwable e = unwrap(t);
             System.err.println("Error checking translation: " + e.getMessage());
             e.printStackTrace();
             Map<String, Object> error = new HashMap<>();
             error.put("error", "Failed to check translation: " + e.getMessage());
             error.put("details", e.getClass().getSimpleName());
             return ResponseEntity.internalServerError().body(error);
-        }
+        });
     }
 
     private Map<String, Object> parseJsonResponse(String response) {
@@ -450,98 +405,227 @@ public class ChatbotController {
         }
     }
 
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("cache", chatbotService.getCacheStats());
+        stats.put("groq", chatbotService.getGroqStats());
+        Map<String, Object> bank = sentenceBankService.getStats();
+        bank.put("lastRefill", sentenceBankRefillJob.getLastRun());
+        stats.put("sentenceBank", bank);
+        return ResponseEntity.ok(stats);
+    }
+
     @PostMapping("/chat")
-    public ResponseEntity<Map<String, Object>> chat(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> chat(@RequestBody Map<String, String> request) {
         String message = request.get("message");
 
         if (message == null || message.trim().isEmpty()) {
             Map<String, Object> error = new HashMap<>();
             error.put("error", "Please provide a message");
-            return ResponseEntity.badRequest().body(error);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
         }
 
-        try {
-            String response = chatbotService.chat(message.trim());
-
+        return chatbotService.chat(message.trim()).thenApply(response -> {
             Map<String, Object> result = new HashMap<>();
             result.put("response", response);
             result.put("timestamp", System.currentTimeMillis());
 
             return ResponseEntity.ok(result);
-        } catch (Exception e) {
+        }).exceptionally(t -> {
+            Throwable e = unwrap(t);
             System.err.println("Error in chat: " + e.getMessage());
             e.printStackTrace();
             Map<String, Object> error = new HashMap<>();
             error.put("error", "Failed to get response: " + e.getMessage());
             return ResponseEntity.internalServerError().body(error);
+        });
+    }
+
+    /**
+     * SSE variant of /chat: "token" events as Groq produces them, then "done"
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStream(@RequestBody Map<String, String> request) {
+        String message = request.get("message");
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+
+        if (message == null || message.trim().isEmpty()) {
+            return failStream(emitter, "Please provide a message");
         }
+
+        streamToEmitter(emitter, onToken -> chatbotService.streamChat(message.trim(), onToken), fullText -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("response", fullText);
+            result.put("timestamp", System.currentTimeMillis());
+            return result;
+        });
+        return emitter;
     }
 
     @PostMapping("/speaking-test/generate-questions")
-    public ResponseEntity<Map<String, Object>> generateSpeakingTestQuestions(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> generateSpeakingTestQuestions(
+            @RequestBody Map<String, String> request) {
         String testType = request.get("testType"); // "IELTS" or "TOEFL"
         String part = request.get("part"); // "part1", "part2", "part3" for IELTS, "task1", "task2", etc. for TOEFL
 
         if (testType == null || part == null) {
             Map<String, Object> error = new HashMap<>();
             error.put("error", "Please provide testType and part");
-            return ResponseEntity.badRequest().body(error);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
         }
 
-        try {
-            String message = String.format("Generate %s Speaking test questions for %s. Return ONLY JSON.", testType,
-                    part);
-            String response = chatbotService.generateSpeakingTestQuestions(message);
-
-            // Parse JSON response
-            response = response.trim();
-            response = response.replaceAll("```json", "").replaceAll("```", "").trim();
+        String message = String.format("Generate %s Speaking test questions for %s. Return ONLY JSON.", testType,
+                part);
+        return chatbotService.generateSpeakingTestQuestions(message)
+                .thenApply(response -> ResponseEntity.ok(parseJsonObject(response)))
+                .exceptionally(t -> {
+                    Throwable e = unwrap(t);
+                    System.err.println("Error generating speaking test questions: " + e.getMessage());
+                    e.printStackTrace();
+                    Map<String, Object> error = new HashMap<>();
+                    error.put("error", "Failed to generate questions: " + e.getMessage());
+                    return ResponseEntity.internalServerError().body(error);
+                });
+    }
 
-            Map<String, Object> result = objectMapper.readValue(response, new TypeReference<Map<String, Object>>() {
-            });
+    @PostMapping("/speaking-test/evaluate")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> evaluateSpeakingTest(
+            @RequestBody Map<String, String> request) {
+        String testType = request.get("testType"); // "IELTS" or "TOEFL"
+        String question = request.get("question");
+        String response = request.get("response");
 
-            return ResponseEntity.ok(result);
-        } catch (Exception e) {
-            System.err.println("Error generating speaking test questions: " + e.getMessage());
-            e.printStackTrace();
+        if (testType == null || question == null || response == null) {
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "Failed to generate questions: " + e.getMessage());
-            return ResponseEntity.internalServerError().body(error);
+            error.put("error", "Please provide testType, question, and response");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
         }
+
+        String message = String.format(
+                "Evaluate this %s Speaking test response. Question: %s. Candidate's response: %s. Return ONLY JSON.",
+                testType, question, response);
+        return chatbotService.evaluateSpeakingTest(message)
+                .thenApply(llmResponse -> ResponseEntity.ok(parseJsonObject(llmResponse)))
+                .exceptionally(t -> {
+                    Throwable e = unwrap(t);
+                    System.err.println("Error evaluating speaking test: " + e.getMessage());
+                    e.printStackTrace();
+                    Map<String, Object> error = new HashMap<>();
+                    error.put("error", "Failed to evaluate response: " + e.getMessage());
+                    return ResponseEntity.internalServerError().body(error);
+                });
     }
 
-    @PostMapping("/speaking-test/evaluate")
-    public ResponseEntity<Map<String, Object>> evaluateSpeakingTest(@RequestBody Map<String, String> request) {
+    /**
+     * SSE variant of /speaking-test/evaluate: raw JSON text streams as "token"
+     * events, the parsed evaluation arrives in the final "done" event
+     */
+    @PostMapping(value = "/speaking-test/evaluate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter evaluateSpeakingTestStream(@RequestBody Map<String, String> request) {
         String testType = request.get("testType"); // "IELTS" or "TOEFL"
         String question = request.get("question");
         String response = request.get("response");
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
 
         if (testType == null || question == null || response == null) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "Please provide testType, question, and response");
-            return ResponseEntity.badRequest().body(error);
+            return failStream(emitter, "Please provide testType, question, and response");
         }
 
+        String message = String.format(
+                "Evaluate this %s Speaking test response. Question: %s. Candidate's response: %s. Return ONLY JSON.",
+                testType, question, response);
+        streamToEmitter(emitter, onToken -> chatbotService.streamSpeakingEvaluation(message, onToken),
+                this::parseJsonObject);
+        return emitter;
+    }
+
+    /**
+     * Wire a Groq token stream to an SSE emitter. Tokens are written as they
+     * arrive; the emitter's write blocks on a slow client, which in turn stops
+     * the Groq line reader from requesting more. A disconnect or timeout cancels
+     * the upstream request.
+     */
+    private void streamToEmitter(SseEmitter emitter, Function<Consumer<String>, GroqService.GroqStream> starter,
+            Function<String, Map<String, Object>> finisher) {
+        AtomicReference<GroqService.GroqStream> streamRef = new AtomicReference<>();
+        AtomicBoolean closed = new AtomicBoolean(false);
+
+        Runnable cancel = () -> {
+            closed.set(true);
+            GroqService.GroqStream stream = streamRef.get();
+            if (stream != null) {
+                stream.cancel();
+            }
+        };
+        emitter.onCompletion(cancel);
+        emitter.onTimeout(cancel);
+        emitter.onError(e -> cancel.run());
+
+        GroqService.GroqStream stream = starter.apply(token -> {
+            if (closed.get()) {
+                throw new IllegalStateException("Client disconnected");
+            }
+            try {
+                emitter.send(SseEmitter.event().name("token").data(Map.of("content", token)));
+            } catch (Exception e) {
+                // Client gone: throwing here makes GroqService cancel the upstream exchange
+                cancel.run();
+                throw new IllegalStateException("Client disconnected", e);
+            }
+        });
+        streamRef.set(stream);
+        if (closed.get()) {
+            stream.cancel();
+        }
+
+        stream.completion().whenComplete((fullText, error) -> {
+            if (closed.get()) {
+                return;
+            }
+            try {
+                if (error != null) {
+                    Throwable e = unwrap(error);
+                    logger.warn("Error in streamed response: {}", e.getMessage());
+                    Map<String, Object> payload = new HashMap<>();
+                    payload.put("error", "Failed to get response: " + e.getMessage());
+                    emitter.send(SseEmitter.event().name("error").data(payload));
+                } else {
+                    emitter.send(SseEmitter.event().name("done").data(finisher.apply(fullText)));
+                }
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+    }
+
+    private SseEmitter failStream(SseEmitter emitter, String message) {
         try {
-            String message = String.format(
-                    "Evaluate this %s Speaking test response. Question: %s. Candidate's response: %s. Return ONLY JSON.",
-                    testType, question, response);
-            String llmResponse = chatbotService.evaluateSpeakingTest(message);
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", message);
+            emitter.send(SseEmitter.event().name("error").data(error));
+            emitter.complete();
+        } catch (Exception e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
 
-            // Parse JSON response
-            llmResponse = llmResponse.trim();
-            llmResponse = llmResponse.replaceAll("```json", "").replaceAll("```", "").trim();
+    private Map<String, Object> parseJsonObject(String llmResponse) {
+        // Parse JSON response
+        llmResponse = llmResponse.trim();
+        llmResponse = llmResponse.replaceAll("```json", "").replaceAll("```", "").trim();
 
-            Map<String, Object> result = objectMapper.readValue(llmResponse, new TypeReference<Map<String, Object>>() {
+        try {
+            return objectMapper.readValue(llmResponse, new TypeReference<Map<String, Object>>() {
             });
-
-            return ResponseEntity.ok(result);
         } catch (Exception e) {
-            System.err.println("Error evaluating speaking test: " + e.getMessage());
-            e.printStackTrace();
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "Failed to evaluate response: " + e.getMessage());
-            return ResponseEntity.internalServerError().body(error);
+            throw new RuntimeException(e.getMessage(), e);
         }
     }
+
+    private static Throwable unwrap(Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
 }
@@ -0,0 +1,70 @@
+package com.ingilizce.calismaapp.controller;
+
+import com.ingilizce.calismaapp.service.ExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk data export (words, sentences, review history)
+ */
+@RestController
+@RequestMapping("/api/export")
+@CrossOrigin(originPatterns = "*")
+public class ExportController {
+
+    @Autowired
+    private ExportService exportService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> listDatasets() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("datasets", exportService.getDatasets());
+        response.put("formats", ExportService.FORMATS);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Stream a dataset
+     * GET /api/export/words?format=csv&gzip=true
+     *
+     * Written on the request thread rather than as async StreamingResponseBody:
+     * a large export may take longer than spring.mvc.async.request-timeout,
+     * which is sized for the LLM and TTS endpoints.
+     */
+    @GetMapping("/{dataset}")
+    public ResponseEntity<?> export(
+            @PathVariable String dataset,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        String fmt = format.toLowerCase(Locale.ROOT);
+        if (!exportService.isDataset(dataset) || !ExportService.FORMATS.contains(fmt)) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Unknown dataset or format");
+            error.put("datasets", exportService.getDatasets());
+            error.put("formats", ExportService.FORMATS);
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        String fileName = dataset + "-" + LocalDate.now() + "." + fmt + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : "csv".equals(fmt) ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.parseMediaType("application/x-ndjson");
+
+        response.setContentType(contentType.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        exportService.export(dataset, fmt, gzip, response.getOutputStream());
+        return null; // response already written
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * REST Controller for grammar checking functionality
@@ -48,30 +50,31 @@ public class GrammarController {
      *         }
      */
     @PostMapping("/check")
-    public ResponseEntity<Map<String, Object>> checkGrammar(@RequestBody Map<String, String> request) {
-        try {
-            String sentence = request.get("sentence");
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> checkGrammar(
+            @RequestBody Map<String, String> request) {
+        String sentence = request.get("sentence");
 
-            if (sentence == null || sentence.trim().isEmpty()) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("hasErrors", false);
-                errorResponse.put("errorCount", 0);
-                errorResponse.put("errors", List.of());
-                errorResponse.put("message", "Empty sentence provided");
-                return ResponseEntity.badRequest().body(errorResponse);
-            }
-
-            Map<String, Object> result = grammarCheckService.checkGrammar(sentence);
-            return ResponseEntity.ok(result);
-
-        } catch (Exception e) {
+        if (sentence == null || sentence.trim().isEmpty()) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("hasErrors", false);
             errorResponse.put("errorCount", 0);
             errorResponse.put("errors", List.of());
-            errorResponse.put("message", "Grammar check failed: " + e.getMessage());
-            return ResponseEntity.internalServerError().body(errorResponse);
+            errorResponse.put("message", "Empty sentence provided");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
         }
+
+        // Servlet thread is released while Groq answers; the response is written on completion
+        return grammarCheckService.checkGrammarAsync(sentence)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    Map<String, Object> errorResponse = new HashMap<>();
+                    errorResponse.put("hasErrors", false);
+                    errorResponse.put("errorCount", 0);
+                    errorResponse.put("errors", List.of());
+                    errorResponse.put("message", "Grammar check failed: " + cause.getMessage());
+                    return ResponseEntity.internalServerError().body(errorResponse);
+                });
     }
 
     /**
@@ -102,22 +105,17 @@ public class GrammarController {
      *         }
      */
     @PostMapping("/check-multiple")
-    public ResponseEntity<Map<String, List<Map<String, Object>>>> checkMultipleSentences(
+    public CompletableFuture<ResponseEntity<Map<String, List<Map<String, Object>>>>> checkMultipleSentences(
             @RequestBody Map<String, List<String>> request) {
-        try {
-            List<String> sentences = request.get("sentences");
-
-            if (sentences == null || sentences.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of());
-            }
+        List<String> sentences = request.get("sentences");
 
-            Map<String, List<Map<String, Object>>> results = grammarCheckService.checkMultipleSentences(sentences);
-
-            return ResponseEntity.ok(results);
-
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().body(Map.of());
+        if (sentences == null || sentences.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of()));
         }
+
+        return grammarCheckService.checkMultipleSentencesAsync(sentences)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> ResponseEntity.internalServerError().body(Map.of()));
     }
 
     /**
@@ -132,6 +130,7 @@ public class GrammarController {
         status.put("service", "JLanguageTool");
         status.put("language", "en-US");
         status.put("version", "6.4");
+        status.put("batch", grammarCheckService.getBatchStats());
         return ResponseEntity.ok(status);
     }
 
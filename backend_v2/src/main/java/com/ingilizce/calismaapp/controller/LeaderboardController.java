@@ -0,0 +1,95 @@
+package com.ingilizce.calismaapp.controller;
+
+import com.ingilizce.calismaapp.service.LeaderboardService;
+import com.ingilizce.calismaapp.util.CurrentUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Leaderboards: metric = xp | words | streak, period = all | week | day
+ * (streak is all-time only)
+ */
+@RestController
+@RequestMapping("/api/leaderboard")
+@CrossOrigin(originPatterns = "*")
+public class LeaderboardController {
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    /**
+     * Example: GET /api/leaderboard/xp?period=week&limit=10
+     * {
+     * "metric": "xp", "period": "week", "weekStart": "2026-10-12", "total": 1840,
+     * "entries": [ { "rank": 1, "userId": 7, "score": 2150, "displayName": "Ayşe", "userTag": "#4821" } ]
+     * }
+     * A date in an earlier week returns that week's final standings.
+     */
+    @GetMapping("/{metric}")
+    public ResponseEntity<Map<String, Object>> getTop(@PathVariable String metric,
+            @RequestParam(defaultValue = "all") String period,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "10") int limit) {
+        return respond(() -> leaderboardService.getTop(metric, period, date, limit));
+    }
+
+    /**
+     * Rank and score of the current user
+     */
+    @GetMapping("/{metric}/me")
+    public ResponseEntity<Map<String, Object>> getMyRank(@PathVariable String metric,
+            @RequestParam(defaultValue = "all") String period) {
+        return respondForUser(() -> leaderboardService.getRank(CurrentUser.id(), metric, period));
+    }
+
+    /**
+     * The current user with {@code radius} users above and below
+     */
+    @GetMapping("/{metric}/around-me")
+    public ResponseEntity<Map<String, Object>> getAroundMe(@PathVariable String metric,
+            @RequestParam(defaultValue = "all") String period,
+            @RequestParam(defaultValue = "5") int radius) {
+        return respondForUser(() -> leaderboardService.getAroundMe(CurrentUser.id(), metric, period, radius));
+    }
+
+    /**
+     * The current user and their friends, ranked
+     */
+    @GetMapping("/{metric}/friends")
+    public ResponseEntity<Map<String, Object>> getFriends(@PathVariable String metric,
+            @RequestParam(defaultValue = "all") String period) {
+        return respondForUser(() -> leaderboardService.getFriends(CurrentUser.id(), metric, period));
+    }
+
+    // Anonymous requests fall back to a real user's id: never show them that user's standing
+    private ResponseEntity<Map<String, Object>> respondForUser(Supplier<Map<String, Object>> read) {
+        if (CurrentUser.isAnonymous()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Login required");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+        return respond(read);
+    }
+
+    private ResponseEntity<Map<String, Object>> respond(Supplier<Map<String, Object>> read) {
+        try {
+            return ResponseEntity.ok(read.get());
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (IllegalStateException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+        }
+    }
+}
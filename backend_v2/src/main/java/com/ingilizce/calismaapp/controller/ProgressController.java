@@ -1,5 +1,6 @@
 package com.ingilizce.calismaapp.controller;
 
+import com.ingilizce.calismaapp.entity.XpTransaction;
 import com.ingilizce.calismaapp.model.Achievement;
 import com.ingilizce.calismaapp.service.ProgressService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,6 +34,18 @@ public class ProgressController {
         }
     }
 
+    /**
+     * XP history from the ledger (newest first)
+     */
+    @GetMapping("/xp-history")
+    public ResponseEntity<List<XpTransaction>> getXpHistory(@RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(progressService.getXpHistory(limit));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /**
      * Get all achievements (locked and unlocked)
      */
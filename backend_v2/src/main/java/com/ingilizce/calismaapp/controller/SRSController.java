@@ -1,11 +1,21 @@
 package com.ingilizce.calismaapp.controller;
 
+import com.ingilizce.calismaapp.dto.ReviewSubmissionItem;
 import com.ingilizce.calismaapp.entity.Word;
+import com.ingilizce.calismaapp.service.FsrsOptimizerJob;
 import com.ingilizce.calismaapp.service.SRSService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,19 +27,71 @@ import java.util.Map;
 @CrossOrigin(originPatterns = "*")
 public class SRSController {
 
+    private static final int DEFAULT_QUEUE_PAGE_SIZE = 20;
+
     @Autowired
     private SRSService srsService;
 
+    @Autowired
+    private FsrsOptimizerJob fsrsOptimizerJob;
+
     /**
      * Get words that need review today
      * 
-     * @return List of words to review
+     * Without limit/cursor: legacy full list of Word entities.
+     * With limit and/or cursor: one page of the priority-ordered queue as
+     * lightweight DTOs, sentences only with include=sentences.
+     * 
+     * Example: GET /api/srs/review-words?limit=20&include=sentences
+     * {
+     * "items": [ ... ],
+     * "nextCursor": "MjAyNi0wMS0wMXwxLjN8NDI" (null on the last page)
+     * }
+     * 
+     * @return List of words to review, or a page envelope
      */
     @GetMapping("/review-words")
-    public ResponseEntity<List<Word>> getReviewWords() {
+    public ResponseEntity<?> getReviewWords(@RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String include) {
         try {
-            List<Word> words = srsService.getWordsForReview();
-            return ResponseEntity.ok(words);
+            if (limit == null && cursor == null) {
+                List<Word> words = srsService.getWordsForReview();
+                return ResponseEntity.ok(words);
+            }
+            boolean includeSentences = include != null && include.contains("sentences");
+            return ResponseEntity.ok(srsService.getReviewQueue(cursor,
+                    limit != null ? limit : DEFAULT_QUEUE_PAGE_SIZE, includeSentences));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Today's review queue from the nightly materialized Redis queue
+     * (falls back to the database if Redis is unavailable)
+     * 
+     * Example: GET /api/srs/review-queue?limit=50&offset=0
+     * {
+     * "date": "2026-01-01",
+     * "items": [ ... ],
+     * "total": 73,
+     * "source": "materialized"
+     * }
+     */
+    @GetMapping("/review-queue")
+    public ResponseEntity<Map<String, Object>> getReviewQueue(@RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "0") int offset) {
+        try {
+            return ResponseEntity.ok(srsService.getMaterializedQueue(offset, limit));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -62,6 +124,71 @@ public class SRSController {
         }
     }
 
+    /**
+     * Submit a whole (possibly offline) review session in one call
+     * 
+     * Example request:
+     * {
+     * "idempotencyKey": "device-42-session-2026-01-01T10:00",
+     * "reviews": [
+     * { "wordId": 123, "quality": 4, "reviewedAt": "2026-01-01T09:58:00Z" },
+     * { "wordId": 124, "quality": 2, "reviewedAt": "2026-01-01" }
+     * ]
+     * }
+     * 
+     * Replaying the same idempotencyKey returns the stored result with
+     * "replayed": true and does not apply the reviews again.
+     */
+    @PostMapping("/submit-reviews")
+    public ResponseEntity<Map<String, Object>> submitReviews(@RequestBody Map<String, Object> request) {
+        String idempotencyKey = request.get("idempotencyKey") != null ? request.get("idempotencyKey").toString()
+                : null;
+        try {
+            List<ReviewSubmissionItem> reviews = new ArrayList<>();
+            Object rawReviews = request.get("reviews");
+            if (rawReviews instanceof List<?> list) {
+                for (Object item : list) {
+                    if (!(item instanceof Map<?, ?> review) || review.get("wordId") == null
+                            || review.get("quality") == null) {
+                        throw new IllegalArgumentException("Each review needs wordId and quality");
+                    }
+                    reviews.add(new ReviewSubmissionItem(Long.valueOf(review.get("wordId").toString()),
+                            Integer.parseInt(review.get("quality").toString()),
+                            parseReviewedOn(review.get("reviewedAt"))));
+                }
+            }
+            return ResponseEntity.ok(srsService.submitReviews(idempotencyKey, reviews));
+        } catch (DataIntegrityViolationException e) {
+            // Same key submitted concurrently: the other request won, return its result
+            return srsService.findSubmission(idempotencyKey)
+                    .<ResponseEntity<Map<String, Object>>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.internalServerError().build());
+        } catch (IllegalArgumentException | DateTimeException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Accepts an ISO instant ("2026-01-01T09:58:00Z"), local date-time or date
+     */
+    private static LocalDate parseReviewedOn(Object value) {
+        if (value == null || value.toString().isBlank()) {
+            return null;
+        }
+        String text = value.toString();
+        if (text.length() == 10) {
+            return LocalDate.parse(text);
+        }
+        if (text.endsWith("Z") || text.matches(".*[+-]\\d{2}:\\d{2}$")) {
+            return OffsetDateTime.parse(text).atZoneSameInstant(ZoneId.systemDefault()).toLocalDate();
+        }
+        return LocalDateTime.parse(text).toLocalDate();
+    }
+
     /**
      * Get SRS statistics
      * 
@@ -70,8 +197,10 @@ public class SRSController {
      *         Example response:
      *         {
      *         "dueToday": 5,
+     *         "overdue": 2,
      *         "totalWords": 100,
-     *         "reviewedWords": 80
+     *         "reviewedWords": 80,
+     *         "upcoming": [{"date": "2026-01-02", "count": 7}, ...] (next 30 days)
      *         }
      */
     @GetMapping("/stats")
@@ -83,4 +212,15 @@ public class SRSController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    /**
+     * Refit FSRS weights from the review history now (normally weekly)
+     */
+    @PostMapping("/fsrs/optimize")
+    public ResponseEntity<Map<String, Object>> optimizeFsrs() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("started", fsrsOptimizerJob.start());
+        response.put("lastRun", fsrsOptimizerJob.getLastRun());
+        return ResponseEntity.ok(response);
+    }
 }
@@ -0,0 +1,43 @@
+package com.ingilizce.calismaapp.controller;
+
+import com.ingilizce.calismaapp.service.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Word / sentence search (prefix, typo-tolerant, Turkish-aware)
+ */
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(originPatterns = "*")
+public class SearchController {
+
+    @Autowired
+    private SearchService searchService;
+
+    /**
+     * Example: GET /api/search?q=kisi&type=words&limit=10
+     * {
+     * "query": "kisi",
+     * "words": [ { "id": 42, "english_word": "person", "turkish_meaning": "kişi", "score": 3.0 } ],
+     * "mode": "trigram",
+     * "tookMs": 2.4
+     * }
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> search(@RequestParam String q,
+            @RequestParam(defaultValue = "all") String type,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(searchService.search(q, type, limit));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.ingilizce.calismaapp.controller;
 
 import com.ingilizce.calismaapp.service.PiperTtsService;
+import com.ingilizce.calismaapp.service.TtsAudioCache;
+import com.ingilizce.calismaapp.service.TtsWarmupJob;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -15,6 +19,12 @@ public class TtsController {
     @Autowired
     private PiperTtsService piperTtsService;
     
+    @Autowired
+    private TtsAudioCache audioCache;
+    
+    @Autowired
+    private TtsWarmupJob warmupJob;
+    
     @PostMapping("/synthesize")
     public ResponseEntity<?> synthesize(@RequestBody Map<String, String> request) {
         String text = request.get("text");
@@ -27,7 +37,9 @@ public class TtsController {
         }
         
         try {
-            if (!piperTtsService.isAvailable()) {
+            // Havuzdaki canlı worker kontrolü (artık her istekte process başlatmıyor)
+            // Cache'te olan ses Piper kapalıyken de servis edilebilir
+            if (!piperTtsService.isAvailable() && !piperTtsService.isCached(text, voice)) {
                 Map<String, Object> error = new HashMap<>();
                 error.put("error", "Piper TTS is not available.");
                 error.put("available", false);
@@ -51,12 +63,72 @@ public class TtsController {
         }
     }
     
+    /**
+     * Stream WAV audio while it is being synthesized (no Base64, no full buffering)
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<?> streamGet(@RequestParam String text,
+            @RequestParam(required = false) String voice) {
+        return stream(text, voice);
+    }
+    
+    @PostMapping("/stream")
+    public ResponseEntity<?> streamPost(@RequestBody Map<String, String> request) {
+        return stream(request.get("text"), request.get("voice"));
+    }
+    
+    private ResponseEntity<?> stream(String text, String voice) {
+        if (text == null || text.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Text is required");
+            return ResponseEntity.badRequest().body(error);
+        }
+        
+        boolean cached = piperTtsService.isCached(text, voice);
+        if (!cached && !piperTtsService.isAvailable()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Piper TTS is not available.");
+            error.put("available", false);
+            return ResponseEntity.status(503).body(error);
+        }
+        
+        String trimmed = text.trim();
+        StreamingResponseBody body = out -> {
+            try {
+                piperTtsService.streamSpeech(trimmed, voice, out);
+            } catch (java.io.IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new java.io.IOException("Failed to stream speech: " + e.getMessage(), e);
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("audio/wav"))
+                .header("X-TTS-Cache", cached ? "HIT" : "MISS")
+                .body(body);
+    }
+    
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> getStatus() {
         Map<String, Object> status = new HashMap<>();
         boolean available = piperTtsService.isAvailable();
         status.put("available", available);
         status.put("voices", new String[]{"lessac", "amy", "alan"});
+        status.put("pool", piperTtsService.getPoolStats());
+        status.put("cache", audioCache.getStats());
         return ResponseEntity.ok(status);
     }
+    
+    /**
+     * Pre-render audio for all words and sentences into the disk cache
+     */
+    @PostMapping("/cache/warmup")
+    public ResponseEntity<Map<String, Object>> warmup() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("started", warmupJob.start());
+        response.put("running", warmupJob.isRunning());
+        response.put("lastRun", warmupJob.getLastRun());
+        return ResponseEntity.ok(response);
+    }
 }
\ No newline at end of file
@@ -2,13 +2,19 @@ package com.ingilizce.calismaapp.controller;
 
 import com.ingilizce.calismaapp.entity.Word;
 import com.ingilizce.calismaapp.dto.CreateWordRequest;
+import com.ingilizce.calismaapp.dto.WordQuery;
+import com.ingilizce.calismaapp.service.WordImportService;
 import com.ingilizce.calismaapp.service.WordService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
@@ -20,9 +26,32 @@ public class WordController {
     @Autowired
     private WordService wordService;
     
+    @Autowired
+    private WordImportService wordImportService;
+    
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    
+    /**
+     * Without paging parameters: the full list (without sentences unless
+     * ?include=sentences). With any of limit, cursor, sort, order, difficulty,
+     * due, hasSentences or fields: one keyset page
+     * 
+     * Example: GET /api/words?limit=50&sort=englishWord&due=true&fields=compact
+     * {
+     * "items": [ ... ],
+     * "nextCursor": "ZW5nbGlzaFdvcmR8YXNjfDQyfGFwcGxl" (null on the last page)
+     * }
+     */
     @GetMapping
-    public List<Word> getAllWords() {
-        return wordService.getAllWords();
+    public ResponseEntity<?> getAllWords(@RequestParam(required = false) String include,
+            @RequestParam Map<String, String> params) {
+        if (isPaged(params)) {
+            return wordPage(params, null, null);
+        }
+        if (includesSentences(include)) {
+            return ResponseEntity.ok(wordService.getAllWords());
+        }
+        return ResponseEntity.ok(wordService.getAllWordSummaries());
     }
     
     @GetMapping("/{id}")
@@ -34,16 +63,25 @@ public class WordController {
     
     @GetMapping("/{id}/sentences")
     public ResponseEntity<List<com.ingilizce.calismaapp.entity.Sentence>> getWordSentences(@PathVariable Long id) {
-        Optional<Word> word = wordService.getWordById(id);
-        if (word.isPresent()) {
-            return ResponseEntity.ok(word.get().getSentences());
+        List<com.ingilizce.calismaapp.entity.Sentence> sentences = wordService.getSentences(id);
+        if (sentences != null) {
+            return ResponseEntity.ok(sentences);
         }
         return ResponseEntity.notFound().build();
     }
     
     @GetMapping("/date/{date}")
-    public List<Word> getWordsByDate(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        return wordService.getWordsByDate(date);
+    public ResponseEntity<?> getWordsByDate(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String include,
+            @RequestParam Map<String, String> params) {
+        if (isPaged(params)) {
+            return wordPage(params, date, date);
+        }
+        if (includesSentences(include)) {
+            return ResponseEntity.ok(wordService.getWordsByDate(date));
+        }
+        return ResponseEntity.ok(wordService.getWordSummariesByDate(date));
     }
     
     @GetMapping("/dates")
@@ -52,10 +90,18 @@ public class WordController {
     }
     
     @GetMapping("/range")
-    public List<Word> getWordsByDateRange(
+    public ResponseEntity<?> getWordsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        return wordService.getWordsByDateRange(startDate, endDate);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String include,
+            @RequestParam Map<String, String> params) {
+        if (isPaged(params)) {
+            return wordPage(params, startDate, endDate);
+        }
+        if (includesSentences(include)) {
+            return ResponseEntity.ok(wordService.getWordsByDateRange(startDate, endDate));
+        }
+        return ResponseEntity.ok(wordService.getWordSummariesByDateRange(startDate, endDate));
     }
     
     @PostMapping
@@ -100,4 +146,75 @@ public class WordController {
         }
         return ResponseEntity.notFound().build();
     }
+    
+    // Bulk import: parsed in the background, poll /import/{jobId} for progress
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importWords(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "true") boolean skipDuplicates) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            String jobId = wordImportService.submit(file, format, skipDuplicates);
+            response.put("jobId", jobId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IOException e) {
+            response.put("error", "Could not read upload: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+    
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<Map<String, Object>> getImportStatus(@PathVariable String jobId) {
+        Map<String, Object> status = wordImportService.getJob(jobId);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(status);
+    }
+    
+    private static final List<String> PAGING_PARAMS = List.of("limit", "cursor", "sort", "order", "difficulty",
+            "due", "hasSentences", "fields");
+    
+    private static boolean isPaged(Map<String, String> params) {
+        return PAGING_PARAMS.stream().anyMatch(params::containsKey);
+    }
+    
+    private ResponseEntity<?> wordPage(Map<String, String> params, LocalDate from, LocalDate to) {
+        try {
+            String sort = params.getOrDefault("sort", "learnedDate");
+            // Newest first for dates, A-Z / soonest first otherwise
+            String order = params.getOrDefault("order", "learnedDate".equals(sort) ? "desc" : "asc");
+            if (!order.equals("asc") && !order.equals("desc")) {
+                throw new IllegalArgumentException("order must be asc or desc");
+            }
+            int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_PAGE_SIZE;
+            WordQuery query = new WordQuery(sort, order.equals("desc"), from, to, params.get("difficulty"),
+                    parseFlag(params.get("due")), parseFlag(params.get("hasSentences")), null, null, limit);
+            boolean compact = "compact".equals(params.get("fields"));
+            return ResponseEntity.ok(wordService.getWordPage(query, params.get("cursor"), compact,
+                    !compact && includesSentences(params.get("include"))));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e instanceof NumberFormatException ? "limit must be a number" : e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    private static Boolean parseFlag(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        if (!value.equals("true") && !value.equals("false")) {
+            throw new IllegalArgumentException("Filter flags must be true or false");
+        }
+        return Boolean.valueOf(value);
+    }
+    
+    private static boolean includesSentences(String include) {
+        return include != null && List.of(include.split(",")).contains("sentences");
+    }
 }
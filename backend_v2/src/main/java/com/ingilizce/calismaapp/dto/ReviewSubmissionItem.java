@@ -0,0 +1,12 @@
+package com.ingilizce.calismaapp.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One card of a batch review submission (/api/srs/submit-reviews)
+ */
+public record ReviewSubmissionItem(
+    Long wordId,
+    int quality,          // 0-5, same scale as submit-review
+    LocalDate reviewedOn  // day the card was reviewed on the device
+) {}
@@ -0,0 +1,37 @@
+package com.ingilizce.calismaapp.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * SRS review queue item. Built straight from a JPQL constructor expression so
+ * the queue never materializes Word entities; sentences are only filled in
+ * when the client asks for them (same JSON shape as the Word entity).
+ */
+public record ReviewWordDto(
+    Long id,
+    String englishWord,
+    String turkishMeaning,
+    LocalDate learnedDate,
+    String notes,
+    String difficulty,
+    LocalDate nextReviewDate,
+    Integer reviewCount,
+    Double easeFactor,
+    LocalDate lastReviewDate,
+    List<SentenceDto> sentences
+) {
+
+    // Used by the JPQL constructor expression
+    public ReviewWordDto(Long id, String englishWord, String turkishMeaning, LocalDate learnedDate, String notes,
+            String difficulty, LocalDate nextReviewDate, Integer reviewCount, Double easeFactor,
+            LocalDate lastReviewDate) {
+        this(id, englishWord, turkishMeaning, learnedDate, notes, difficulty, nextReviewDate, reviewCount,
+                easeFactor, lastReviewDate, null);
+    }
+
+    public ReviewWordDto withSentences(List<SentenceDto> sentences) {
+        return new ReviewWordDto(id, englishWord, turkishMeaning, learnedDate, notes, difficulty, nextReviewDate,
+                reviewCount, easeFactor, lastReviewDate, sentences);
+    }
+}
@@ -0,0 +1,12 @@
+package com.ingilizce.calismaapp.dto;
+
+/**
+ * Read-only sentence projection (same JSON shape as the Sentence entity)
+ */
+public record SentenceDto(
+    Long id,
+    Long wordId,
+    String sentence,
+    String translation,
+    String difficulty
+) {}
@@ -0,0 +1,12 @@
+package com.ingilizce.calismaapp.dto;
+
+/**
+ * What a leaderboard row shows about a user
+ */
+public record UserSummaryDto(
+    Long id,
+    String displayName,
+    String userTag,
+    String avatarUrl
+) {
+}
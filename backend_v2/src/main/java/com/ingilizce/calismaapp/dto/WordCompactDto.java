@@ -0,0 +1,17 @@
+package com.ingilizce.calismaapp.dto;
+
+import java.time.LocalDate;
+
+/**
+ * fields=compact list item: what a list row shows, without notes, SRS
+ * internals or sentences
+ */
+public record WordCompactDto(
+    Long id,
+    String englishWord,
+    String turkishMeaning,
+    LocalDate learnedDate,
+    String difficulty,
+    LocalDate nextReviewDate
+) {
+}
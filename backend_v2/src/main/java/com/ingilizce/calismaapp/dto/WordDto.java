@@ -0,0 +1,39 @@
+package com.ingilizce.calismaapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Word list item, read with a JPQL/Criteria constructor expression so list
+ * endpoints never touch the Word/Sentence entity graph. sentences is only
+ * filled in (and serialized) when the client asks for them.
+ */
+public record WordDto(
+    Long id,
+    String englishWord,
+    String turkishMeaning,
+    LocalDate learnedDate,
+    String notes,
+    String difficulty,
+    LocalDate nextReviewDate,
+    Integer reviewCount,
+    Double easeFactor,
+    LocalDate lastReviewDate,
+    @JsonInclude(JsonInclude.Include.NON_NULL) List<SentenceDto> sentences
+) {
+
+    // Used by constructor expressions
+    public WordDto(Long id, String englishWord, String turkishMeaning, LocalDate learnedDate, String notes,
+            String difficulty, LocalDate nextReviewDate, Integer reviewCount, Double easeFactor,
+            LocalDate lastReviewDate) {
+        this(id, englishWord, turkishMeaning, learnedDate, notes, difficulty, nextReviewDate, reviewCount,
+                easeFactor, lastReviewDate, null);
+    }
+
+    public WordDto withSentences(List<SentenceDto> sentences) {
+        return new WordDto(id, englishWord, turkishMeaning, learnedDate, notes, difficulty, nextReviewDate,
+                reviewCount, easeFactor, lastReviewDate, sentences);
+    }
+}
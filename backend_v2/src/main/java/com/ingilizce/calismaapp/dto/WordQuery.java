@@ -0,0 +1,25 @@
+package com.ingilizce.calismaapp.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One keyset page of /api/words
+ *
+ * @param sort       learnedDate | englishWord | nextReviewDate
+ * @param afterValue sort key of the previous page's last row (null on the first page)
+ * @param afterId    id of the previous page's last row (tie-breaker)
+ * @param due        true: nextReviewDate <= today, false: not due (or unscheduled)
+ */
+public record WordQuery(
+    String sort,
+    boolean descending,
+    LocalDate from,
+    LocalDate to,
+    String difficulty,
+    Boolean due,
+    Boolean hasSentences,
+    Object afterValue,
+    Long afterId,
+    int limit
+) {
+}
@@ -0,0 +1,104 @@
+package com.ingilizce.calismaapp.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * FSRS weights fitted from a user's review history by FsrsOptimizerJob
+ */
+@Entity
+@Table(name = "fsrs_parameters", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_fsrs_parameters_user", columnNames = "user_id")
+})
+public class FsrsParameters {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Comma-separated, 17 values
+    @Column(nullable = false, length = 1000)
+    private String weights;
+
+    @Column(name = "trained_on_reviews", nullable = false)
+    private Integer trainedOnReviews;
+
+    // Mean binary cross-entropy of recall predictions on the training history
+    @Column(name = "log_loss")
+    private Double logLoss;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public FsrsParameters() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public FsrsParameters(Long userId) {
+        this.userId = userId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public double[] getWeightArray() {
+        return Arrays.stream(weights.split(",")).mapToDouble(Double::parseDouble).toArray();
+    }
+
+    public void setWeightArray(double[] values) {
+        this.weights = Arrays.stream(values).mapToObj(Double::toString).collect(Collectors.joining(","));
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getWeights() {
+        return weights;
+    }
+
+    public void setWeights(String weights) {
+        this.weights = weights;
+    }
+
+    public Integer getTrainedOnReviews() {
+        return trainedOnReviews;
+    }
+
+    public void setTrainedOnReviews(Integer trainedOnReviews) {
+        this.trainedOnReviews = trainedOnReviews;
+    }
+
+    public Double getLogLoss() {
+        return logLoss;
+    }
+
+    public void setLogLoss(Double logLoss) {
+        this.logLoss = logLoss;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,73 @@
+package com.ingilizce.calismaapp.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Processed batch review submission, kept so an offline client replaying the
+ * same idempotency key gets the original result instead of double-applying it.
+ */
+@Entity
+@Table(name = "review_submissions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_review_submission_key", columnNames = "idempotency_key")
+})
+public class ReviewSubmission {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    // JSON response returned for the original submission
+    @Column(name = "response_json", nullable = false, columnDefinition = "TEXT")
+    private String responseJson;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public ReviewSubmission() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public ReviewSubmission(String idempotencyKey, String responseJson) {
+        this.idempotencyKey = idempotencyKey;
+        this.responseJson = responseJson;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getResponseJson() {
+        return responseJson;
+    }
+
+    public void setResponseJson(String responseJson) {
+        this.responseJson = responseJson;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
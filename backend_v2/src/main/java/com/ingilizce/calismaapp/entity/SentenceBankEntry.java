@@ -0,0 +1,122 @@
+package com.ingilizce.calismaapp.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-generated practice sentence waiting to be served by generate-sentences.
+ * Rows are consumed (deleted) when served, so the bank only holds unseen sentences.
+ */
+@Entity
+@Table(name = "sentence_bank", indexes = {
+        @Index(name = "idx_sentence_bank_lookup", columnList = "word, cefr_level, sentence_length")
+})
+public class SentenceBankEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Normalized (trimmed, lower-case) target word
+    @Column(nullable = false)
+    private String word;
+
+    @Column(name = "cefr_level", nullable = false, length = 2)
+    private String level;
+
+    @Column(name = "sentence_length", nullable = false, length = 10)
+    private String length;
+
+    @Column(name = "english_sentence", nullable = false, columnDefinition = "TEXT")
+    private String englishSentence;
+
+    @Column(name = "turkish_translation", columnDefinition = "TEXT")
+    private String turkishTranslation;
+
+    @Column(name = "turkish_full_translation", columnDefinition = "TEXT")
+    private String turkishFullTranslation;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public SentenceBankEntry() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public SentenceBankEntry(String word, String level, String length, String englishSentence,
+            String turkishTranslation, String turkishFullTranslation) {
+        this.word = word;
+        this.level = level;
+        this.length = length;
+        this.englishSentence = englishSentence;
+        this.turkishTranslation = turkishTranslation;
+        this.turkishFullTranslation = turkishFullTranslation;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getWord() {
+        return word;
+    }
+
+    public void setWord(String word) {
+        this.word = word;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public void setLevel(String level) {
+        this.level = level;
+    }
+
+    public String getLength() {
+        return length;
+    }
+
+    public void setLength(String length) {
+        this.length = length;
+    }
+
+    public String getEnglishSentence() {
+        return englishSentence;
+    }
+
+    public void setEnglishSentence(String englishSentence) {
+        this.englishSentence = englishSentence;
+    }
+
+    public String getTurkishTranslation() {
+        return turkishTranslation;
+    }
+
+    public void setTurkishTranslation(String turkishTranslation) {
+        this.turkishTranslation = turkishTranslation;
+    }
+
+    public String getTurkishFullTranslation() {
+        return turkishFullTranslation;
+    }
+
+    public void setTurkishFullTranslation(String turkishFullTranslation) {
+        this.turkishFullTranslation = turkishFullTranslation;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
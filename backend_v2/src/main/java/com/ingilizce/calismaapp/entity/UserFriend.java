@@ -10,6 +10,7 @@ import java.time.LocalDateTime;
 }, uniqueConstraints = {
         @UniqueConstraint(columnNames = { "user_id", "friend_id" })
 })
+@EntityListeners(UserFriendListener.class)
 public class UserFriend {
 
     @Id
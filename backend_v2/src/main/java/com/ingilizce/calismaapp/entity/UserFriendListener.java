@@ -0,0 +1,34 @@
+package com.ingilizce.calismaapp.entity;
+
+import com.ingilizce.calismaapp.service.FriendGraphService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops the cached friend lists of both sides whenever a friendship row
+ * changes, whoever changed it. A Spring bean (Hibernate resolves listeners
+ * through the Spring bean container); the graph service is looked up lazily
+ * because listeners are created while the EntityManagerFactory is built.
+ */
+@Component
+public class UserFriendListener {
+
+    private final ObjectProvider<FriendGraphService> friendGraphService;
+
+    public UserFriendListener(ObjectProvider<FriendGraphService> friendGraphService) {
+        this.friendGraphService = friendGraphService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(UserFriend friendship) {
+        FriendGraphService graph = friendGraphService.getIfAvailable();
+        if (graph != null && friendship.getUser() != null && friendship.getFriend() != null) {
+            graph.invalidate(friendship.getUser().getId(), friendship.getFriend().getId());
+        }
+    }
+}
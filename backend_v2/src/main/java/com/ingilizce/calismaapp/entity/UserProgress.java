@@ -1,10 +1,13 @@
 package com.ingilizce.calismaapp.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+// DynamicUpdate: streak updates must not write back a stale total_xp over XpLedger's compaction
 @Entity
+@DynamicUpdate
 @Table(name = "user_progress")
 public class UserProgress {
 
@@ -12,12 +15,18 @@ public class UserProgress {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "user_id")
-    private Long userId = 1L; // Default user for now
+    // One row per user; ProgressService relies on the constraint for concurrent first requests
+    @Column(name = "user_id", unique = true)
+    private Long userId = 1L;
 
+    // Compacted XP: ledger rows up to xpLedgerWatermark are included
     @Column(name = "total_xp")
     private Integer totalXp = 0;
 
+    // Last xp_transactions.id folded into totalXp
+    @Column(name = "xp_ledger_watermark")
+    private Long xpLedgerWatermark = 0L;
+
     @Column(name = "level")
     private Integer level = 1;
 
@@ -68,6 +77,14 @@ public class UserProgress {
         this.updatedAt = LocalDateTime.now();
     }
 
+    public Long getXpLedgerWatermark() {
+        return xpLedgerWatermark;
+    }
+
+    public void setXpLedgerWatermark(Long xpLedgerWatermark) {
+        this.xpLedgerWatermark = xpLedgerWatermark;
+    }
+
     public Integer getLevel() {
         return level;
     }
@@ -144,6 +161,13 @@ public class UserProgress {
      * Level formula: Level increases every 100 XP initially, then scales
      */
     private int calculateLevel(int xp) {
+        return levelForXp(xp);
+    }
+
+    /**
+     * Level for a total XP amount (same formula as addXp)
+     */
+    public static int levelForXp(int xp) {
         if (xp < 100)
             return 1;
         if (xp < 250)
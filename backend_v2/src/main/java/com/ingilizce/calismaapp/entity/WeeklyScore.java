@@ -0,0 +1,102 @@
+package com.ingilizce.calismaapp.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Final standing of a user on a closed weekly XP board. The live board is a
+ * Redis sorted set (LeaderboardService); this row is its snapshot.
+ */
+@Entity
+@Table(name = "weekly_scores", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_weekly_scores_user_week", columnNames = { "user_id", "week_start_date" })
+}, indexes = {
+        @Index(name = "idx_weekly_scores_week_rank", columnList = "week_start_date, rank")
+})
+public class WeeklyScore {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "week_start_date", nullable = false)
+    private LocalDate weekStartDate;
+
+    @Column(name = "weekly_xp")
+    private Integer weeklyXp = 0;
+
+    @Column(length = 20)
+    private String league = "bronze";
+
+    @Column(name = "rank")
+    private Integer rank;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public WeeklyScore() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDate getWeekStartDate() {
+        return weekStartDate;
+    }
+
+    public void setWeekStartDate(LocalDate weekStartDate) {
+        this.weekStartDate = weekStartDate;
+    }
+
+    public Integer getWeeklyXp() {
+        return weeklyXp;
+    }
+
+    public void setWeeklyXp(Integer weeklyXp) {
+        this.weeklyXp = weeklyXp;
+    }
+
+    public String getLeague() {
+        return league;
+    }
+
+    public void setLeague(String league) {
+        this.league = league;
+    }
+
+    public Integer getRank() {
+        return rank;
+    }
+
+    public void setRank(Integer rank) {
+        this.rank = rank;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -7,7 +7,12 @@ import java.util.List;
 import java.util.ArrayList;
 
 @Entity
-@Table(name = "words")
+// Keyset pagination: one (sort key, id) index per sort order of /api/words
+@Table(name = "words", indexes = {
+        @Index(name = "idx_words_learned_date_id", columnList = "learned_date, id"),
+        @Index(name = "idx_words_english_word_id", columnList = "english_word, id"),
+        @Index(name = "idx_words_next_review_date_id", columnList = "next_review_date, id")
+})
 public class Word {
 
     @Id
@@ -42,7 +47,15 @@ public class Word {
     @Column(name = "last_review_date")
     private LocalDate lastReviewDate;
 
-    @OneToMany(mappedBy = "word", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    // FSRS state (null until the word is first scheduled with FSRS)
+    @Column(name = "fsrs_stability")
+    private Double fsrsStability;
+
+    @Column(name = "fsrs_difficulty")
+    private Double fsrsDifficulty;
+
+    // LAZY: load through WordRepository's entity-graph methods when sentences are needed
+    @OneToMany(mappedBy = "word", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonManagedReference
     private List<Sentence> sentences = new ArrayList<>();
 
@@ -155,4 +168,20 @@ public class Word {
     public void setLastReviewDate(LocalDate lastReviewDate) {
         this.lastReviewDate = lastReviewDate;
     }
+
+    public Double getFsrsStability() {
+        return fsrsStability;
+    }
+
+    public void setFsrsStability(Double fsrsStability) {
+        this.fsrsStability = fsrsStability;
+    }
+
+    public Double getFsrsDifficulty() {
+        return fsrsDifficulty;
+    }
+
+    public void setFsrsDifficulty(Double fsrsDifficulty) {
+        this.fsrsDifficulty = fsrsDifficulty;
+    }
 }
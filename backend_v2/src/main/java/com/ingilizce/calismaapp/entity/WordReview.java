@@ -1,6 +1,8 @@
 package com.ingilizce.calismaapp.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import java.time.LocalDate;
 
 @Entity
@@ -13,6 +15,7 @@ public class WordReview {
     
     @ManyToOne
     @JoinColumn(name = "word_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Word word;
     
     @Column(name = "review_date", nullable = false)
@@ -24,6 +27,10 @@ public class WordReview {
     @Column(name = "notes")
     private String notes;
     
+    // SRS recall quality 0-5 (null for manual calendar reviews); FSRS optimizer input
+    @Column(name = "quality")
+    private Integer quality;
+    
     // Constructors
     public WordReview() {}
     
@@ -72,4 +79,12 @@ public class WordReview {
     public void setNotes(String notes) {
         this.notes = notes;
     }
+    
+    public Integer getQuality() {
+        return quality;
+    }
+    
+    public void setQuality(Integer quality) {
+        this.quality = quality;
+    }
 }
@@ -0,0 +1,28 @@
+package com.ingilizce.calismaapp.model;
+
+import java.time.LocalDate;
+
+/**
+ * Scheduling state of one word, as read from and written back to the words table.
+ * stability/difficulty are only maintained by FSRS and are null for words
+ * that were always scheduled with SM-2.
+ */
+public record ReviewState(
+    int reviewCount,
+    double easeFactor,
+    Double stability,       // FSRS: days until recall probability drops to 90%
+    Double difficulty,      // FSRS: 1 (easy) .. 10 (hard)
+    LocalDate lastReviewDate,
+    LocalDate nextReviewDate
+) {
+
+    /**
+     * Days between the last review and the scheduled one, or 0 if unknown
+     */
+    public long scheduledIntervalDays() {
+        if (lastReviewDate == null || nextReviewDate == null) {
+            return 0;
+        }
+        return Math.max(0, nextReviewDate.toEpochDay() - lastReviewDate.toEpochDay());
+    }
+}
@@ -0,0 +1,14 @@
+package com.ingilizce.calismaapp.model;
+
+/**
+ * What an XP award was for. Tells the achievement engine which counter the
+ * event moves, so it only has to look at the thresholds of that counter.
+ */
+public enum XpSource {
+    WORD_ADDED,
+    WORDS_IMPORTED,
+    SENTENCE_ADDED,
+    REVIEW,
+    ACHIEVEMENT,
+    MANUAL
+}
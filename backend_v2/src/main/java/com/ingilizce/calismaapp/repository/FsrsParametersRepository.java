@@ -0,0 +1,13 @@
+package com.ingilizce.calismaapp.repository;
+
+import com.ingilizce.calismaapp.entity.FsrsParameters;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface FsrsParametersRepository extends JpaRepository<FsrsParameters, Long> {
+
+    Optional<FsrsParameters> findByUserId(Long userId);
+}
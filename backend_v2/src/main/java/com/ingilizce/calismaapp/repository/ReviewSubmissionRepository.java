@@ -0,0 +1,13 @@
+package com.ingilizce.calismaapp.repository;
+
+import com.ingilizce.calismaapp.entity.ReviewSubmission;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ReviewSubmissionRepository extends JpaRepository<ReviewSubmission, Long> {
+
+    Optional<ReviewSubmission> findByIdempotencyKey(String idempotencyKey);
+}
@@ -0,0 +1,42 @@
+package com.ingilizce.calismaapp.repository;
+
+import com.ingilizce.calismaapp.entity.SentenceBankEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SentenceBankRepository extends JpaRepository<SentenceBankEntry, Long> {
+
+    long countByWordAndLevelAndLength(String word, String level, String length);
+
+    /**
+     * Depth of many words at one level/length in a single query: rows of
+     * {word, count}; words with no sentences are absent
+     */
+    @Query("SELECT e.word, COUNT(e) FROM SentenceBankEntry e "
+            + "WHERE e.word IN :words AND e.level = :level AND e.length = :length GROUP BY e.word")
+    List<Object[]> countByWordIn(@Param("words") Collection<String> words, @Param("level") String level,
+            @Param("length") String length);
+
+    /**
+     * Atomically claim and remove up to :limit random sentences for the word.
+     * SKIP LOCKED lets concurrent requests for the same word take disjoint rows
+     * instead of waiting on each other.
+     */
+    @Query(value = "DELETE FROM sentence_bank WHERE id IN ("
+            + "SELECT id FROM sentence_bank "
+            + "WHERE word = :word AND cefr_level IN (:levels) AND sentence_length IN (:lengths) "
+            + "ORDER BY random() LIMIT :limit FOR UPDATE SKIP LOCKED) "
+            + "RETURNING *", nativeQuery = true)
+    @Transactional
+    List<SentenceBankEntry> takeRandom(@Param("word") String word,
+            @Param("levels") Collection<String> levels,
+            @Param("lengths") Collection<String> lengths,
+            @Param("limit") int limit);
+}
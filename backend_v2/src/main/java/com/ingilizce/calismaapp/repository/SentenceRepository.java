@@ -1,12 +1,16 @@
 package com.ingilizce.calismaapp.repository;
 
+import com.ingilizce.calismaapp.dto.SentenceDto;
 import com.ingilizce.calismaapp.entity.Sentence;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -23,4 +27,13 @@ public interface SentenceRepository extends JpaRepository<Sentence, Long> {
     
     @Query("SELECT s FROM Sentence s JOIN FETCH s.word w")
     List<Sentence> findAllWithWord();
+    
+    // Sentences for a page of words in one query, without touching Word entities
+    @Query("SELECT new com.ingilizce.calismaapp.dto.SentenceDto(s.id, s.word.id, s.sentence, s.translation, s.difficulty) "
+            + "FROM Sentence s WHERE s.word.id IN :wordIds ORDER BY s.id")
+    List<SentenceDto> findDtosByWordIdIn(@Param("wordIds") Collection<Long> wordIds);
+    
+    // TTS warm-up: only the text column, page by page
+    @Query("SELECT DISTINCT s.sentence FROM Sentence s ORDER BY s.sentence")
+    Slice<String> findDistinctSentences(Pageable pageable);
 }
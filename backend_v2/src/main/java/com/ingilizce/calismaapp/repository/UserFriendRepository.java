@@ -35,6 +35,12 @@ public interface UserFriendRepository extends JpaRepository<UserFriend, Long> {
             "(uf.user = :user OR uf.friend = :user) AND uf.status = 'ACCEPTED'")
     List<UserFriend> findAcceptedFriendships(@Param("user") User user);
 
+    // Kabul edilmiş arkadaş id'leri: OR yerine iki indexli arama (idx_friend_user / idx_friend_friend)
+    @Query(value = "SELECT friend_id FROM user_friends WHERE user_id = :userId AND status = 'ACCEPTED' " +
+            "UNION SELECT user_id FROM user_friends WHERE friend_id = :userId AND status = 'ACCEPTED'",
+            nativeQuery = true)
+    List<Long> findAcceptedFriendIds(@Param("userId") Long userId);
+
     // Engellenenler
     @Query("SELECT uf FROM UserFriend uf WHERE uf.user = :user AND uf.status = 'BLOCKED'")
     List<UserFriend> findBlockedByUser(@Param("user") User user);
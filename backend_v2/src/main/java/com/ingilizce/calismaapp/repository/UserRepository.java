@@ -1,5 +1,6 @@
 package com.ingilizce.calismaapp.repository;
 
+import com.ingilizce.calismaapp.dto.UserSummaryDto;
 import com.ingilizce.calismaapp.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -7,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,6 +36,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> searchUsers(@Param("query") String query);
 
     // === Liderlik Tablosu ===
+    // Full scans kept for admin/reporting; live boards are Redis sorted sets (LeaderboardService)
     @Query("SELECT u FROM User u WHERE u.isActive = true ORDER BY u.totalXp DESC")
     List<User> findTopUsersByXp();
 
@@ -43,6 +46,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.isActive = true ORDER BY u.wordsLearned DESC")
     List<User> findTopUsersByWordsLearned();
 
+    // Only the rows a leaderboard page shows
+    @Query("SELECT new com.ingilizce.calismaapp.dto.UserSummaryDto(u.id, u.displayName, u.userTag, u.avatarUrl) " +
+            "FROM User u WHERE u.id IN :ids")
+    List<UserSummaryDto> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
     // === Son Aktif Kullanıcılar ===
     List<User> findByLastActivityAtAfterOrderByLastActivityAtDesc(LocalDateTime since);
 
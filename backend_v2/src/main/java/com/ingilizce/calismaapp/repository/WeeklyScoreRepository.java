@@ -0,0 +1,18 @@
+package com.ingilizce.calismaapp.repository;
+
+import com.ingilizce.calismaapp.entity.WeeklyScore;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WeeklyScoreRepository extends JpaRepository<WeeklyScore, Long> {
+
+    List<WeeklyScore> findByWeekStartDateOrderByRankAsc(LocalDate weekStartDate, Pageable pageable);
+
+    Optional<WeeklyScore> findByUserIdAndWeekStartDate(Long userId, LocalDate weekStartDate);
+}
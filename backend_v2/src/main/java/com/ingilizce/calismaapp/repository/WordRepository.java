@@ -1,27 +1,137 @@
 package com.ingilizce.calismaapp.repository;
 
+import com.ingilizce.calismaapp.dto.ReviewWordDto;
+import com.ingilizce.calismaapp.dto.WordDto;
 import com.ingilizce.calismaapp.entity.Word;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface WordRepository extends JpaRepository<Word, Long> {
+public interface WordRepository extends JpaRepository<Word, Long>, WordRepositoryCustom {
 
     List<Word> findByLearnedDate(LocalDate date);
 
     @Query("SELECT w FROM Word w WHERE w.learnedDate BETWEEN :startDate AND :endDate ORDER BY w.learnedDate DESC")
     List<Word> findByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 
+    // Fetch plans. Word.sentences is LAZY; these load it with a single join
+    // instead of one select per word.
+    @EntityGraph(attributePaths = "sentences")
+    @Query("SELECT w FROM Word w WHERE w.id = :id")
+    Optional<Word> findWithSentencesById(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = "sentences")
+    @Query("SELECT w FROM Word w ORDER BY w.id")
+    List<Word> findAllWithSentences();
+
+    @EntityGraph(attributePaths = "sentences")
+    @Query("SELECT w FROM Word w WHERE w.learnedDate = :date ORDER BY w.id")
+    List<Word> findWithSentencesByLearnedDate(@Param("date") LocalDate date);
+
+    @EntityGraph(attributePaths = "sentences")
+    @Query("SELECT w FROM Word w WHERE w.learnedDate BETWEEN :startDate AND :endDate ORDER BY w.learnedDate DESC")
+    List<Word> findWithSentencesByDateRange(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    // Same lists as DTOs, without sentences
+    String WORD_DTO_SELECT = "SELECT new com.ingilizce.calismaapp.dto.WordDto("
+            + "w.id, w.englishWord, w.turkishMeaning, w.learnedDate, w.notes, w.difficulty, "
+            + "w.nextReviewDate, w.reviewCount, w.easeFactor, w.lastReviewDate) FROM Word w ";
+
+    @Query(WORD_DTO_SELECT + "ORDER BY w.id")
+    List<WordDto> findAllDtos();
+
+    @Query(WORD_DTO_SELECT + "WHERE w.learnedDate = :date ORDER BY w.id")
+    List<WordDto> findDtosByLearnedDate(@Param("date") LocalDate date);
+
+    @Query(WORD_DTO_SELECT + "WHERE w.learnedDate BETWEEN :startDate AND :endDate ORDER BY w.learnedDate DESC")
+    List<WordDto> findDtosByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
     @Query("SELECT DISTINCT w.learnedDate FROM Word w ORDER BY w.learnedDate DESC")
     List<LocalDate> findAllDistinctDates();
 
     // SRS Queries
+    @EntityGraph(attributePaths = "sentences")
     List<Word> findByNextReviewDateLessThanEqual(LocalDate date);
 
     List<Word> findByReviewCountGreaterThan(int count);
+
+    // SRS review queue: DTO projection in priority order (most overdue, then lowest ease factor)
+    String REVIEW_QUEUE_SELECT = "SELECT new com.ingilizce.calismaapp.dto.ReviewWordDto("
+            + "w.id, w.englishWord, w.turkishMeaning, w.learnedDate, w.notes, w.difficulty, "
+            + "w.nextReviewDate, w.reviewCount, w.easeFactor, w.lastReviewDate) FROM Word w ";
+    String REVIEW_QUEUE_ORDER = " ORDER BY w.nextReviewDate, COALESCE(w.easeFactor, 2.5), w.id";
+
+    @Query(REVIEW_QUEUE_SELECT + "WHERE w.nextReviewDate <= :today" + REVIEW_QUEUE_ORDER)
+    Slice<ReviewWordDto> findReviewQueue(@Param("today") LocalDate today, Pageable pageable);
+
+    // Keyset continuation after (nextReviewDate, easeFactor, id) of the previous page's last row
+    @Query(REVIEW_QUEUE_SELECT + "WHERE w.nextReviewDate <= :today AND ("
+            + "w.nextReviewDate > :afterDate OR (w.nextReviewDate = :afterDate AND ("
+            + "COALESCE(w.easeFactor, 2.5) > :afterEase OR (COALESCE(w.easeFactor, 2.5) = :afterEase "
+            + "AND w.id > :afterId))))" + REVIEW_QUEUE_ORDER)
+    Slice<ReviewWordDto> findReviewQueueAfter(@Param("today") LocalDate today,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterEase") Double afterEase,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    // Due queue patches: current DTOs of just-reviewed / edited words
+    @Query(REVIEW_QUEUE_SELECT + "WHERE w.id IN :ids")
+    List<ReviewWordDto> findReviewWordDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Batch review submission: only the SRS columns, no entity graph
+    interface SrsState {
+        Long getId();
+
+        Integer getReviewCount();
+
+        Double getEaseFactor();
+
+        Double getFsrsStability();
+
+        Double getFsrsDifficulty();
+
+        LocalDate getLastReviewDate();
+
+        LocalDate getNextReviewDate();
+    }
+
+    @Query("SELECT w.id AS id, w.reviewCount AS reviewCount, w.easeFactor AS easeFactor, "
+            + "w.fsrsStability AS fsrsStability, w.fsrsDifficulty AS fsrsDifficulty, "
+            + "w.lastReviewDate AS lastReviewDate, w.nextReviewDate AS nextReviewDate "
+            + "FROM Word w WHERE w.id IN :ids")
+    List<SrsState> findSrsStateByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * SRS stats in one scan: rows of {bucket, words, reviewed} where bucket is
+     * -1 (overdue), 0 (due today), 1..30 (days until due), 31 (later) or null
+     * (not scheduled)
+     */
+    @Query(value = "SELECT CASE WHEN next_review_date IS NULL THEN NULL "
+            + "WHEN next_review_date < CAST(:today AS date) THEN -1 "
+            + "WHEN next_review_date <= CAST(:today AS date) + 30 THEN next_review_date - CAST(:today AS date) "
+            + "ELSE 31 END AS bucket, "
+            + "COUNT(*) AS words, "
+            + "COUNT(*) FILTER (WHERE review_count > 0) AS reviewed "
+            + "FROM words GROUP BY bucket", nativeQuery = true)
+    List<Object[]> aggregateReviewBuckets(@Param("today") LocalDate today);
+
+    // TTS warm-up: only the text column, page by page
+    @Query("SELECT DISTINCT w.englishWord FROM Word w ORDER BY w.englishWord")
+    Slice<String> findDistinctEnglishWords(Pageable pageable);
+
+    // Sentence bank refill: resumes the alphabetical scan after the last word of the previous run
+    @Query("SELECT DISTINCT w.englishWord FROM Word w WHERE w.englishWord > :after ORDER BY w.englishWord")
+    Slice<String> findDistinctEnglishWordsAfter(@Param("after") String after, Pageable pageable);
 }
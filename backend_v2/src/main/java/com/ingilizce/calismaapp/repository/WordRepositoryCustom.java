@@ -0,0 +1,18 @@
+package com.ingilizce.calismaapp.repository;
+
+import com.ingilizce.calismaapp.dto.WordCompactDto;
+import com.ingilizce.calismaapp.dto.WordDto;
+import com.ingilizce.calismaapp.dto.WordQuery;
+
+import java.util.List;
+
+/**
+ * Dynamic (Criteria) word queries that don't fit derived/@Query methods
+ */
+public interface WordRepositoryCustom {
+
+    // Up to query.limit() rows; callers ask for one extra to detect a next page
+    List<WordDto> findPage(WordQuery query);
+
+    List<WordCompactDto> findCompactPage(WordQuery query);
+}
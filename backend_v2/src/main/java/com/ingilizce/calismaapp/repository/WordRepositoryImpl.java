@@ -0,0 +1,140 @@
+package com.ingilizce.calismaapp.repository;
+
+import com.ingilizce.calismaapp.dto.WordCompactDto;
+import com.ingilizce.calismaapp.dto.WordDto;
+import com.ingilizce.calismaapp.dto.WordQuery;
+import com.ingilizce.calismaapp.entity.Sentence;
+import com.ingilizce.calismaapp.entity.Word;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset pagination over words: WHERE (sortKey, id) > (:afterValue, :afterId)
+ * ORDER BY sortKey, id, so every page costs the same regardless of depth.
+ *
+ * nextReviewDate sorts on the bare column with unscheduled (NULL) words last
+ * ascending and first descending, the order of the (next_review_date, id)
+ * index read forwards or backwards. Cursors carry UNSCHEDULED for a NULL date.
+ */
+public class WordRepositoryImpl implements WordRepositoryCustom {
+
+    // Cursor value of an unscheduled word; those sort after every real review date
+    public static final LocalDate UNSCHEDULED = LocalDate.of(9999, 12, 31);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<WordDto> findPage(WordQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<WordDto> cq = cb.createQuery(WordDto.class);
+        Root<Word> w = cq.from(Word.class);
+        cq.select(cb.construct(WordDto.class, w.get("id"), w.get("englishWord"), w.get("turkishMeaning"),
+                w.get("learnedDate"), w.get("notes"), w.get("difficulty"), w.get("nextReviewDate"),
+                w.get("reviewCount"), w.get("easeFactor"), w.get("lastReviewDate")));
+        return execute(cb, cq, w, query);
+    }
+
+    @Override
+    public List<WordCompactDto> findCompactPage(WordQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<WordCompactDto> cq = cb.createQuery(WordCompactDto.class);
+        Root<Word> w = cq.from(Word.class);
+        cq.select(cb.construct(WordCompactDto.class, w.get("id"), w.get("englishWord"), w.get("turkishMeaning"),
+                w.get("learnedDate"), w.get("difficulty"), w.get("nextReviewDate")));
+        return execute(cb, cq, w, query);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private <T> List<T> execute(CriteriaBuilder cb, CriteriaQuery<T> cq, Root<Word> w, WordQuery query) {
+        List<Predicate> where = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+
+        if (query.from() != null) {
+            where.add(cb.greaterThanOrEqualTo(w.get("learnedDate"), query.from()));
+        }
+        if (query.to() != null) {
+            where.add(cb.lessThanOrEqualTo(w.get("learnedDate"), query.to()));
+        }
+        if (query.difficulty() != null) {
+            where.add(cb.equal(w.get("difficulty"), query.difficulty()));
+        }
+        if (query.due() != null) {
+            Expression<LocalDate> next = w.get("nextReviewDate");
+            where.add(query.due() ? cb.lessThanOrEqualTo(next, today)
+                    : cb.or(cb.isNull(next), cb.greaterThan(next, today)));
+        }
+        if (query.hasSentences() != null) {
+            Subquery<Long> sub = cq.subquery(Long.class);
+            Root<Sentence> s = sub.from(Sentence.class);
+            sub.select(s.get("id")).where(cb.equal(s.get("word"), w));
+            where.add(query.hasSentences() ? cb.exists(sub) : cb.not(cb.exists(sub)));
+        }
+
+        Expression<? extends Comparable> key = sortKey(w, query.sort());
+        Expression<Long> id = w.get("id");
+        boolean nullable = "nextReviewDate".equals(query.sort());
+        if (nullable && query.afterValue() != null && query.afterId() != null) {
+            where.add(seekNullable(cb, (Expression<LocalDate>) key, id, (LocalDate) query.afterValue(),
+                    query.afterId(), query.descending()));
+        } else if (query.afterValue() != null && query.afterId() != null) {
+            Comparable after = (Comparable) query.afterValue();
+            if (query.descending()) {
+                where.add(cb.or(cb.lessThan((Expression) key, after),
+                        cb.and(cb.equal(key, after), cb.lessThan(id, query.afterId()))));
+            } else {
+                where.add(cb.or(cb.greaterThan((Expression) key, after),
+                        cb.and(cb.equal(key, after), cb.greaterThan(id, query.afterId()))));
+            }
+        }
+
+        cq.where(where.toArray(new Predicate[0]));
+        if (nullable) {
+            HibernateCriteriaBuilder hcb = (HibernateCriteriaBuilder) cb;
+            cq.orderBy(query.descending() ? List.of(hcb.desc(key, true), cb.desc(id))
+                    : List.of(hcb.asc(key, false), cb.asc(id)));
+        } else {
+            cq.orderBy(query.descending() ? List.of(cb.desc(key), cb.desc(id)) : List.of(cb.asc(key), cb.asc(id)));
+        }
+        return entityManager.createQuery(cq).setMaxResults(query.limit()).getResultList();
+    }
+
+    /**
+     * Rows after (after, afterId) in the NULLS LAST (ascending) or NULLS FIRST
+     * (descending) order; {@code after} is UNSCHEDULED for a NULL date
+     */
+    private static Predicate seekNullable(CriteriaBuilder cb, Expression<LocalDate> key, Expression<Long> id,
+            LocalDate after, Long afterId, boolean descending) {
+        if (UNSCHEDULED.equals(after)) {
+            Predicate nextUnscheduled = cb.and(cb.isNull(key),
+                    descending ? cb.lessThan(id, afterId) : cb.greaterThan(id, afterId));
+            // Descending, the unscheduled block comes first and every dated row follows it
+            return descending ? cb.or(nextUnscheduled, cb.isNotNull(key)) : nextUnscheduled;
+        }
+        Predicate dated = descending
+                ? cb.or(cb.lessThan(key, after), cb.and(cb.equal(key, after), cb.lessThan(id, afterId)))
+                : cb.or(cb.greaterThan(key, after), cb.and(cb.equal(key, after), cb.greaterThan(id, afterId)));
+        // Ascending, the unscheduled block follows every dated row
+        return descending ? dated : cb.or(dated, cb.isNull(key));
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Expression<? extends Comparable> sortKey(Root<Word> w, String sort) {
+        return switch (sort) {
+            case "englishWord" -> w.get("englishWord");
+            case "nextReviewDate" -> w.get("nextReviewDate");
+            default -> w.get("learnedDate");
+        };
+    }
+}
@@ -2,6 +2,7 @@ package com.ingilizce.calismaapp.repository;
 
 import com.ingilizce.calismaapp.entity.WordReview;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -32,4 +33,27 @@ public interface WordReviewRepository extends JpaRepository<WordReview, Long> {
     
     // Count reviews for a word
     long countByWordId(Long wordId);
+    
+    // Calendar (manual) reviews only: SRS review log rows (review_type = 'srs') are optimizer input
+    String MANUAL = "(wr.reviewType IS NULL OR wr.reviewType <> 'srs')";
+    
+    @Query("SELECT wr FROM WordReview wr WHERE wr.word.id = :wordId AND " + MANUAL + " ORDER BY wr.reviewDate DESC")
+    List<WordReview> findManualByWordId(@Param("wordId") Long wordId);
+    
+    @Query("SELECT wr FROM WordReview wr WHERE wr.word.id = :wordId AND wr.reviewDate = :reviewDate AND " + MANUAL)
+    List<WordReview> findManualByWordIdAndReviewDate(@Param("wordId") Long wordId,
+                                                     @Param("reviewDate") LocalDate reviewDate);
+    
+    @Query("SELECT wr FROM WordReview wr WHERE wr.reviewDate = :reviewDate AND " + MANUAL)
+    List<WordReview> findManualByReviewDate(@Param("reviewDate") LocalDate reviewDate);
+    
+    @Query("SELECT COUNT(wr) > 0 FROM WordReview wr WHERE wr.word.id = :wordId AND wr.reviewDate = :reviewDate AND " + MANUAL)
+    boolean existsManualByWordIdAndReviewDate(@Param("wordId") Long wordId, @Param("reviewDate") LocalDate reviewDate);
+    
+    @Query("SELECT COUNT(wr) FROM WordReview wr WHERE wr.word.id = :wordId AND " + MANUAL)
+    long countManualByWordId(@Param("wordId") Long wordId);
+    
+    @Modifying
+    @Query("DELETE FROM WordReview wr WHERE wr.word.id = :wordId")
+    void deleteByWordId(@Param("wordId") Long wordId);
 }
@@ -0,0 +1,14 @@
+package com.ingilizce.calismaapp.repository;
+
+import com.ingilizce.calismaapp.entity.XpTransaction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface XpTransactionRepository extends JpaRepository<XpTransaction, Long> {
+
+    List<XpTransaction> findByUserIdOrderByIdDesc(Long userId, Pageable pageable);
+}
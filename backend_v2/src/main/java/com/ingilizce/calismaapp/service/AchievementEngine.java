@@ -0,0 +1,320 @@
+package com.ingilizce.calismaapp.service;
+
+import com.ingilizce.calismaapp.entity.User;
+import com.ingilizce.calismaapp.entity.UserAchievement;
+import com.ingilizce.calismaapp.model.Achievement;
+import com.ingilizce.calismaapp.model.XpSource;
+import com.ingilizce.calismaapp.repository.UserAchievementRepository;
+import com.ingilizce.calismaapp.repository.UserRepository;
+import com.ingilizce.calismaapp.repository.WordRepository;
+import com.ingilizce.calismaapp.repository.WordReviewRepository;
+import com.ingilizce.calismaapp.util.CurrentUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Event-driven achievement evaluation.
+ *
+ * Per user we keep the counters achievements depend on (words, reviews,
+ * streak, level) and the unlocked set as an EnumSet, loaded from the
+ * database once. An event moves one counter and only the thresholds it just
+ * crossed are looked at, so an XP award costs no queries unless something
+ * is actually unlocked. Word and review counts are re-read every
+ * RESYNC_INTERVAL_MS to pick up writes that bypass the engine.
+ *
+ * Words and reviews are not user-scoped yet: their counts are global and
+ * only drive the word/review achievements of the default (legacy) user.
+ * Authenticated users get streak, level and time-of-day achievements until
+ * those tables carry an owner; evaluating the global totals for them would
+ * unlock every word/review tier on their first event.
+ *
+ * The state is updated inside the caller's transaction; if that rolls back
+ * the user's state is evicted and reloaded on next use.
+ */
+@Service
+public class AchievementEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(AchievementEngine.class);
+
+    private static final long RESYNC_INTERVAL_MS = 10 * 60 * 1000L;
+
+    public enum Metric {
+        WORDS, REVIEWS, STREAK, LEVEL
+    }
+
+    private record Threshold(long value, Achievement achievement) {
+    }
+
+    // Ascending per metric
+    private static final Map<Metric, List<Threshold>> THRESHOLDS = new EnumMap<>(Metric.class);
+    static {
+        THRESHOLDS.put(Metric.WORDS, List.of(
+                new Threshold(1, Achievement.FIRST_WORD),
+                new Threshold(10, Achievement.WORD_COLLECTOR_10),
+                new Threshold(25, Achievement.WORD_COLLECTOR_25),
+                new Threshold(50, Achievement.WORD_COLLECTOR_50),
+                new Threshold(100, Achievement.WORD_COLLECTOR_100),
+                new Threshold(250, Achievement.WORD_COLLECTOR_250),
+                new Threshold(500, Achievement.WORD_COLLECTOR_500)));
+        THRESHOLDS.put(Metric.REVIEWS, List.of(
+                new Threshold(1, Achievement.FIRST_REVIEW),
+                new Threshold(10, Achievement.REVIEW_MASTER_10),
+                new Threshold(50, Achievement.REVIEW_MASTER_50),
+                new Threshold(100, Achievement.REVIEW_MASTER_100)));
+        THRESHOLDS.put(Metric.STREAK, List.of(
+                new Threshold(3, Achievement.STREAK_3),
+                new Threshold(7, Achievement.STREAK_7),
+                new Threshold(14, Achievement.STREAK_14),
+                new Threshold(30, Achievement.STREAK_30),
+                new Threshold(100, Achievement.STREAK_100)));
+        THRESHOLDS.put(Metric.LEVEL, List.of(
+                new Threshold(5, Achievement.LEVEL_5),
+                new Threshold(10, Achievement.LEVEL_10),
+                new Threshold(20, Achievement.LEVEL_20)));
+    }
+
+    private static final class State {
+        final long[] counters = new long[Metric.values().length];
+        final EnumSet<Achievement> unlocked = EnumSet.noneOf(Achievement.class);
+        Long ownerId; // user row the unlocks reference
+        boolean globalCounts; // WORDS/REVIEWS are evaluated (default user only)
+        long syncedAt;
+        // Counts were just read from the database and already include the current event's rows
+        boolean fresh;
+    }
+
+    private final Map<Long, State> states = new ConcurrentHashMap<>();
+
+    private final UserAchievementRepository achievementRepository;
+    private final UserRepository userRepository;
+    private final WordRepository wordRepository;
+    private final WordReviewRepository reviewRepository;
+
+    public AchievementEngine(UserAchievementRepository achievementRepository, UserRepository userRepository,
+            WordRepository wordRepository, WordReviewRepository reviewRepository) {
+        this.achievementRepository = achievementRepository;
+        this.userRepository = userRepository;
+        this.wordRepository = wordRepository;
+        this.reviewRepository = reviewRepository;
+    }
+
+    /**
+     * Count an XP-bearing event
+     *
+     * @param count how many words/reviews the event covers (e.g. a batch)
+     * @return achievements unlocked by this event
+     */
+    public List<Achievement> onEvent(Long userId, XpSource source, int count, int level) {
+        State state = state(userId);
+        List<Achievement> unlocked = new ArrayList<>();
+        synchronized (state) {
+            if (state.globalCounts) {
+                if (state.fresh) {
+                    catchUp(userId, state, unlocked);
+                } else if (source == XpSource.WORD_ADDED || source == XpSource.WORDS_IMPORTED) {
+                    advance(userId, state, Metric.WORDS, state.counters[Metric.WORDS.ordinal()] + count, unlocked);
+                } else if (source == XpSource.REVIEW) {
+                    advance(userId, state, Metric.REVIEWS, state.counters[Metric.REVIEWS.ordinal()] + count,
+                            unlocked);
+                }
+            }
+            advance(userId, state, Metric.LEVEL, level, unlocked);
+            checkTimeOfDay(userId, state, unlocked);
+        }
+        return unlocked;
+    }
+
+    /**
+     * Set a counter to an absolute value (streak or level changed, words deleted)
+     */
+    public List<Achievement> onMetric(Long userId, Metric metric, long value) {
+        State state = state(userId);
+        List<Achievement> unlocked = new ArrayList<>();
+        if (!tracks(state, metric)) {
+            return unlocked;
+        }
+        synchronized (state) {
+            advance(userId, state, metric, value, unlocked);
+        }
+        return unlocked;
+    }
+
+    public void adjust(Long userId, Metric metric, long delta) {
+        State state = state(userId);
+        if (!tracks(state, metric)) {
+            return;
+        }
+        synchronized (state) {
+            if (state.fresh) {
+                return;
+            }
+            state.counters[metric.ordinal()] = Math.max(0, state.counters[metric.ordinal()] + delta);
+        }
+        evictOnRollback(userId);
+    }
+
+    /**
+     * Full evaluation against freshly counted words/reviews (explicit check endpoint)
+     */
+    public List<Achievement> reevaluate(Long userId, int streak, int level) {
+        State state = state(userId);
+        List<Achievement> unlocked = new ArrayList<>();
+        synchronized (state) {
+            resync(state);
+            if (state.globalCounts) {
+                catchUp(userId, state, unlocked);
+            }
+            state.counters[Metric.STREAK.ordinal()] = 0;
+            state.counters[Metric.LEVEL.ordinal()] = 0;
+            advance(userId, state, Metric.STREAK, streak, unlocked);
+            advance(userId, state, Metric.LEVEL, level, unlocked);
+            checkTimeOfDay(userId, state, unlocked);
+        }
+        return unlocked;
+    }
+
+    public boolean isUnlocked(Long userId, Achievement achievement) {
+        State state = state(userId);
+        synchronized (state) {
+            return state.unlocked.contains(achievement);
+        }
+    }
+
+    public Set<Achievement> getUnlocked(Long userId) {
+        State state = state(userId);
+        synchronized (state) {
+            return Collections.unmodifiableSet(EnumSet.copyOf(state.unlocked));
+        }
+    }
+
+    public void evict(Long userId) {
+        states.remove(userId);
+    }
+
+    // Caller holds the state monitor
+    private void advance(Long userId, State state, Metric metric, long value, List<Achievement> unlocked) {
+        long previous = state.counters[metric.ordinal()];
+        state.counters[metric.ordinal()] = value;
+        if (value <= previous) {
+            return;
+        }
+        for (Threshold threshold : THRESHOLDS.get(metric)) {
+            if (threshold.value() > value) {
+                break;
+            }
+            if (threshold.value() > previous || !state.unlocked.contains(threshold.achievement())) {
+                unlock(userId, state, threshold.achievement(), unlocked);
+            }
+        }
+    }
+
+    private static boolean tracks(State state, Metric metric) {
+        return state.globalCounts || (metric != Metric.WORDS && metric != Metric.REVIEWS);
+    }
+
+    // Caller holds the state monitor. Evaluate word/review thresholds from zero after a resync
+    private void catchUp(Long userId, State state, List<Achievement> unlocked) {
+        state.fresh = false;
+        for (Metric metric : List.of(Metric.WORDS, Metric.REVIEWS)) {
+            long value = state.counters[metric.ordinal()];
+            state.counters[metric.ordinal()] = 0;
+            advance(userId, state, metric, value, unlocked);
+        }
+    }
+
+    // Caller holds the state monitor
+    private void checkTimeOfDay(Long userId, State state, List<Achievement> unlocked) {
+        LocalTime now = LocalTime.now();
+        if (now.isBefore(LocalTime.of(8, 0))) {
+            unlock(userId, state, Achievement.EARLY_BIRD, unlocked);
+        }
+        if (now.isAfter(LocalTime.of(23, 0))) {
+            unlock(userId, state, Achievement.NIGHT_OWL, unlocked);
+        }
+    }
+
+    // Caller holds the state monitor
+    private void unlock(Long userId, State state, Achievement achievement, List<Achievement> unlocked) {
+        if (!state.unlocked.add(achievement)) {
+            return;
+        }
+        // Reference only: the user row was ensured when the state was loaded
+        UserAchievement userAchievement = new UserAchievement(userRepository.getReferenceById(state.ownerId),
+                achievement.getCode());
+        userAchievement.setAchievementName(achievement.getTitle());
+        userAchievement.setAchievementDescription(achievement.getDescription());
+        userAchievement.setXpReward(achievement.getXpReward());
+        achievementRepository.save(userAchievement);
+        unlocked.add(achievement);
+        evictOnRollback(userId);
+        logger.info("Unlocked achievement: {}", achievement.getCode());
+    }
+
+    private State state(Long userId) {
+        State state = states.computeIfAbsent(userId, this::load);
+        if (System.currentTimeMillis() - state.syncedAt > RESYNC_INTERVAL_MS) {
+            synchronized (state) {
+                resync(state);
+            }
+        }
+        return state;
+    }
+
+    private State load(Long userId) {
+        State state = new State();
+        // One-time: make sure the user row exists so unlocks can use a reference
+        state.ownerId = userId;
+        state.globalCounts = userId.equals(CurrentUser.DEFAULT_USER_ID);
+        if (state.globalCounts && !userRepository.existsById(userId)) {
+            // Varsayılan kullanıcıyı oluştur
+            state.ownerId = userRepository.save(
+                    new User("default@example.com", "Default User", "temp_hash", "#00001")).getId();
+        }
+        for (UserAchievement ua : achievementRepository.findByUserId(userId)) {
+            Achievement achievement = Achievement.fromCode(ua.getAchievementCode());
+            if (achievement != null) {
+                state.unlocked.add(achievement);
+            }
+        }
+        resync(state);
+        return state;
+    }
+
+    // Words and reviews are not user-scoped yet, so the counts are global (default user only)
+    private void resync(State state) {
+        state.syncedAt = System.currentTimeMillis();
+        if (!state.globalCounts) {
+            return;
+        }
+        state.counters[Metric.WORDS.ordinal()] = wordRepository.count();
+        state.counters[Metric.REVIEWS.ordinal()] = reviewRepository.count();
+        state.fresh = true;
+    }
+
+    private void evictOnRollback(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    states.remove(userId);
+                }
+            }
+        });
+    }
+}
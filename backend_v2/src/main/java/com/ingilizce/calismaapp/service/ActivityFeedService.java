@@ -0,0 +1,230 @@
+package com.ingilizce.calismaapp.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingilizce.calismaapp.dto.UserSummaryDto;
+import com.ingilizce.calismaapp.entity.UserSettings;
+import com.ingilizce.calismaapp.repository.UserRepository;
+import com.ingilizce.calismaapp.repository.UserSettingsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Friends' activity feed, fan-out on write:
+ *
+ * feed:{userId} LIST of activity JSON, newest first, capped at feed.max-items
+ *
+ * When a user levels up, unlocks an achievement or reaches the daily XP goal,
+ * the activity is pushed (LPUSH + LTRIM, pipelined) onto the list of every
+ * friend after commit, on a background thread. Reading a feed is a single
+ * LRANGE; the actor's name is stored in the item so reads touch no table.
+ */
+@Service
+public class ActivityFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityFeedService.class);
+
+    public static final String LEVEL_UP = "LEVEL_UP";
+    public static final String ACHIEVEMENT = "ACHIEVEMENT";
+    public static final String DAILY_GOAL = "DAILY_GOAL";
+
+    private static final String KEY_PREFIX = "feed:";
+    private static final Duration KEY_TTL = Duration.ofDays(30);
+    private static final int DEFAULT_DAILY_GOAL_XP = 50;
+
+    // After a Redis failure, skip the feed for a while instead of paying the timeout on every call
+    private static final long REDIS_BACKOFF_MS = 30_000;
+
+    private record DailyGoal(LocalDate day, int goalXp) {
+    }
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private FriendGraphService friendGraphService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserSettingsRepository userSettingsRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${feed.enabled:true}")
+    private boolean enabled;
+
+    @Value("${feed.max-items:100}")
+    private int maxItems;
+
+    private volatile long redisRetryAt = 0;
+
+    // Daily XP goal per user, read from user_settings once a day
+    private final Map<Long, DailyGoal> dailyGoals = new ConcurrentHashMap<>();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private final ExecutorService fanout = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "activity-feed-fanout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public boolean isAvailable() {
+        return enabled && redisTemplate != null && System.currentTimeMillis() >= redisRetryAt;
+    }
+
+    /**
+     * Push an activity of {@code userId} to the feeds of their friends once
+     * the current transaction commits
+     */
+    public void publish(Long userId, String type, Map<String, Object> data) {
+        if (!isAvailable()) {
+            return;
+        }
+        LocalDateTime at = LocalDateTime.now();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(userId, type, data, at);
+                }
+            });
+        } else {
+            submit(userId, type, data, at);
+        }
+    }
+
+    /**
+     * Today's XP moved from {@code before} to {@code after}: publish once when
+     * it crosses the user's daily goal. Called after commit by LeaderboardService.
+     */
+    public void onDailyXp(Long userId, long before, long after) {
+        LocalDate today = LocalDate.now();
+        DailyGoal goal = dailyGoals.get(userId);
+        if (goal == null || !goal.day().equals(today)) {
+            goal = new DailyGoal(today, loadDailyGoal(userId));
+            dailyGoals.put(userId, goal);
+        }
+        // Already past the commit: a synchronization registered now would never run
+        if (before < goal.goalXp() && after >= goal.goalXp() && isAvailable()) {
+            submit(userId, DAILY_GOAL, Map.of("goalXp", goal.goalXp()), LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Newest {@code limit} activities of the user's friends
+     */
+    public List<Map<String, Object>> getFeed(Long userId, int limit) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        if (!isAvailable()) {
+            return items;
+        }
+        try {
+            List<String> json = redisTemplate.opsForList().range(key(userId), 0,
+                    Math.max(1, Math.min(limit, maxItems)) - 1L);
+            if (json != null) {
+                for (String value : json) {
+                    items.add(objectMapper.readValue(value, new TypeReference<Map<String, Object>>() {
+                    }));
+                }
+            }
+        } catch (Exception e) {
+            onRedisError("read", e);
+        }
+        return items;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("available", isAvailable());
+        stats.put("published", published.get());
+        stats.put("delivered", delivered.get());
+        stats.put("errors", errors.get());
+        return stats;
+    }
+
+    private void submit(Long userId, String type, Map<String, Object> data, LocalDateTime at) {
+        fanout.execute(() -> fanOut(userId, type, data, at));
+    }
+
+    private void fanOut(Long userId, String type, Map<String, Object> data, LocalDateTime at) {
+        try {
+            Set<Long> friends = friendGraphService.getFriendIds(userId);
+            published.incrementAndGet();
+            if (friends.isEmpty()) {
+                return;
+            }
+            UserSummaryDto actor = userRepository.findSummariesByIdIn(List.of(userId)).stream()
+                    .findFirst().orElse(null);
+            Map<String, Object> item = new HashMap<>();
+            item.put("type", type);
+            item.put("userId", userId);
+            item.put("displayName", actor != null ? actor.displayName() : null);
+            item.put("userTag", actor != null ? actor.userTag() : null);
+            item.put("avatarUrl", actor != null ? actor.avatarUrl() : null);
+            item.put("data", data);
+            item.put("at", at.toString());
+            String json = objectMapper.writeValueAsString(item);
+
+            long ttl = KEY_TTL.toSeconds();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (Long friendId : friends) {
+                    String key = key(friendId);
+                    redis.lPush(key, json);
+                    redis.lTrim(key, 0, maxItems - 1L);
+                    redis.expire(key, ttl);
+                }
+                return null;
+            });
+            delivered.addAndGet(friends.size());
+        } catch (Exception e) {
+            onRedisError("fan-out", e);
+        }
+    }
+
+    private int loadDailyGoal(Long userId) {
+        return userSettingsRepository.findByUserId(userId)
+                .map(UserSettings::getDailyGoalXp)
+                .filter(goal -> goal != null && goal > 0)
+                .orElse(DEFAULT_DAILY_GOAL_XP);
+    }
+
+    private static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private void onRedisError(String operation, Exception e) {
+        errors.incrementAndGet();
+        redisRetryAt = System.currentTimeMillis() + REDIS_BACKOFF_MS;
+        logger.warn("Activity feed {} failed, pausing Redis access for {} ms: {}", operation,
+                REDIS_BACKOFF_MS, e.getMessage());
+    }
+}
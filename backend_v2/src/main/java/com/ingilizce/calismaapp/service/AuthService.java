@@ -19,6 +19,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class AuthService {
@@ -28,6 +29,15 @@ public class AuthService {
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     private final Random random = new Random();
 
+    // Token -> user id, so per-request user resolution skips the session query/update
+    private static final long USER_ID_CACHE_TTL_MS = 60_000;
+    private static final int USER_ID_CACHE_MAX = 10_000;
+
+    private record CachedUserId(Long userId, long expiresAt) {
+    }
+
+    private final Map<String, CachedUserId> userIdCache = new ConcurrentHashMap<>();
+
     @Autowired
     private UserRepository userRepository;
 
@@ -170,6 +180,8 @@ public class AuthService {
 
         Optional<UserSession> sessionOpt = sessionRepository.findBySessionToken(sessionToken);
 
+        userIdCache.remove(sessionToken);
+
         if (sessionOpt.isPresent()) {
             UserSession session = sessionOpt.get();
             session.invalidate();
@@ -214,6 +226,33 @@ public class AuthService {
         return Optional.of(user);
     }
 
+    /**
+     * Token -> user id for per-request user resolution. Valid tokens are
+     * cached for USER_ID_CACHE_TTL_MS (session activity is recorded once per
+     * TTL instead of on every request).
+     */
+    public Optional<Long> resolveUserId(String sessionToken) {
+        if (sessionToken == null || sessionToken.isBlank()) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        CachedUserId cached = userIdCache.get(sessionToken);
+        if (cached != null && cached.expiresAt() > now) {
+            return Optional.of(cached.userId());
+        }
+
+        Optional<User> user = validateToken(sessionToken);
+        if (user.isEmpty()) {
+            userIdCache.remove(sessionToken);
+            return Optional.empty();
+        }
+        if (userIdCache.size() >= USER_ID_CACHE_MAX) {
+            userIdCache.values().removeIf(c -> c.expiresAt() <= now);
+        }
+        userIdCache.put(sessionToken, new CachedUserId(user.get().getId(), now + USER_ID_CACHE_TTL_MS));
+        return Optional.of(user.get().getId());
+    }
+
     /**
      * UserTag ile kullanıcı ara
      */
@@ -307,6 +346,7 @@ public class AuthService {
 
         // Tüm oturumları kapat (güvenlik)
         sessionRepository.invalidateAllUserSessions(user, LocalDateTime.now());
+        userIdCache.values().removeIf(c -> c.userId().equals(userId));
 
         response.put("success", true);
         response.put("message", "Şifre başarıyla güncellendi. Lütfen tekrar giriş yapın.");
@@ -1,5 +1,9 @@
 package com.ingilizce.calismaapp.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingilizce.calismaapp.dto.PracticeSentence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -7,21 +11,141 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @Service
 public class ChatbotService {
 
   private static final Logger logger = LoggerFactory.getLogger(ChatbotService.class);
   private final GroqService groqService;
+  private final LlmResponseCache responseCache;
+  private final ObjectMapper objectMapper;
+
+  // Cache namespaces; TTL and variety pool size are configured per endpoint
+  public static final String GENERATE_SENTENCES = "generate-sentences";
+  public static final String CHECK_TRANSLATION = "check-translation";
+  public static final String CHECK_ENGLISH_TRANSLATION = "check-english-translation";
+  public static final String CHAT = "chat";
+  public static final String SPEAKING_QUESTIONS = "speaking-questions";
+  public static final String SPEAKING_EVALUATION = "speaking-evaluation";
+
+  private static final String CHAT_SYSTEM_PROMPT = """
+        You are Owen, a friendly English chat buddy. NOT a teacher. Just a friend chatting.
+
+        STRICT RULES:
+        1. MAX 8-10 words per sentence. Break long thoughts into short sentences.
+        2. ALWAYS start with a filler: "Alright...", "Nice!", "Hmm...", "Well...", "Okay...", "Oh!", "Cool!"
+        3. ALWAYS end with a question to keep conversation going.
+        4. Use contractions: I'm, you're, don't, can't, won't, let's, that's.
+        5. NO teaching. NO grammar explanations. Just chat like a buddy.
+        6. If user makes a mistake, don't correct formally. Just naturally use the correct form.
+
+        RESPONSE FORMAT:
+        [Filler] + [1-2 short sentences] + [Question]
+
+        EXAMPLES:
+        User: "I go to school yesterday"
+        You: "Nice! So you went to school. What did you do there?"
+
+        User: "Hello"
+        You: "Hey! Good to hear you. How's your day going?"
+
+        User: "I am fine"
+        You: "Awesome! Glad to hear that. What are you up to today?"
+
+        NEVER:
+        - Write more than 3 short sentences
+        - Give grammar lessons
+        - Use formal language
+        - Skip the filler at the start
+        - Skip the question at the end
+        """;
+
+  private static final String SPEAKING_EVALUATION_SYSTEM_PROMPT = """
+        ROLE: Expert IELTS/TOEFL Speaking Test Examiner
+
+        TASK:
+        Evaluate the candidate's speaking performance and provide detailed scores and feedback.
+
+        IELTS SCORING (0-9 for each criterion, then average):
+        1. Fluency and Coherence (0-9): Smoothness, natural flow, logical organization
+        2. Lexical Resource (0-9): Vocabulary range, accuracy, appropriateness
+        3. Grammatical Range and Accuracy (0-9): Grammar variety, complexity, errors
+        4. Pronunciation (0-9): Clarity, intonation, stress, accent (not native accent requirement)
+
+        TOEFL SCORING (0-30 total):
+        1. Delivery (0-10): Clear pronunciation, natural pace, intonation
+        2. Language Use (0-10): Grammar, vocabulary accuracy and range
+        3. Topic Development (0-10): Ideas, organization, completeness
+
+        CRITICAL RULES:
+        - Be FAIR and CONSISTENT with official IELTS/TOEFL standards
+        - Provide specific examples from the candidate's response
+        - Give constructive feedback for improvement
+        - Score realistically (not too harsh, not too lenient)
+        - Consider that this is practice, so be encouraging but accurate
+
+        Return ONLY a JSON object with this format:
+        {
+          "overallScore": number (IELTS: 0-9, TOEFL: 0-30),
+          "criteria": {
+            "fluency": number (IELTS only),
+            "lexicalResource": number (IELTS only),
+            "grammar": number (IELTS only),
+            "pronunciation": number (IELTS only),
+            "delivery": number (TOEFL only),
+            "languageUse": number (TOEFL only),
+            "topicDevelopment": number (TOEFL only)
+          },
+          "feedback": "detailed feedback in Turkish",
+          "strengths": ["strength1", "strength2", ...],
+          "improvements": ["improvement1", "improvement2", ...]
+        }
+        """;
 
-  public ChatbotService(GroqService groqService) {
+  public ChatbotService(GroqService groqService, LlmResponseCache responseCache) {
     this.groqService = groqService;
+    this.responseCache = responseCache;
+    this.objectMapper = new ObjectMapper();
+    // Ignore unknown properties (LLM bazen farklı field isimleri kullanabilir)
+    this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
   }
 
   /**
    * Cümle üretme servisi - UNIVERSAL MODE
    */
-  public String generateSentences(String message) {
+  public CompletableFuture<String> generateSentences(String message) {
+    return generateSentences(message, false);
+  }
+
+  /**
+   * Kelime + seviye/uzunluk kombinasyonları için cümle üretip parse eder
+   *
+   * @param background true ise (sentence bank dolumu) LLM cache atlanır ve Groq
+   *                   rate limiter'da interaktif isteklerin arkasında bekler
+   */
+  public CompletableFuture<List<PracticeSentence>> generatePracticeSentences(String normalizedWord,
+      List<String> levels, List<String> lengths, boolean background) {
+    // Tüm kombinasyonları tek bir prompt'ta belirtip, LLM'den hepsini birden
+    // üretmesini iste
+    // Bu yaklaşım çok daha hızlıdır çünkü tek bir istek yapılır
+    StringBuilder levelLengthInfo = new StringBuilder();
+    levelLengthInfo.append("Generate 5 diverse sentences total, covering these combinations:\n");
+    for (String level : levels) {
+      for (String length : lengths) {
+        levelLengthInfo.append(String.format("- Level: %s, Length: %s\n", level, length));
+      }
+    }
+    levelLengthInfo.append(
+        "Distribute the 5 sentences across these combinations. Make sentences diverse and cover different meanings if the word has multiple meanings.");
+
+    String message = String.format("Target word: '%s'.\n%s", normalizedWord, levelLengthInfo.toString());
+
+    return generateSentences(message, background).thenApply(this::parsePracticeSentences);
+  }
+
+  private CompletableFuture<String> generateSentences(String message, boolean background) {
     String systemPrompt = """
         ROLE: Expert English-Turkish Translator and Linguist.
 
@@ -45,14 +169,14 @@ public class ChatbotService {
         [{"englishSentence":"The plot of the novel is complex.","turkishTranslation":"kurgu","turkishFullTranslation":"Romanın kurgusu oldukça karmaşık."}]
         """;
 
-    return callGroq(systemPrompt, "Target word: '" + message + "'. Return ONLY pure, minified JSON. No other text.",
-        true);
+    return callGroq(GENERATE_SENTENCES, systemPrompt,
+        "Target word: '" + message + "'. Return ONLY pure, minified JSON. No other text.", true, background);
   }
 
   /**
    * Çeviri kontrolü servisi
    */
-  public String checkTranslation(String message) {
+  public CompletableFuture<String> checkTranslation(String message) {
     String systemPrompt = """
         ROLE: You are a supportive and encouraging English-Turkish translation checker.
 
@@ -80,13 +204,13 @@ public class ChatbotService {
         - Do not add any text before or after the JSON.
         """;
 
-    return callGroq(systemPrompt, message, true);
+    return callGroq(CHECK_TRANSLATION, systemPrompt, message, true);
   }
 
   /**
    * İngilizce Çeviri kontrolü servisi (TR -> EN)
    */
-  public String checkEnglishTranslation(String message) {
+  public CompletableFuture<String> checkEnglishTranslation(String message) {
     String systemPrompt = """
         ROLE: You are a supportive and encouraging English Teacher.
 
@@ -111,52 +235,20 @@ public class ChatbotService {
         - Do not add any text before or after the JSON.
         """;
 
-    return callGroq(systemPrompt, message, true);
+    return callGroq(CHECK_ENGLISH_TRANSLATION, systemPrompt, message, true);
   }
 
   /**
    * İngilizce sohbet pratiği servisi - Buddy Mode
    */
-  public String chat(String message) {
-    String systemPrompt = """
-        You are Owen, a friendly English chat buddy. NOT a teacher. Just a friend chatting.
-
-        STRICT RULES:
-        1. MAX 8-10 words per sentence. Break long thoughts into short sentences.
-        2. ALWAYS start with a filler: "Alright...", "Nice!", "Hmm...", "Well...", "Okay...", "Oh!", "Cool!"
-        3. ALWAYS end with a question to keep conversation going.
-        4. Use contractions: I'm, you're, don't, can't, won't, let's, that's.
-        5. NO teaching. NO grammar explanations. Just chat like a buddy.
-        6. If user makes a mistake, don't correct formally. Just naturally use the correct form.
-
-        RESPONSE FORMAT:
-        [Filler] + [1-2 short sentences] + [Question]
-
-        EXAMPLES:
-        User: "I go to school yesterday"
-        You: "Nice! So you went to school. What did you do there?"
-
-        User: "Hello"
-        You: "Hey! Good to hear you. How's your day going?"
-
-        User: "I am fine"
-        You: "Awesome! Glad to hear that. What are you up to today?"
-
-        NEVER:
-        - Write more than 3 short sentences
-        - Give grammar lessons
-        - Use formal language
-        - Skip the filler at the start
-        - Skip the question at the end
-        """;
-
-    return callGroq(systemPrompt, message, false);
+  public CompletableFuture<String> chat(String message) {
+    return callGroq(CHAT, CHAT_SYSTEM_PROMPT, message, false);
   }
 
   /**
    * IELTS/TOEFL Speaking test soruları üretme servisi
    */
-  public String generateSpeakingTestQuestions(String message) {
+  public CompletableFuture<String> generateSpeakingTestQuestions(String message) {
     String systemPrompt = """
         ROLE: Expert IELTS/TOEFL Speaking Test Examiner
 
@@ -179,59 +271,172 @@ public class ChatbotService {
         }
         """;
 
-    return callGroq(systemPrompt, "Generate " + message + ". Return ONLY JSON.", true);
+    return callGroq(SPEAKING_QUESTIONS, systemPrompt, "Generate " + message + ". Return ONLY JSON.", true);
   }
 
   /**
    * IELTS/TOEFL Speaking test puanlama servisi
    */
-  public String evaluateSpeakingTest(String message) {
-    String systemPrompt = """
-        ROLE: Expert IELTS/TOEFL Speaking Test Examiner
+  public CompletableFuture<String> evaluateSpeakingTest(String message) {
+    return callGroq(SPEAKING_EVALUATION, SPEAKING_EVALUATION_SYSTEM_PROMPT, message + " Return ONLY JSON.", true);
+  }
 
-        TASK:
-        Evaluate the candidate's speaking performance and provide detailed scores and feedback.
+  /**
+   * Sohbet cevabını token token akıtır (SSE)
+   */
+  public GroqService.GroqStream streamChat(String message, Consumer<String> onToken) {
+    return streamGroq(CHAT, CHAT_SYSTEM_PROMPT, message, false, onToken);
+  }
 
-        IELTS SCORING (0-9 for each criterion, then average):
-        1. Fluency and Coherence (0-9): Smoothness, natural flow, logical organization
-        2. Lexical Resource (0-9): Vocabulary range, accuracy, appropriateness
-        3. Grammatical Range and Accuracy (0-9): Grammar variety, complexity, errors
-        4. Pronunciation (0-9): Clarity, intonation, stress, accent (not native accent requirement)
+  /**
+   * Speaking test değerlendirmesini token token akıtır; tamamlanınca tam JSON döner
+   */
+  public GroqService.GroqStream streamSpeakingEvaluation(String message, Consumer<String> onToken) {
+    return streamGroq(SPEAKING_EVALUATION, SPEAKING_EVALUATION_SYSTEM_PROMPT, message + " Return ONLY JSON.", true,
+        onToken);
+  }
 
-        TOEFL SCORING (0-30 total):
-        1. Delivery (0-10): Clear pronunciation, natural pace, intonation
-        2. Language Use (0-10): Grammar, vocabulary accuracy and range
-        3. Topic Development (0-10): Ideas, organization, completeness
+  public Map<String, Object> getCacheStats() {
+    return responseCache.getStats();
+  }
 
-        CRITICAL RULES:
-        - Be FAIR and CONSISTENT with official IELTS/TOEFL standards
-        - Provide specific examples from the candidate's response
-        - Give constructive feedback for improvement
-        - Score realistically (not too harsh, not too lenient)
-        - Consider that this is practice, so be encouraging but accurate
+  public Map<String, Object> getGroqStats() {
+    return groqService.getStats();
+  }
 
-        Return ONLY a JSON object with this format:
-        {
-          "overallScore": number (IELTS: 0-9, TOEFL: 0-30),
-          "criteria": {
-            "fluency": number (IELTS only),
-            "lexicalResource": number (IELTS only),
-            "grammar": number (IELTS only),
-            "pronunciation": number (IELTS only),
-            "delivery": number (TOEFL only),
-            "languageUse": number (TOEFL only),
-            "topicDevelopment": number (TOEFL only)
-          },
-          "feedback": "detailed feedback in Turkish",
-          "strengths": ["strength1", "strength2", ...],
-          "improvements": ["improvement1", "improvement2", ...]
+  /**
+   * Groq çağrısı, önünde endpoint bazlı Redis cache ile
+   */
+  private CompletableFuture<String> callGroq(String endpoint, String systemPrompt, String userMessage,
+      boolean jsonMode) {
+    return callGroq(endpoint, systemPrompt, userMessage, jsonMode, false);
+  }
+
+  /**
+   * @param background cache'i atlar ve BACKGROUND önceliğiyle çağırır
+   */
+  private CompletableFuture<String> callGroq(String endpoint, String systemPrompt, String userMessage,
+      boolean jsonMode, boolean background) {
+    boolean useCache = !background;
+    String cacheKey = responseCache.key(endpoint, systemPrompt, userMessage, jsonMode);
+    String cached = useCache ? responseCache.lookup(endpoint, cacheKey) : null;
+    if (cached != null) {
+      logger.debug("LLM cache HIT ({})", endpoint);
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    GroqRateLimiter.Priority priority = background ? GroqRateLimiter.Priority.BACKGROUND
+        : GroqRateLimiter.Priority.INTERACTIVE;
+    return groqService.chatCompletionAsync(buildMessages(systemPrompt, userMessage), jsonMode, priority)
+        .thenApply(response -> {
+          // Bozuk JSON cache'lenirse TTL boyunca aynı hata dönerdi
+          if (useCache && (!jsonMode || isParsableJson(response))) {
+            responseCache.store(endpoint, cacheKey, response);
+          }
+          return response;
+        });
+  }
+
+  /**
+   * LLM cevabını temizleyip PracticeSentence listesine çevirir
+   */
+  public List<PracticeSentence> parsePracticeSentences(String jsonResponse) {
+    // JSON'u temizle (markdown code blocks varsa kaldır)
+    jsonResponse = jsonResponse.trim();
+    jsonResponse = jsonResponse.replaceAll("```json", "").replaceAll("```", "").trim();
+
+    // LLM bazen açıklama metni ekliyor, JSON array'i bul (ilk [ karakterinden
+    // başla)
+    int arrayStartIndex = jsonResponse.indexOf('[');
+    if (arrayStartIndex > 0) {
+      // Array'den önce metin var, onu kaldır
+      jsonResponse = jsonResponse.substring(arrayStartIndex);
+    }
+
+    // Array'in sonunu bul (son ] karakterine kadar)
+    int arrayEndIndex = jsonResponse.lastIndexOf(']');
+    if (arrayEndIndex > 0 && arrayEndIndex < jsonResponse.length() - 1) {
+      // Array'den sonra metin var, onu kaldır
+      jsonResponse = jsonResponse.substring(0, arrayEndIndex + 1);
+    }
+
+    jsonResponse = jsonResponse.trim();
+
+    // LLM bazen yanlış field name kullanabilir, düzelt
+    jsonResponse = jsonResponse.replaceAll("\"turkishTransliteration\"", "\"turkishTranslation\"");
+    jsonResponse = jsonResponse.replaceAll("\"turkish_translation\"", "\"turkishTranslation\"");
+    jsonResponse = jsonResponse.replaceAll("\"turkish\"", "\"turkishTranslation\"");
+
+    List<PracticeSentence> allSentences = new ArrayList<>();
+    try {
+      // Önce JSON'un array mi object mi olduğunu kontrol et
+      Object parsed = objectMapper.readValue(jsonResponse, Object.class);
+
+      if (parsed instanceof List) {
+        // Array ise direkt parse et
+        allSentences = objectMapper.readValue(
+            jsonResponse,
+            new TypeReference<List<PracticeSentence>>() {
+            });
+      } else if (parsed instanceof Map) {
+        // Object ise, içinde "sentences" veya benzer bir key var mı kontrol et
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = (Map<String, Object>) parsed;
+
+        // "sentences" key'i varsa onu kullan
+        if (map.containsKey("sentences") && map.get("sentences") instanceof List) {
+          allSentences = objectMapper.convertValue(
+              map.get("sentences"),
+              new TypeReference<List<PracticeSentence>>() {
+              });
+        } else {
+          // Tek bir object ise, onu array'e çevir
+          try {
+            PracticeSentence single = objectMapper.convertValue(parsed, PracticeSentence.class);
+            allSentences.add(single);
+          } catch (Exception ex) {
+            logger.warn("Could not parse as single PracticeSentence: {}", ex.getMessage());
+            throw new RuntimeException(
+                "LLM returned unexpected JSON format. Expected array or object with 'sentences' key.",
+                ex);
+          }
         }
-        """;
+      } else {
+        throw new RuntimeException("LLM returned unexpected JSON format. Expected array or object.");
+      }
+    } catch (Exception e) {
+      logger.error("Error parsing JSON: {}", e.getMessage());
+      logger.error("JSON response (first 500 chars): {}",
+          jsonResponse.length() > 500 ? jsonResponse.substring(0, 500) + "..." : jsonResponse);
+      throw new RuntimeException("Failed to parse LLM response: " + e.getMessage(), e);
+    }
+    return allSentences;
+  }
 
-    return callGroq(systemPrompt, message + " Return ONLY JSON.", true);
+  /**
+   * Streaming variant of callGroq: a cache hit is emitted as a single token,
+   * a completed stream is stored like a normal response
+   */
+  private GroqService.GroqStream streamGroq(String endpoint, String systemPrompt, String userMessage,
+      boolean jsonMode, Consumer<String> onToken) {
+    String cacheKey = responseCache.key(endpoint, systemPrompt, userMessage, jsonMode);
+    String cached = responseCache.lookup(endpoint, cacheKey);
+    if (cached != null) {
+      onToken.accept(cached);
+      return GroqService.GroqStream.completed(cached);
+    }
+
+    GroqService.GroqStream stream = groqService.streamChatCompletion(buildMessages(systemPrompt, userMessage),
+        jsonMode, onToken);
+    stream.completion().thenAccept(response -> {
+      if (!jsonMode || isParsableJson(response)) {
+        responseCache.store(endpoint, cacheKey, response);
+      }
+    });
+    return stream;
   }
 
-  private String callGroq(String systemPrompt, String userMessage, boolean jsonMode) {
+  private List<Map<String, String>> buildMessages(String systemPrompt, String userMessage) {
     List<Map<String, String>> messages = new ArrayList<>();
 
     Map<String, String> systemMsg = new HashMap<>();
@@ -243,7 +448,18 @@ public class ChatbotService {
     userMsg.put("role", "user");
     userMsg.put("content", userMessage);
     messages.add(userMsg);
+    return messages;
+  }
 
-    return groqService.chatCompletion(messages, jsonMode);
+  private boolean isParsableJson(String response) {
+    if (response == null) {
+      return false;
+    }
+    try {
+      objectMapper.readTree(response.replaceAll("```json", "").replaceAll("```", "").trim());
+      return true;
+    } catch (Exception e) {
+      return false;
+    }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+package com.ingilizce.calismaapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Materializes tomorrow's SRS due queue shortly before midnight, so the first
+ * review screen of the day is served from Redis.
+ */
+@Component
+public class DueQueueJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(DueQueueJob.class);
+
+    private final DueQueueService dueQueueService;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile Map<String, Object> lastRun = new HashMap<>();
+
+    public DueQueueJob(DueQueueService dueQueueService) {
+        this.dueQueueService = dueQueueService;
+    }
+
+    @Scheduled(cron = "${srs.due-queue.cron:0 50 23 * * *}")
+    public void scheduledBuild() {
+        start(LocalDate.now().plusDays(1));
+    }
+
+    /**
+     * Build the queue for {@code date} in the background
+     *
+     * @return false if a build is already in progress
+     */
+    public boolean start(LocalDate date) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                long started = System.currentTimeMillis();
+                int words = dueQueueService.build(date);
+                Map<String, Object> result = new HashMap<>();
+                result.put("date", date.toString());
+                result.put("words", words);
+                result.put("durationMs", System.currentTimeMillis() - started);
+                result.put("finishedAt", System.currentTimeMillis());
+                lastRun = result;
+            } catch (Exception e) {
+                logger.error("SRS due queue build failed: {}", e.getMessage(), e);
+            } finally {
+                running.set(false);
+            }
+        }, "srs-due-queue");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public Map<String, Object> getLastRun() {
+        return lastRun;
+    }
+}
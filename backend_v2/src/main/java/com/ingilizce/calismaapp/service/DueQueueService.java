@@ -0,0 +1,318 @@
+package com.ingilizce.calismaapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingilizce.calismaapp.dto.ReviewWordDto;
+import com.ingilizce.calismaapp.repository.WordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Materialized SRS due queue in Redis, one per day:
+ *
+ * srs:due:{date}       ZSET wordId -> urgency (overdue days + 1/EF, higher first)
+ * srs:due:{date}:items HASH wordId -> ReviewWordDto JSON (no sentences)
+ * srs:due:{date}:built marker, set once the queue has been built
+ *
+ * DueQueueJob builds tomorrow's queue every night; a missing queue is built on
+ * first read. Review submissions and word edits patch the existing queues
+ * after commit, so opening the review screen is a ZREVRANGE + HMGET instead
+ * of a range scan over words. Builds and patches of the same day take the
+ * same lock: a patch waits for a running build and then applies on top of
+ * the renamed queue, instead of being overwritten by rows the build read
+ * before the review committed.
+ */
+@Service
+public class DueQueueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DueQueueService.class);
+
+    private static final String KEY_PREFIX = "srs:due:";
+    private static final String ITEMS_SUFFIX = ":items";
+    private static final String BUILDING_SUFFIX = ":building";
+    private static final String BUILT_SUFFIX = ":built";
+    private static final int BUILD_PAGE_SIZE = 500;
+    private static final Duration KEY_TTL = Duration.ofDays(2);
+
+    // After a Redis failure, serve from the database for a while instead of paying the timeout on every call
+    private static final long REDIS_BACKOFF_MS = 30_000;
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private WordRepository wordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${srs.due-queue.enabled:true}")
+    private boolean enabled;
+
+    private volatile long redisRetryAt = 0;
+
+    // date -> monitor shared by build and refresh of that day's queue
+    private final Map<LocalDate, Object> dateLocks = new ConcurrentHashMap<>();
+
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong patches = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public boolean isAvailable() {
+        return enabled && redisTemplate != null && System.currentTimeMillis() >= redisRetryAt;
+    }
+
+    /**
+     * Most urgent due words for today, built on demand if tonight's job has not run
+     *
+     * @return page map (items, total, date), or null if Redis is unavailable
+     */
+    public Map<String, Object> getQueue(int offset, int limit) {
+        if (!isAvailable()) {
+            return null;
+        }
+        LocalDate today = LocalDate.now();
+        String key = queueKey(today);
+        try {
+            if (!isBuilt(key)) {
+                try {
+                    build(today);
+                } catch (IllegalStateException e) {
+                    return null; // already logged; the caller falls back to the database
+                }
+            }
+            reads.incrementAndGet();
+
+            Set<String> ids = redisTemplate.opsForZSet().reverseRange(key, offset, offset + limit - 1L);
+            Long total = redisTemplate.opsForZSet().zCard(key);
+            List<ReviewWordDto> items = new ArrayList<>();
+            if (ids != null && !ids.isEmpty()) {
+                List<Object> json = redisTemplate.opsForHash().multiGet(key + ITEMS_SUFFIX, new ArrayList<>(ids));
+                for (Object value : json) {
+                    if (value != null) {
+                        items.add(objectMapper.readValue(value.toString(), ReviewWordDto.class));
+                    }
+                }
+            }
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("date", today.toString());
+            result.put("items", items);
+            result.put("total", total != null ? total : 0);
+            return result;
+        } catch (Exception e) {
+            onRedisError("read", e);
+            return null;
+        }
+    }
+
+    /**
+     * Rebuild the queue of words due on {@code date} (overdue ones included).
+     * Written to a scratch key and renamed, so readers never see a half-built queue.
+     *
+     * @return number of queued words
+     * @throws IllegalStateException if Redis is unavailable or the build failed
+     */
+    public int build(LocalDate date) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("Redis unavailable");
+        }
+        synchronized (lock(date)) {
+            return buildLocked(date);
+        }
+    }
+
+    private int buildLocked(LocalDate date) {
+        String key = queueKey(date);
+        String scratch = key + BUILDING_SUFFIX;
+        int count = 0;
+        try {
+            redisTemplate.delete(List.of(scratch, scratch + ITEMS_SUFFIX));
+            PageRequest page = PageRequest.of(0, BUILD_PAGE_SIZE);
+            Slice<ReviewWordDto> slice = wordRepository.findReviewQueue(date, page);
+            while (true) {
+                write(scratch, date, slice.getContent());
+                count += slice.getNumberOfElements();
+                if (!slice.hasNext() || slice.getContent().isEmpty()) {
+                    break;
+                }
+                ReviewWordDto last = slice.getContent().get(slice.getNumberOfElements() - 1);
+                slice = wordRepository.findReviewQueueAfter(date, last.nextReviewDate(),
+                        last.easeFactor() != null ? last.easeFactor() : Sm2Scheduler.DEFAULT_EASE_FACTOR,
+                        last.id(), page);
+            }
+
+            if (count == 0) {
+                redisTemplate.delete(List.of(key, key + ITEMS_SUFFIX));
+            } else {
+                redisTemplate.rename(scratch, key);
+                redisTemplate.rename(scratch + ITEMS_SUFFIX, key + ITEMS_SUFFIX);
+                redisTemplate.expire(key, KEY_TTL);
+                redisTemplate.expire(key + ITEMS_SUFFIX, KEY_TTL);
+            }
+            // Marker instead of the ZSET itself: an empty queue is a valid, built queue
+            redisTemplate.opsForValue().set(key + BUILT_SUFFIX, "1", KEY_TTL);
+            builds.incrementAndGet();
+            logger.info("Materialized SRS due queue for {}: {} words", date, count);
+        } catch (Exception e) {
+            onRedisError("build", e);
+            throw new IllegalStateException("SRS due queue build failed for " + date, e);
+        }
+        return count;
+    }
+
+    /**
+     * Re-sync the given words in every materialized queue (today and tomorrow)
+     * once the current transaction commits: re-read them, add the ones now due
+     * on that day, drop the rest (including deleted words).
+     */
+    public void refreshAfterCommit(Collection<Long> wordIds) {
+        if (wordIds.isEmpty() || !isAvailable()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(wordIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(ids);
+                }
+            });
+        } else {
+            refresh(ids);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("available", isAvailable());
+        stats.put("reads", reads.get());
+        stats.put("builds", builds.get());
+        stats.put("patches", patches.get());
+        stats.put("errors", errors.get());
+        return stats;
+    }
+
+    private void refresh(List<Long> ids) {
+        try {
+            Map<Long, ReviewWordDto> current = new HashMap<>();
+            for (ReviewWordDto dto : wordRepository.findReviewWordDtosByIdIn(ids)) {
+                current.put(dto.id(), dto);
+            }
+            LocalDate today = LocalDate.now();
+            for (LocalDate date : List.of(today, today.plusDays(1))) {
+                synchronized (lock(date)) {
+                    patch(date, ids, current);
+                }
+            }
+            patches.incrementAndGet();
+        } catch (Exception e) {
+            onRedisError("patch", e);
+            // A stale queue is worse than none: unmark both so the next read rebuilds from the database
+            try {
+                LocalDate today = LocalDate.now();
+                redisTemplate.delete(List.of(queueKey(today) + BUILT_SUFFIX,
+                        queueKey(today.plusDays(1)) + BUILT_SUFFIX));
+            } catch (Exception ignored) {
+                // Redis is down; keys expire on their own
+            }
+        }
+    }
+
+    private void patch(LocalDate date, List<Long> ids, Map<Long, ReviewWordDto> current) throws Exception {
+        String key = queueKey(date);
+        if (!isBuilt(key)) {
+            return; // not materialized yet, the next build reads the committed rows
+        }
+        List<ReviewWordDto> due = new ArrayList<>();
+        Set<String> notDue = new HashSet<>();
+        for (Long id : ids) {
+            ReviewWordDto dto = current.get(id);
+            if (dto != null && dto.nextReviewDate() != null && !dto.nextReviewDate().isAfter(date)) {
+                due.add(dto);
+            } else {
+                notDue.add(id.toString());
+            }
+        }
+        write(key, date, due);
+        if (!due.isEmpty()) {
+            redisTemplate.expire(key, KEY_TTL);
+            redisTemplate.expire(key + ITEMS_SUFFIX, KEY_TTL);
+        }
+        if (!notDue.isEmpty()) {
+            redisTemplate.opsForZSet().remove(key, notDue.toArray());
+            redisTemplate.opsForHash().delete(key + ITEMS_SUFFIX, notDue.toArray());
+        }
+    }
+
+    private Object lock(LocalDate date) {
+        // Only today and tomorrow are ever patched; drop monitors of past days
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        dateLocks.keySet().removeIf(day -> day.isBefore(yesterday));
+        return dateLocks.computeIfAbsent(date, day -> new Object());
+    }
+
+    private void write(String key, LocalDate date, List<ReviewWordDto> words) throws Exception {
+        if (words.isEmpty()) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        Map<String, String> items = new HashMap<>();
+        for (ReviewWordDto word : words) {
+            String id = word.id().toString();
+            tuples.add(ZSetOperations.TypedTuple.of(id, urgency(word, date)));
+            items.put(id, objectMapper.writeValueAsString(word));
+        }
+        redisTemplate.opsForZSet().add(key, tuples);
+        redisTemplate.opsForHash().putAll(key + ITEMS_SUFFIX, items);
+    }
+
+    /**
+     * Whole overdue days first; within a day the hardest word (lowest EF) first.
+     * 1/EF is below 1 for any EF >= 1.3, so it never outranks a full day.
+     */
+    private static double urgency(ReviewWordDto word, LocalDate date) {
+        double overdueDays = word.nextReviewDate() != null
+                ? date.toEpochDay() - word.nextReviewDate().toEpochDay()
+                : 0;
+        double easeFactor = word.easeFactor() != null ? word.easeFactor() : Sm2Scheduler.DEFAULT_EASE_FACTOR;
+        return overdueDays + 1 / easeFactor;
+    }
+
+    private boolean isBuilt(String key) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key + BUILT_SUFFIX));
+    }
+
+    private static String queueKey(LocalDate date) {
+        return KEY_PREFIX + date;
+    }
+
+    private void onRedisError(String operation, Exception e) {
+        errors.incrementAndGet();
+        redisRetryAt = System.currentTimeMillis() + REDIS_BACKOFF_MS;
+        logger.warn("SRS due queue {} failed, falling back to the database for {} ms: {}", operation,
+                REDIS_BACKOFF_MS, e.getMessage());
+    }
+}
@@ -0,0 +1,245 @@
+package com.ingilizce.calismaapp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams whole tables out as NDJSON or CSV.
+ *
+ * Rows come from a forward-only JDBC cursor (PostgreSQL only honours
+ * fetchSize inside a transaction, hence the read-only TransactionTemplate)
+ * and are written straight to the response, so memory stays flat no matter
+ * how many rows there are. The output is flushed after the first row so the
+ * client sees bytes immediately.
+ */
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int FLUSH_EVERY_ROWS = 5000;
+
+    // Whitelist: dataset name -> query. Never build SQL from the request.
+    private static final Map<String, String> DATASETS = new LinkedHashMap<>();
+    static {
+        DATASETS.put("words", "SELECT id, english_word, turkish_meaning, learned_date, notes, difficulty, "
+                + "next_review_date, review_count, ease_factor, last_review_date, fsrs_stability, fsrs_difficulty "
+                + "FROM words ORDER BY id");
+        DATASETS.put("sentences", "SELECT id, word_id, sentence, translation, difficulty FROM sentences ORDER BY id");
+        DATASETS.put("word_reviews", "SELECT id, word_id, review_date, review_type, quality, notes "
+                + "FROM word_reviews ORDER BY id");
+        DATASETS.put("sentence_practices", "SELECT id, english_sentence, turkish_translation, difficulty, "
+                + "created_date FROM sentence_practices ORDER BY id");
+    }
+
+    public static final Set<String> FORMATS = Set.of("ndjson", "csv");
+
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper) {
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    public Set<String> getDatasets() {
+        return DATASETS.keySet();
+    }
+
+    public boolean isDataset(String dataset) {
+        return DATASETS.containsKey(dataset);
+    }
+
+    /**
+     * Write the dataset to out; caller has validated dataset and format
+     *
+     * @return number of rows written
+     */
+    public long export(String dataset, String format, boolean gzip, OutputStream out) throws IOException {
+        String sql = DATASETS.get(dataset);
+        if (sql == null) {
+            throw new IllegalArgumentException("Unknown dataset: " + dataset);
+        }
+        long started = System.currentTimeMillis();
+        OutputStream target = gzip ? new GZIPOutputStream(out, 8192, true) : out;
+        RowWriter writer = "csv".equals(format) ? new CsvRowWriter(target) : new NdjsonRowWriter(target);
+
+        long[] rows = { 0 };
+        try {
+            readOnlyTx.executeWithoutResult(status -> cursorTemplate.query(sql, (RowCallbackHandler) rs -> {
+                try {
+                    writer.write(rs);
+                    rows[0]++;
+                    if (rows[0] == 1 || rows[0] % FLUSH_EVERY_ROWS == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    // Client went away: abort the cursor instead of reading the rest of the table
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            writer.finish();
+            if (gzip) {
+                ((GZIPOutputStream) target).finish();
+            }
+        } catch (UncheckedIOException e) {
+            logger.info("Export of {} aborted after {} rows: {}", dataset, rows[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+        target.flush();
+        logger.info("Exported {} {} rows as {}{} in {} ms", rows[0], dataset, format, gzip ? "+gzip" : "",
+                System.currentTimeMillis() - started);
+        return rows[0];
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void flush() throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private String[] names;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            if (names == null) {
+                names = columnNames(rs.getMetaData());
+            }
+            generator.writeStartObject();
+            for (int i = 0; i < names.length; i++) {
+                Object value = rs.getObject(i + 1);
+                generator.writeFieldName(names[i]);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+                    generator.writeNumber(((Number) value).longValue());
+                } else if (value instanceof BigDecimal decimal) {
+                    generator.writeNumber(decimal);
+                } else if (value instanceof Number number) {
+                    generator.writeNumber(number.doubleValue());
+                } else if (value instanceof Boolean bool) {
+                    generator.writeBoolean(bool);
+                } else {
+                    generator.writeString(formatValue(value));
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private int columns = -1;
+
+        CsvRowWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            if (columns < 0) {
+                String[] names = columnNames(rs.getMetaData());
+                columns = names.length;
+                writer.write(String.join(",", names));
+                writer.write("\r\n");
+            }
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                Object value = rs.getObject(i);
+                if (value != null) {
+                    writer.write(escape(formatValue(value)));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static String[] columnNames(ResultSetMetaData meta) throws SQLException {
+        String[] names = new String[meta.getColumnCount()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = meta.getColumnLabel(i + 1);
+        }
+        return names;
+    }
+
+    private static String formatValue(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate().toString();
+        }
+        return value.toString();
+    }
+}
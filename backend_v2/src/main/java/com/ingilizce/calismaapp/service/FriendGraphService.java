@@ -0,0 +1,200 @@
+package com.ingilizce.calismaapp.service;
+
+import com.ingilizce.calismaapp.repository.UserFriendRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accepted-friend adjacency sets, cached in Redis:
+ *
+ * fg:{userId}   SET of friend ids, plus a "-" sentinel so a user without
+ *               friends is cached too (Redis drops empty sets)
+ * fg:{userId}:v invalidation counter of that set
+ *
+ * A miss loads the ids with one UNION of two indexed lookups. Any change to
+ * a user_friends row (UserFriendListener) bumps both users' counters and
+ * deletes their sets after commit; the TTL only bounds memory for inactive
+ * users. A miss stores its set in a WATCH/MULTI on the counter it read before
+ * the load, so ids read before a concurrent invalidation are not cached.
+ * Without Redis every call reads the database.
+ */
+@Service
+public class FriendGraphService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FriendGraphService.class);
+
+    private static final String KEY_PREFIX = "fg:";
+    private static final String VERSION_SUFFIX = ":v";
+    private static final String SENTINEL = "-";
+    private static final Duration KEY_TTL = Duration.ofDays(1);
+
+    // After a Redis failure, read from the database for a while instead of paying the timeout on every call
+    private static final long REDIS_BACKOFF_MS = 30_000;
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private UserFriendRepository userFriendRepository;
+
+    private volatile long redisRetryAt = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private boolean isAvailable() {
+        return redisTemplate != null && System.currentTimeMillis() >= redisRetryAt;
+    }
+
+    /**
+     * Ids of the user's accepted friends (either side of the request)
+     */
+    public Set<Long> getFriendIds(Long userId) {
+        if (isAvailable()) {
+            try {
+                Set<String> members = redisTemplate.opsForSet().members(key(userId));
+                if (members != null && !members.isEmpty()) {
+                    hits.incrementAndGet();
+                    Set<Long> ids = new HashSet<>();
+                    for (String member : members) {
+                        if (!SENTINEL.equals(member)) {
+                            ids.add(Long.valueOf(member));
+                        }
+                    }
+                    return ids;
+                }
+            } catch (Exception e) {
+                onRedisError("read", e);
+            }
+        }
+
+        misses.incrementAndGet();
+        // Read the counter before the load: an invalidation after this point makes the store a no-op
+        boolean cache = isAvailable();
+        String version = null;
+        if (cache) {
+            try {
+                version = redisTemplate.opsForValue().get(key(userId) + VERSION_SUFFIX);
+            } catch (Exception e) {
+                onRedisError("read", e);
+                cache = false;
+            }
+        }
+        Set<Long> ids = new HashSet<>(userFriendRepository.findAcceptedFriendIds(userId));
+        if (cache && isAvailable()) {
+            try {
+                store(userId, version, ids);
+            } catch (Exception e) {
+                onRedisError("write", e);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Drop the cached sets of the given users once the current transaction commits
+     */
+    public void invalidate(Long... userIds) {
+        List<String> keys = new ArrayList<>();
+        for (Long userId : userIds) {
+            if (userId != null) {
+                keys.add(key(userId));
+            }
+        }
+        if (keys.isEmpty() || redisTemplate == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpAndDelete(keys);
+                }
+            });
+        } else {
+            bumpAndDelete(keys);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("available", isAvailable());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("errors", errors.get());
+        return stats;
+    }
+
+    /**
+     * Cache the loaded ids unless the set was invalidated since {@code version} was read
+     */
+    private void store(Long userId, String version, Set<Long> ids) {
+        String key = key(userId);
+        String versionKey = key + VERSION_SUFFIX;
+        String[] members = new String[ids.size() + 1];
+        members[0] = SENTINEL;
+        int i = 1;
+        for (Long id : ids) {
+            members[i++] = id.toString();
+        }
+        redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> List<Object> execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.watch(versionKey);
+                if (!Objects.equals(version, ops.opsForValue().get(versionKey))) {
+                    ops.unwatch();
+                    return null;
+                }
+                ops.multi();
+                ops.opsForSet().add(key, members);
+                ops.expire(key, KEY_TTL);
+                // Aborted (empty result) if the counter moved after the check
+                return ops.exec();
+            }
+        });
+    }
+
+    private void bumpAndDelete(List<String> keys) {
+        try {
+            // Counters never expire: an expired one could restart at a value a loader already read
+            for (String key : keys) {
+                redisTemplate.opsForValue().increment(key + VERSION_SUFFIX);
+            }
+            redisTemplate.delete(keys);
+        } catch (Exception e) {
+            // The sets may now be stale until they expire
+            onRedisError("invalidate", e);
+        }
+    }
+
+    private static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private void onRedisError(String operation, Exception e) {
+        errors.incrementAndGet();
+        redisRetryAt = System.currentTimeMillis() + REDIS_BACKOFF_MS;
+        logger.warn("Friend graph {} failed, reading from the database for {} ms: {}", operation,
+                REDIS_BACKOFF_MS, e.getMessage());
+    }
+}
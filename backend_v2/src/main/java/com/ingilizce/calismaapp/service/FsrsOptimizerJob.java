@@ -0,0 +1,270 @@
+package com.ingilizce.calismaapp.service;
+
+import com.ingilizce.calismaapp.entity.FsrsParameters;
+import com.ingilizce.calismaapp.repository.FsrsParametersRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Weekly refit of the FSRS weights from word_reviews history.
+ *
+ * History is loaded once into flat primitive arrays (one entry per review,
+ * words stored as contiguous runs), so a loss evaluation is a tight loop
+ * with no object allocation. Weights are fitted with Adam on the mean
+ * log-loss of recall predictions; the gradient is taken by central finite
+ * differences, one weight per core. New weights are only kept if they beat
+ * the current ones on the same history.
+ */
+@Component
+public class FsrsOptimizerJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(FsrsOptimizerJob.class);
+
+    // Allowed range per weight (keeps the model monotonic and numerically sane)
+    private static final double[][] BOUNDS = {
+            { 0.1, 100 }, { 0.1, 100 }, { 0.1, 100 }, { 0.1, 100 }, { 1, 10 }, { 0.1, 5 }, { 0.1, 5 },
+            { 0, 0.5 }, { 0, 3 }, { 0.1, 0.8 }, { 0.01, 2.5 }, { 0.5, 5 }, { 0.01, 0.2 }, { 0.01, 0.9 },
+            { 0.01, 2 }, { 0, 1 }, { 1, 6 } };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FsrsParametersRepository parametersRepository;
+    private final FsrsScheduler fsrsScheduler;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${srs.algorithm:sm2}")
+    private String algorithmName;
+
+    @Value("${srs.fsrs.optimizer-min-reviews:200}")
+    private int minReviews;
+
+    @Value("${srs.fsrs.optimizer-iterations:150}")
+    private int iterations;
+
+    @Value("${srs.fsrs.optimizer-learning-rate:0.04}")
+    private double learningRate;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile Map<String, Object> lastRun = new HashMap<>();
+
+    public FsrsOptimizerJob(JdbcTemplate jdbcTemplate, FsrsParametersRepository parametersRepository,
+            FsrsScheduler fsrsScheduler, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.parametersRepository = parametersRepository;
+        this.fsrsScheduler = fsrsScheduler;
+        this.transactionManager = transactionManager;
+    }
+
+    @Scheduled(cron = "${srs.fsrs.optimizer-cron:0 30 3 * * SUN}")
+    public void scheduledOptimize() {
+        // Under SM-2 the weights are never read; a manual start() still fits them ahead of a switch
+        if (fsrsScheduler.name().equalsIgnoreCase(algorithmName.trim())) {
+            start();
+        }
+    }
+
+    /**
+     * Start an optimizer run in the background
+     *
+     * @return false if a run is already in progress
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                run();
+            } catch (Exception e) {
+                logger.error("FSRS optimization failed: {}", e.getMessage(), e);
+            } finally {
+                running.set(false);
+            }
+        }, "fsrs-optimizer");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public Map<String, Object> getLastRun() {
+        return lastRun;
+    }
+
+    private void run() {
+        long started = System.currentTimeMillis();
+        History history = loadHistory();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("reviews", history.size);
+        result.put("predictions", history.predictions);
+        result.put("finishedAt", System.currentTimeMillis());
+        if (history.predictions < minReviews) {
+            result.put("status", "skipped: not enough review history");
+            lastRun = result;
+            logger.info("FSRS optimization skipped: {} usable reviews (< {})", history.predictions, minReviews);
+            return;
+        }
+
+        double[] current = fsrsScheduler.getWeights();
+        double currentLoss = history.loss(current);
+        double[] fitted = fit(history, current);
+        double fittedLoss = history.loss(fitted);
+
+        result.put("previousLoss", currentLoss);
+        result.put("fittedLoss", fittedLoss);
+        if (fittedLoss < currentLoss) {
+            FsrsParameters parameters = parametersRepository.findByUserId(FsrsScheduler.DEFAULT_USER_ID)
+                    .orElseGet(() -> new FsrsParameters(FsrsScheduler.DEFAULT_USER_ID));
+            parameters.setWeightArray(fitted);
+            parameters.setTrainedOnReviews(history.size);
+            parameters.setLogLoss(fittedLoss);
+            parameters.setUpdatedAt(LocalDateTime.now());
+            parametersRepository.save(parameters);
+            fsrsScheduler.setWeights(fitted);
+            result.put("status", "updated");
+        } else {
+            result.put("status", "kept: fitted weights did not improve the loss");
+        }
+        result.put("durationMs", System.currentTimeMillis() - started);
+        result.put("finishedAt", System.currentTimeMillis());
+        lastRun = result;
+        logger.info("FSRS optimization finished: {}", result);
+    }
+
+    private double[] fit(History history, double[] initial) {
+        int n = initial.length;
+        double[] w = initial.clone();
+        double[] m = new double[n];
+        double[] v = new double[n];
+        double beta1 = 0.9, beta2 = 0.999, eps = 1e-8;
+
+        for (int t = 1; t <= iterations; t++) {
+            double[] point = w;
+            double[] grad = new double[n];
+            IntStream.range(0, n).parallel().forEach(i -> {
+                double h = 1e-4 * Math.max(1, Math.abs(point[i]));
+                double[] up = point.clone();
+                double[] down = point.clone();
+                up[i] = clamp(i, up[i] + h);
+                down[i] = clamp(i, down[i] - h);
+                double span = up[i] - down[i];
+                grad[i] = span == 0 ? 0 : (history.loss(up) - history.loss(down)) / span;
+            });
+
+            double[] next = w.clone();
+            for (int i = 0; i < n; i++) {
+                m[i] = beta1 * m[i] + (1 - beta1) * grad[i];
+                v[i] = beta2 * v[i] + (1 - beta2) * grad[i] * grad[i];
+                double mHat = m[i] / (1 - Math.pow(beta1, t));
+                double vHat = v[i] / (1 - Math.pow(beta2, t));
+                next[i] = clamp(i, w[i] - learningRate * mHat / (Math.sqrt(vHat) + eps));
+            }
+            w = next;
+        }
+        return w;
+    }
+
+    private static double clamp(int index, double value) {
+        return Math.max(BOUNDS[index][0], Math.min(BOUNDS[index][1], value));
+    }
+
+    /**
+     * Streams word_reviews (ordered by word, date) into flat arrays, keeping
+     * only the first graded review per word and day as FSRS-4.5 does
+     */
+    private History loadHistory() {
+        History history = new History();
+        long[] lastWord = { -1 };
+        long[] lastDay = { Long.MIN_VALUE };
+        // Postgres only streams with a fetch size inside a transaction
+        JdbcTemplate reader = new JdbcTemplate(jdbcTemplate.getDataSource());
+        reader.setFetchSize(1000);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.executeWithoutResult(status -> reader.query("SELECT word_id, review_date, quality FROM word_reviews "
+                + "WHERE quality IS NOT NULL ORDER BY word_id, review_date, id", rs -> {
+                    long wordId = rs.getLong(1);
+                    LocalDate date = rs.getObject(2, LocalDate.class);
+                    int grade = FsrsScheduler.gradeOf(rs.getInt(3));
+                    long day = date.toEpochDay();
+                    if (wordId != lastWord[0]) {
+                        history.add(true, 0, grade);
+                    } else if (day != lastDay[0]) {
+                        history.add(false, (float) (day - lastDay[0]), grade);
+                    } else {
+                        return;
+                    }
+                    lastWord[0] = wordId;
+                    lastDay[0] = day;
+                }));
+        return history;
+    }
+
+    /**
+     * Struct-of-arrays review log
+     */
+    static final class History {
+        boolean[] first = new boolean[1024]; // first review of a word
+        float[] elapsed = new float[1024];   // days since the previous review of the same word
+        byte[] grade = new byte[1024];       // FSRS grade 1..4
+        int size = 0;
+        int predictions = 0;                 // reviews with a prior review (the ones the loss scores)
+
+        void add(boolean isFirst, float elapsedDays, int g) {
+            if (size == first.length) {
+                int capacity = size * 2;
+                first = Arrays.copyOf(first, capacity);
+                elapsed = Arrays.copyOf(elapsed, capacity);
+                grade = Arrays.copyOf(grade, capacity);
+            }
+            first[size] = isFirst;
+            elapsed[size] = elapsedDays;
+            grade[size] = (byte) g;
+            size++;
+            if (!isFirst) {
+                predictions++;
+            }
+        }
+
+        /**
+         * Mean log-loss of the model's recall probability against whether the
+         * review was actually recalled (grade > 1)
+         */
+        double loss(double[] w) {
+            double total = 0;
+            int count = 0;
+            double s = 0, d = 0;
+            for (int i = 0; i < size; i++) {
+                int g = grade[i];
+                if (first[i]) {
+                    s = FsrsScheduler.initStability(w, g);
+                    d = FsrsScheduler.initDifficulty(w, g);
+                    continue;
+                }
+                double r = FsrsScheduler.retrievability(elapsed[i], s);
+                double p = Math.min(Math.max(r, 1e-4), 1 - 1e-4);
+                total -= g > 1 ? Math.log(p) : Math.log(1 - p);
+                count++;
+
+                double nextS = g == 1 ? FsrsScheduler.forgetStability(w, d, s, r)
+                        : FsrsScheduler.recallStability(w, d, s, r, g);
+                d = FsrsScheduler.nextDifficulty(w, d, g);
+                s = Math.min(Math.max(nextS, 0.1), 36500);
+            }
+            return count == 0 ? 0 : total / count;
+        }
+    }
+}
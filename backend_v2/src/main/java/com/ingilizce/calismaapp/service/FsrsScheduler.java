@@ -0,0 +1,163 @@
+package com.ingilizce.calismaapp.service;
+
+import com.ingilizce.calismaapp.model.ReviewState;
+import com.ingilizce.calismaapp.repository.FsrsParametersRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * FSRS-4.5 (Free Spaced Repetition Scheduler).
+ *
+ * Each word carries a stability S (days until recall probability falls to
+ * 90%) and a difficulty D (1..10). The next review is placed where the
+ * predicted recall probability reaches srs.fsrs.request-retention, so easy
+ * words drift apart much faster than with SM-2 at the same retention.
+ *
+ * The 17 model weights start from the published defaults and are refitted
+ * from review history by FsrsOptimizerJob.
+ */
+@Component
+public class FsrsScheduler implements SchedulingAlgorithm {
+
+    private static final Logger logger = LoggerFactory.getLogger(FsrsScheduler.class);
+
+    // Word'ler henüz kullanıcıya bağlı değil; parametreler varsayılan kullanıcı için tutulur
+    static final Long DEFAULT_USER_ID = 1L;
+
+    static final double[] DEFAULT_WEIGHTS = {
+            0.4872, 1.4003, 3.7145, 13.8206, 5.1618, 1.2298, 0.8975, 0.031, 1.6474,
+            0.1367, 1.0461, 2.1072, 0.0793, 0.3246, 1.587, 0.2272, 2.8755 };
+
+    static final double DECAY = -0.5;
+    static final double FACTOR = 19.0 / 81.0; // R(S, S) = 0.9
+
+    private final FsrsParametersRepository parametersRepository;
+
+    @Value("${srs.fsrs.request-retention:0.9}")
+    private double requestRetention;
+
+    @Value("${srs.fsrs.maximum-interval:36500}")
+    private int maximumInterval;
+
+    private volatile double[] weights = DEFAULT_WEIGHTS.clone();
+
+    public FsrsScheduler(FsrsParametersRepository parametersRepository) {
+        this.parametersRepository = parametersRepository;
+    }
+
+    @PostConstruct
+    void loadWeights() {
+        try {
+            parametersRepository.findByUserId(DEFAULT_USER_ID).ifPresent(p -> {
+                double[] stored = p.getWeightArray();
+                if (stored.length == DEFAULT_WEIGHTS.length) {
+                    weights = stored;
+                    logger.info("Loaded fitted FSRS weights ({} reviews)", p.getTrainedOnReviews());
+                }
+            });
+        } catch (Exception e) {
+            logger.warn("Could not load FSRS weights, using defaults: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public String name() {
+        return "fsrs";
+    }
+
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    public void setWeights(double[] weights) {
+        this.weights = weights.clone();
+    }
+
+    @Override
+    public ReviewState schedule(ReviewState current, int quality, LocalDate reviewedOn) {
+        double[] w = weights;
+        int grade = gradeOf(quality);
+
+        double stability;
+        double difficulty;
+        if (current.reviewCount() == 0) {
+            stability = initStability(w, grade);
+            difficulty = initDifficulty(w, grade);
+        } else {
+            // Words last scheduled by SM-2 have no FSRS state yet: derive it from the SM-2 one
+            double s = current.stability() != null ? current.stability()
+                    : Math.max(0.1, current.scheduledIntervalDays());
+            double d = current.difficulty() != null ? current.difficulty()
+                    : clampDifficulty(10 - (current.easeFactor() - 1.3) * 5);
+            long elapsed = current.lastReviewDate() != null
+                    ? Math.max(0, reviewedOn.toEpochDay() - current.lastReviewDate().toEpochDay())
+                    : Math.round(s);
+            double r = retrievability(elapsed, s);
+
+            stability = grade == 1 ? forgetStability(w, d, s, r) : recallStability(w, d, s, r, grade);
+            difficulty = nextDifficulty(w, d, grade);
+        }
+
+        long interval = Math.round(stability / FACTOR * (Math.pow(requestRetention, 1 / DECAY) - 1));
+        interval = Math.max(1, Math.min(maximumInterval, interval));
+
+        // EF is still maintained so the review queue can order by it
+        double easeFactor = Sm2Scheduler.nextEaseFactor(current.easeFactor(), quality);
+        return new ReviewState(current.reviewCount() + 1, easeFactor, round(stability), round(difficulty),
+                reviewedOn, reviewedOn.plusDays(interval));
+    }
+
+    /**
+     * SM-2 quality 0-5 to FSRS grade: 1 again, 2 hard, 3 good, 4 easy
+     */
+    static int gradeOf(int quality) {
+        if (quality <= 2) {
+            return 1;
+        }
+        return quality - 1;
+    }
+
+    static double retrievability(double elapsedDays, double stability) {
+        return Math.pow(1 + FACTOR * elapsedDays / stability, DECAY);
+    }
+
+    static double initStability(double[] w, int grade) {
+        return Math.max(w[grade - 1], 0.1);
+    }
+
+    static double initDifficulty(double[] w, int grade) {
+        return clampDifficulty(w[4] - (grade - 3) * w[5]);
+    }
+
+    static double nextDifficulty(double[] w, double difficulty, int grade) {
+        double next = difficulty - w[6] * (grade - 3);
+        // Mean reversion towards the initial "good" difficulty
+        return clampDifficulty(w[7] * initDifficulty(w, 3) + (1 - w[7]) * next);
+    }
+
+    static double recallStability(double[] w, double d, double s, double r, int grade) {
+        double hardPenalty = grade == 2 ? w[15] : 1;
+        double easyBonus = grade == 4 ? w[16] : 1;
+        return s * (1 + Math.exp(w[8]) * (11 - d) * Math.pow(s, -w[9]) * (Math.exp((1 - r) * w[10]) - 1)
+                * hardPenalty * easyBonus);
+    }
+
+    static double forgetStability(double[] w, double d, double s, double r) {
+        double next = w[11] * Math.pow(d, -w[12]) * (Math.pow(s + 1, w[13]) - 1) * Math.exp((1 - r) * w[14]);
+        // FSRS-4.5: a lapse never leaves the memory more stable than before it
+        return Math.max(0.1, Math.min(next, s));
+    }
+
+    private static double clampDifficulty(double d) {
+        return Math.max(1, Math.min(10, d));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10000.0) / 10000.0;
+    }
+}
@@ -4,12 +4,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Groq AI ile gramer kontrolü servisi
@@ -25,6 +33,22 @@ public class GrammarCheckService {
     private final ObjectMapper objectMapper;
     private boolean enabled = true;
 
+    private static final String MODE_FAN_OUT = "fan-out";
+    private static final String MODE_SINGLE_PROMPT = "single-prompt";
+
+    @Value("${grammar.batch.mode:fan-out}")
+    private String batchMode;
+
+    @Value("${grammar.batch.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Value("${grammar.batch.deadline-ms:15000}")
+    private long deadlineMs;
+
+    private final LatencyStats fanOutStats = new LatencyStats();
+    private final LatencyStats singlePromptStats = new LatencyStats();
+    private final AtomicLong fanOutTimeouts = new AtomicLong();
+
     @Autowired
     public GrammarCheckService(GroqService groqService) {
         this.groqService = groqService;
@@ -37,86 +61,279 @@ public class GrammarCheckService {
     }
 
     /**
-     * Bir cümlenin gramerini kontrol eder
+     * Bir cümlenin gramerini kontrol eder (blocking)
      * 
      * @param sentence Kontrol edilecek cümle
      * @return Gramer hataları listesi
      */
     public Map<String, Object> checkGrammar(String sentence) {
+        try {
+            return checkGrammarAsync(sentence).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Grammar Check Failed: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Bir cümlenin gramerini kontrol eder, Groq cevabını beklerken thread tutmaz
+     * 
+     * @param sentence Kontrol edilecek cümle
+     * @return Gramer hataları listesi
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Map<String, Object>> checkGrammarAsync(String sentence) {
         logger.info("📝 Check Grammar Request: '{}'", sentence);
 
         if (!enabled || sentence == null || sentence.trim().isEmpty()) {
-            return createNoErrorResponse();
+            return CompletableFuture.completedFuture(createNoErrorResponse());
         }
 
+        // Groq API çağrısı
+        logger.info("🚀 Calling Groq API...");
+        return groqService.chatCompletionAsync(buildMessages(sentence), true)
+                .handle((jsonResponse, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        logger.error("❌ Error checking grammar with Groq: {}", cause.getMessage(), cause);
+                        throw new RuntimeException("Grammar Check Failed: " + cause.getMessage());
+                    }
+                    logger.info("📩 Groq Response received (Length: {})",
+                            jsonResponse != null ? jsonResponse.length() : "NULL");
+
+                    if (jsonResponse == null) {
+                        return createNoErrorResponse();
+                    }
+                    try {
+                        return (Map<String, Object>) objectMapper.readValue(jsonResponse, Map.class);
+                    } catch (Exception e) {
+                        logger.error("❌ Error checking grammar with Groq: {}", e.getMessage(), e);
+                        throw new RuntimeException("Grammar Check Failed: " + e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Birden fazla cümlenin gramerini kontrol eder (blocking)
+     */
+    public Map<String, List<Map<String, Object>>> checkMultipleSentences(List<String> sentences) {
         try {
-            // Prompt hazırlama
-            String prompt = String.format(
-                    "You are an expert English grammar checker. Analyze the following sentence for grammar, spelling, punctuation, and style errors.\n\n"
-                            +
-                            "Sentence: \"%s\"\n\n" +
-                            "Return ONLY a valid JSON object with this exact structure (no markdown, no explanations outside JSON):\n"
-                            +
-                            "{\n" +
-                            "  \"hasErrors\": boolean,\n" +
-                            "  \"errors\": [\n" +
-                            "    {\n" +
-                            "      \"message\": \"Detailed explanation of the error\",\n" +
-                            "      \"shortMessage\": \"Short error name (e.g. 'Wrong Verb Form')\",\n" +
-                            "      \"fromPos\": int (0-based start index of the error in the original sentence),\n" +
-                            "      \"toPos\": int (0-based end index of the error),\n" +
-                            "      \"suggestions\": [\"suggestion1\", \"suggestion2\"]\n" +
-                            "    }\n" +
-                            "  ],\n" +
-                            "  \"errorCount\": int\n" +
-                            "}\n\n" +
-                            "If there are no errors, set hasErrors to false, errors to [], and errorCount to 0.\n" +
-                            "Ensure fromPos and toPos are accurate character indices.",
-                    sentence.replace("\"", "\\\""));
-
-            List<Map<String, String>> messages = new ArrayList<>();
-            Map<String, String> userMessage = new HashMap<>();
-            userMessage.put("role", "user");
-            userMessage.put("content", prompt);
-            messages.add(userMessage);
-
-            // Groq API çağrısı
-            logger.info("🚀 Calling Groq API...");
-            String jsonResponse = groqService.chatCompletion(messages, true);
-            logger.info("📩 Groq Response received (Length: {})",
-                    jsonResponse != null ? jsonResponse.length() : "NULL");
-
-            if (jsonResponse != null) {
-                return objectMapper.readValue(jsonResponse, Map.class);
+            return checkMultipleSentencesAsync(sentences).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
+            throw new RuntimeException("Grammar Check Failed: " + e.getCause().getMessage());
+        }
+    }
 
-        } catch (Exception e) {
-            logger.error("❌ Error checking grammar with Groq: {}", e.getMessage(), e);
-            throw new RuntimeException("Grammar Check Failed: " + e.getMessage());
+    /**
+     * Birden fazla cümlenin gramerini kontrol eder. grammar.batch.mode ile seçilir:
+     * "fan-out" her cümle için ayrı çağrıyı sınırlı eşzamanlılıkla paralel yapar,
+     * "single-prompt" tüm cümleleri tek bir yapılandırılmış istekte gönderir.
+     */
+    public CompletableFuture<Map<String, List<Map<String, Object>>>> checkMultipleSentencesAsync(
+            List<String> sentences) {
+        if (!enabled || sentences == null || sentences.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
         }
 
-        return createNoErrorResponse();
+        boolean singlePrompt = MODE_SINGLE_PROMPT.equalsIgnoreCase(batchMode);
+        LatencyStats stats = singlePrompt ? singlePromptStats : fanOutStats;
+        long start = System.nanoTime();
+
+        CompletableFuture<Map<String, List<Map<String, Object>>>> result = singlePrompt
+                ? checkSinglePrompt(sentences)
+                : checkFanOut(sentences);
+
+        return result.whenComplete((r, e) -> stats.record(System.nanoTime() - start, e != null));
     }
 
     /**
-     * Birden fazla cümlenin gramerini kontrol eder
+     * En fazla maxConcurrency cümle aynı anda Groq'ta olur; biten her "lane" sıradaki
+     * cümleyi alır. Süresi (deadlineMs) dolan cümle hatasız sayılır, batch'i düşürmez.
+     */
+    private CompletableFuture<Map<String, List<Map<String, Object>>>> checkFanOut(List<String> sentences) {
+        Map<String, List<Map<String, Object>>> results = new ConcurrentHashMap<>();
+        AtomicInteger next = new AtomicInteger();
+
+        int lanes = Math.max(1, Math.min(maxConcurrency, sentences.size()));
+        CompletableFuture<?>[] running = new CompletableFuture<?>[lanes];
+        for (int i = 0; i < lanes; i++) {
+            running[i] = runLane(sentences, next, results);
+        }
+
+        return CompletableFuture.allOf(running).thenApply(ignored -> new HashMap<>(results));
+    }
+
+    private CompletableFuture<Void> runLane(List<String> sentences, AtomicInteger next,
+            Map<String, List<Map<String, Object>>> results) {
+        int index = next.getAndIncrement();
+        if (index >= sentences.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String sentence = sentences.get(index);
+
+        return checkGrammarAsync(sentence)
+                .orTimeout(deadlineMs, TimeUnit.MILLISECONDS)
+                .handle((checkResult, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        if (cause instanceof TimeoutException) {
+                            fanOutTimeouts.incrementAndGet();
+                            logger.warn("⏱️ Grammar check exceeded {} ms, skipping: '{}'", deadlineMs, sentence);
+                        } else {
+                            logger.warn("Grammar check failed for '{}': {}", sentence, cause.getMessage());
+                        }
+                        return null;
+                    }
+                    collectErrors(results, sentence, checkResult);
+                    return null;
+                })
+                .thenCompose(ignored -> runLane(sentences, next, results));
+    }
+
+    /**
+     * Tek istekte numaralı cümle listesi gönderir, cevaptaki "results" dizisini
+     * index üzerinden cümlelere geri eşler
      */
     @SuppressWarnings("unchecked")
-    public Map<String, List<Map<String, Object>>> checkMultipleSentences(List<String> sentences) {
-        Map<String, List<Map<String, Object>>> results = new HashMap<>();
-
-        for (String sentence : sentences) {
-            Map<String, Object> checkResult = checkGrammar(sentence);
-            Object errorsObj = checkResult.get("errors");
-            if (errorsObj instanceof List) {
-                List<Map<String, Object>> errors = (List<Map<String, Object>>) errorsObj;
-                if (errors != null && !errors.isEmpty()) {
-                    results.put(sentence, errors);
-                }
+    private CompletableFuture<Map<String, List<Map<String, Object>>>> checkSinglePrompt(List<String> sentences) {
+        return groqService.chatCompletionAsync(buildBatchMessages(sentences), true)
+                .orTimeout(deadlineMs, TimeUnit.MILLISECONDS)
+                .thenApply(jsonResponse -> {
+                    Map<String, List<Map<String, Object>>> results = new HashMap<>();
+                    if (jsonResponse == null) {
+                        return results;
+                    }
+                    try {
+                        Map<String, Object> parsed = objectMapper.readValue(jsonResponse, Map.class);
+                        Object resultsObj = parsed.get("results");
+                        if (!(resultsObj instanceof List)) {
+                            throw new RuntimeException("Missing 'results' array");
+                        }
+                        for (Object item : (List<Object>) resultsObj) {
+                            if (!(item instanceof Map)) {
+                                continue;
+                            }
+                            Map<String, Object> entry = (Map<String, Object>) item;
+                            Object indexObj = entry.get("index");
+                            if (!(indexObj instanceof Number)) {
+                                continue;
+                            }
+                            int index = ((Number) indexObj).intValue();
+                            if (index >= 0 && index < sentences.size()) {
+                                collectErrors(results, sentences.get(index), entry);
+                            }
+                        }
+                        return results;
+                    } catch (Exception e) {
+                        logger.error("❌ Error parsing batch grammar response: {}", e.getMessage(), e);
+                        throw new RuntimeException("Grammar Check Failed: " + e.getMessage());
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collectErrors(Map<String, List<Map<String, Object>>> results, String sentence,
+            Map<String, Object> checkResult) {
+        Object errorsObj = checkResult.get("errors");
+        if (errorsObj instanceof List) {
+            List<Map<String, Object>> errors = (List<Map<String, Object>>) errorsObj;
+            if (errors != null && !errors.isEmpty()) {
+                results.put(sentence, errors);
             }
         }
+    }
+
+    /**
+     * Batch latency metrics per mode
+     */
+    public Map<String, Object> getBatchStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("mode", batchMode);
+        stats.put("maxConcurrency", maxConcurrency);
+        stats.put("deadlineMs", deadlineMs);
+        Map<String, Object> fanOut = fanOutStats.toMap();
+        fanOut.put("sentenceTimeouts", fanOutTimeouts.get());
+        stats.put(MODE_FAN_OUT, fanOut);
+        stats.put(MODE_SINGLE_PROMPT, singlePromptStats.toMap());
+        return stats;
+    }
+
+    private List<Map<String, String>> buildBatchMessages(List<String> sentences) {
+        StringBuilder numbered = new StringBuilder();
+        for (int i = 0; i < sentences.size(); i++) {
+            numbered.append(i).append(". \"").append(sentences.get(i).replace("\"", "\\\"")).append("\"\n");
+        }
+
+        String prompt = "You are an expert English grammar checker. Analyze EACH of the following numbered sentences "
+                + "independently for grammar, spelling, punctuation, and style errors.\n\n"
+                + numbered
+                + "\nReturn ONLY a valid JSON object with this exact structure (no markdown, no explanations outside JSON):\n"
+                + "{\n"
+                + "  \"results\": [\n"
+                + "    {\n"
+                + "      \"index\": int (the sentence number above),\n"
+                + "      \"hasErrors\": boolean,\n"
+                + "      \"errors\": [\n"
+                + "        {\n"
+                + "          \"message\": \"Detailed explanation of the error\",\n"
+                + "          \"shortMessage\": \"Short error name (e.g. 'Wrong Verb Form')\",\n"
+                + "          \"fromPos\": int (0-based start index of the error in that sentence),\n"
+                + "          \"toPos\": int (0-based end index of the error),\n"
+                + "          \"suggestions\": [\"suggestion1\", \"suggestion2\"]\n"
+                + "        }\n"
+                + "      ],\n"
+                + "      \"errorCount\": int\n"
+                + "    }\n"
+                + "  ]\n"
+                + "}\n\n"
+                + "Include exactly one entry per sentence. If a sentence has no errors, set hasErrors to false, "
+                + "errors to [], and errorCount to 0.\n"
+                + "Ensure fromPos and toPos are accurate character indices within that sentence.";
+
+        List<Map<String, String>> messages = new ArrayList<>();
+        Map<String, String> userMessage = new HashMap<>();
+        userMessage.put("role", "user");
+        userMessage.put("content", prompt);
+        messages.add(userMessage);
+        return messages;
+    }
+
+    private List<Map<String, String>> buildMessages(String sentence) {
+        // Prompt hazırlama
+        String prompt = String.format(
+                "You are an expert English grammar checker. Analyze the following sentence for grammar, spelling, punctuation, and style errors.\n\n"
+                        +
+                        "Sentence: \"%s\"\n\n" +
+                        "Return ONLY a valid JSON object with this exact structure (no markdown, no explanations outside JSON):\n"
+                        +
+                        "{\n" +
+                        "  \"hasErrors\": boolean,\n" +
+                        "  \"errors\": [\n" +
+                        "    {\n" +
+                        "      \"message\": \"Detailed explanation of the error\",\n" +
+                        "      \"shortMessage\": \"Short error name (e.g. 'Wrong Verb Form')\",\n" +
+                        "      \"fromPos\": int (0-based start index of the error in the original sentence),\n" +
+                        "      \"toPos\": int (0-based end index of the error),\n" +
+                        "      \"suggestions\": [\"suggestion1\", \"suggestion2\"]\n" +
+                        "    }\n" +
+                        "  ],\n" +
+                        "  \"errorCount\": int\n" +
+                        "}\n\n" +
+                        "If there are no errors, set hasErrors to false, errors to [], and errorCount to 0.\n" +
+                        "Ensure fromPos and toPos are accurate character indices.",
+                sentence.replace("\"", "\\\""));
 
-        return results;
+        List<Map<String, String>> messages = new ArrayList<>();
+        Map<String, String> userMessage = new HashMap<>();
+        userMessage.put("role", "user");
+        userMessage.put("content", prompt);
+        messages.add(userMessage);
+        return messages;
     }
 
     private Map<String, Object> createNoErrorResponse() {
@@ -134,4 +351,29 @@ public class GrammarCheckService {
     public boolean isEnabled() {
         return enabled;
     }
+
+    private static class LatencyStats {
+        private long count;
+        private long failures;
+        private long totalNanos;
+        private long maxNanos;
+
+        synchronized void record(long nanos, boolean failed) {
+            count++;
+            if (failed) {
+                failures++;
+            }
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        synchronized Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("batches", count);
+            map.put("failures", failures);
+            map.put("avgMs", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos / count));
+            map.put("maxMs", TimeUnit.NANOSECONDS.toMillis(maxNanos));
+            return map;
+        }
+    }
 }
@@ -0,0 +1,110 @@
+package com.ingilizce.calismaapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Circuit breaker for Groq calls.
+ *
+ * CLOSED: calls pass, consecutive failures are counted. After failureThreshold
+ * failures the breaker OPENs and calls fail fast for openDurationMs. Then a
+ * single probe is let through (HALF_OPEN): success closes the breaker, failure
+ * opens it again.
+ */
+public class GroqCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroqCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openUntil = 0;
+    private boolean probeInFlight = false;
+
+    private long timesOpened = 0;
+    private long rejected = 0;
+
+    public GroqCircuitBreaker(int failureThreshold, long openDurationMs) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+
+    /**
+     * @return true if the call may proceed; the caller must then report
+     *         onSuccess, onFailure or onIgnored exactly once
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() >= openUntil) {
+                    state = State.HALF_OPEN;
+                    probeInFlight = true;
+                    logger.info("Groq circuit half-open, sending probe");
+                    return true;
+                }
+                rejected++;
+                return false;
+            default: // HALF_OPEN
+                if (!probeInFlight) {
+                    probeInFlight = true;
+                    return true;
+                }
+                rejected++;
+                return false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        if (state != State.CLOSED) {
+            logger.info("Groq circuit closed");
+            state = State.CLOSED;
+        }
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                timesOpened++;
+                logger.warn("Groq circuit opened after {} consecutive failures", consecutiveFailures);
+            }
+            state = State.OPEN;
+            openUntil = System.currentTimeMillis() + openDurationMs;
+        }
+    }
+
+    /**
+     * The permitted call never reached Groq (e.g. shed by the rate limiter)
+     */
+    public synchronized void onIgnored() {
+        probeInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("state", state.name());
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("timesOpened", timesOpened);
+        stats.put("rejected", rejected);
+        stats.put("openForMs", state == State.OPEN ? Math.max(0, openUntil - System.currentTimeMillis()) : 0);
+        return stats;
+    }
+}
@@ -0,0 +1,298 @@
+package com.ingilizce.calismaapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpHeaders;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Client-side token bucket in front of Groq.
+ *
+ * The refill rate starts at the configured requests-per-minute and adapts to
+ * what Groq reports: it is clamped by x-ratelimit-remaining-requests /
+ * x-ratelimit-reset-requests, halved on every 429 and slowly restored on
+ * success. retry-after and an exhausted token budget
+ * (x-ratelimit-remaining-tokens) pause the bucket until the reset time.
+ *
+ * Waiters are queued per priority. INTERACTIVE is always served first;
+ * BACKGROUND only gets a permit while more than backgroundReserve of the
+ * bucket is left, so refill jobs never eat the headroom of live users.
+ */
+public class GroqRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroqRateLimiter.class);
+
+    // Groq reset durations look like "2m59.56s", "7.66s" or "350ms"
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    public enum Priority {
+        INTERACTIVE, BACKGROUND
+    }
+
+    private final double capacity;
+    private final double maxRatePerMs;
+    private final double minRatePerMs;
+    private final double backgroundReserve;
+    private final int maxQueue;
+    private final long minRemainingTokens;
+
+    private double ratePerMs;
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil = 0;
+
+    private final Deque<CompletableFuture<Void>> interactive = new ArrayDeque<>();
+    private final Deque<CompletableFuture<Void>> background = new ArrayDeque<>();
+    private boolean drainScheduled = false;
+
+    private long granted = 0;
+    private long rejected = 0;
+    private long throttled = 0;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "groq-rate-limiter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param requestsPerMinute  steady-state rate (and the ceiling for adaptation)
+     * @param burst              bucket capacity
+     * @param backgroundReserve  fraction of the bucket reserved for INTERACTIVE
+     * @param maxQueue           waiters beyond this are rejected immediately
+     * @param minRemainingTokens pause when Groq's remaining token budget drops below this
+     */
+    public GroqRateLimiter(int requestsPerMinute, int burst, double backgroundReserve, int maxQueue,
+            long minRemainingTokens) {
+        this.capacity = Math.max(1, burst);
+        this.maxRatePerMs = requestsPerMinute / 60_000.0;
+        this.minRatePerMs = maxRatePerMs / 10;
+        this.ratePerMs = maxRatePerMs;
+        this.backgroundReserve = backgroundReserve;
+        this.maxQueue = maxQueue;
+        this.minRemainingTokens = minRemainingTokens;
+        this.tokens = capacity;
+        this.lastRefill = System.currentTimeMillis();
+    }
+
+    /**
+     * @return future completing when a permit is granted; fails with
+     *         RejectedExecutionException when the wait queue is full.
+     *         Cancelling it gives the queue slot back without using a permit.
+     */
+    public CompletableFuture<Void> acquire(Priority priority) {
+        synchronized (this) {
+            refill();
+            boolean queueAhead = !interactive.isEmpty() || (priority == Priority.BACKGROUND && !background.isEmpty());
+            if (!queueAhead && canGrant(priority)) {
+                tokens -= 1;
+                granted++;
+                return CompletableFuture.completedFuture(null);
+            }
+            if (interactive.size() + background.size() >= maxQueue) {
+                rejected++;
+                return CompletableFuture.failedFuture(
+                        new RejectedExecutionException("Groq rate limiter queue is full"));
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            (priority == Priority.INTERACTIVE ? interactive : background).addLast(waiter);
+            scheduleDrain();
+            return waiter;
+        }
+    }
+
+    /**
+     * Adapt to Groq's rate-limit headers after every response
+     */
+    public void onResponse(int status, HttpHeaders headers) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            refill();
+            if (status == 429) {
+                throttled++;
+                ratePerMs = Math.max(minRatePerMs, ratePerMs / 2);
+                long retryAfterMs = headers.firstValue("retry-after")
+                        .map(GroqRateLimiter::parseRetryAfter).orElse(1_000L);
+                pausedUntil = Math.max(pausedUntil, now + retryAfterMs);
+                tokens = Math.min(tokens, 0);
+                logger.warn("Groq throttled us, pausing {} ms (rate now {}/min)", retryAfterMs,
+                        Math.round(ratePerMs * 60_000));
+            } else if (status >= 200 && status < 300) {
+                // Additive recovery towards the configured ceiling
+                ratePerMs = Math.min(maxRatePerMs, ratePerMs + maxRatePerMs / 20);
+            }
+
+            Optional<Long> remainingRequests = headers.firstValue("x-ratelimit-remaining-requests")
+                    .flatMap(GroqRateLimiter::parseLong);
+            Optional<Long> resetRequests = headers.firstValue("x-ratelimit-reset-requests")
+                    .map(GroqRateLimiter::parseDurationMs);
+            if (remainingRequests.isPresent()) {
+                tokens = Math.min(tokens, remainingRequests.get());
+                if (resetRequests.isPresent() && resetRequests.get() > 0) {
+                    if (remainingRequests.get() == 0) {
+                        pausedUntil = Math.max(pausedUntil, now + resetRequests.get());
+                    } else {
+                        ratePerMs = Math.min(ratePerMs, (double) remainingRequests.get() / resetRequests.get());
+                        ratePerMs = Math.max(ratePerMs, minRatePerMs);
+                    }
+                }
+            }
+
+            Optional<Long> remainingTokens = headers.firstValue("x-ratelimit-remaining-tokens")
+                    .flatMap(GroqRateLimiter::parseLong);
+            if (remainingTokens.isPresent() && remainingTokens.get() < minRemainingTokens) {
+                long resetMs = headers.firstValue("x-ratelimit-reset-tokens")
+                        .map(GroqRateLimiter::parseDurationMs).orElse(1_000L);
+                pausedUntil = Math.max(pausedUntil, now + resetMs);
+            }
+        }
+        drain();
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        refill();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("availablePermits", Math.floor(tokens * 100) / 100);
+        stats.put("capacity", capacity);
+        stats.put("occupancy", Math.round((1 - Math.max(0, tokens) / capacity) * 100) / 100.0);
+        stats.put("requestsPerMinute", Math.round(ratePerMs * 60_000));
+        stats.put("waitingInteractive", interactive.size());
+        stats.put("waitingBackground", background.size());
+        stats.put("granted", granted);
+        stats.put("rejected", rejected);
+        stats.put("throttled", throttled);
+        stats.put("pausedForMs", Math.max(0, pausedUntil - System.currentTimeMillis()));
+        return stats;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        synchronized (this) {
+            for (CompletableFuture<Void> waiter : interactive) {
+                waiter.completeExceptionally(new RejectedExecutionException("Groq rate limiter is shutting down"));
+            }
+            for (CompletableFuture<Void> waiter : background) {
+                waiter.completeExceptionally(new RejectedExecutionException("Groq rate limiter is shutting down"));
+            }
+            interactive.clear();
+            background.clear();
+        }
+    }
+
+    private void drain() {
+        List<CompletableFuture<Void>> ready = new ArrayList<>();
+        synchronized (this) {
+            drainScheduled = false;
+            refill();
+            // Waiters cancelled by their caller (e.g. a closed stream) give their slot back
+            purgeDone(interactive);
+            purgeDone(background);
+
+            while (!interactive.isEmpty() && canGrant(Priority.INTERACTIVE)) {
+                tokens -= 1;
+                granted++;
+                ready.add(interactive.pollFirst());
+            }
+            while (interactive.isEmpty() && !background.isEmpty() && canGrant(Priority.BACKGROUND)) {
+                tokens -= 1;
+                granted++;
+                ready.add(background.pollFirst());
+            }
+            if (!interactive.isEmpty() || !background.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+        // Complete outside the lock: dependent stages start HTTP requests
+        for (CompletableFuture<Void> waiter : ready) {
+            waiter.complete(null);
+        }
+    }
+
+    // Caller holds the monitor
+    private void scheduleDrain() {
+        if (drainScheduled) {
+            return;
+        }
+        drainScheduled = true;
+        long now = System.currentTimeMillis();
+        double needed = (interactive.isEmpty() ? 1 + capacity * backgroundReserve : 1) - tokens;
+        long untilToken = needed <= 0 ? 0 : (long) Math.ceil(needed / ratePerMs);
+        long delay = Math.max(Math.max(pausedUntil - now, untilToken), 10);
+        try {
+            scheduler.schedule(this::drain, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            drainScheduled = false;
+        }
+    }
+
+    // Caller holds the monitor
+    private void refill() {
+        long now = System.currentTimeMillis();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerMs);
+        lastRefill = now;
+    }
+
+    // Caller holds the monitor
+    private boolean canGrant(Priority priority) {
+        if (System.currentTimeMillis() < pausedUntil) {
+            return false;
+        }
+        double reserve = priority == Priority.BACKGROUND ? capacity * backgroundReserve : 0;
+        return tokens >= 1 + reserve;
+    }
+
+    private static void purgeDone(Deque<CompletableFuture<Void>> queue) {
+        Iterator<CompletableFuture<Void>> it = queue.iterator();
+        while (it.hasNext()) {
+            if (it.next().isDone()) {
+                it.remove();
+            }
+        }
+    }
+
+    private static Optional<Long> parseLong(String value) {
+        try {
+            return Optional.of(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static long parseRetryAfter(String value) {
+        try {
+            return (long) (Double.parseDouble(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            return parseDurationMs(value);
+        }
+    }
+
+    static long parseDurationMs(String value) {
+        Matcher matcher = DURATION_PART.matcher(value.trim());
+        double total = 0;
+        while (matcher.find()) {
+            double amount = Double.parseDouble(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "h" -> total += amount * 3_600_000;
+                case "m" -> total += amount * 60_000;
+                case "s" -> total += amount * 1_000;
+                default -> total += amount;
+            }
+        }
+        return (long) Math.ceil(total);
+    }
+}
@@ -1,20 +1,36 @@
 package com.ingilizce.calismaapp.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.ArrayList;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Service
 public class GroqService {
@@ -30,22 +46,90 @@ public class GroqService {
     @Value("${groq.api.model}")
     private String model;
 
-    private final RestTemplate restTemplate;
+    @Value("${groq.api.timeout-seconds:60}")
+    private long timeoutSeconds;
+
+    @Value("${groq.limiter.requests-per-minute:30}")
+    private int requestsPerMinute;
+
+    @Value("${groq.limiter.burst:10}")
+    private int limiterBurst;
+
+    @Value("${groq.limiter.background-reserve:0.5}")
+    private double backgroundReserve;
+
+    @Value("${groq.limiter.max-queue:200}")
+    private int limiterMaxQueue;
+
+    @Value("${groq.limiter.min-remaining-tokens:1000}")
+    private long minRemainingTokens;
+
+    @Value("${groq.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${groq.breaker.open-ms:30000}")
+    private long breakerOpenMs;
+
+    @Value("${groq.retry.max-attempts:3}")
+    private int retryMaxAttempts;
+
+    @Value("${groq.retry.base-delay-ms:500}")
+    private long retryBaseDelayMs;
+
+    @Value("${groq.retry.max-delay-ms:8000}")
+    private long retryMaxDelayMs;
+
+    @Value("${groq.retry.budget-ratio:0.2}")
+    private double retryBudgetRatio;
+
+    @Value("${groq.retry.budget-max:10}")
+    private double retryBudgetMax;
+
+    // Shared client: pools HTTP/2 connections and keeps TLS sessions alive across calls
+    private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
 
+    // Single-flight: request key -> shared upstream call
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong issuedRequests = new AtomicLong();
+    private final AtomicLong coalescedRequests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    // Streams are never retried; their failures are counted here instead
+    private final AtomicLong streamFailures = new AtomicLong();
+
+    private GroqRateLimiter rateLimiter;
+    private GroqCircuitBreaker circuitBreaker;
+    private RetryBudget retryBudget;
+
     public GroqService() {
         this.objectMapper = new ObjectMapper();
-        this.restTemplate = createInsecureRestTemplate();
-        logger.info("GroqService initialized with SSL-bypassing RestTemplate");
+        this.httpClient = createInsecureHttpClient();
+        logger.info("GroqService initialized with pooled HTTP/2 client");
     }
 
-    private RestTemplate createInsecureRestTemplate() {
+    @PostConstruct
+    void initResilience() {
+        rateLimiter = new GroqRateLimiter(requestsPerMinute, limiterBurst, backgroundReserve, limiterMaxQueue,
+                minRemainingTokens);
+        circuitBreaker = new GroqCircuitBreaker(breakerFailureThreshold, breakerOpenMs);
+        retryBudget = new RetryBudget(retryBudgetRatio, retryBudgetMax);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rateLimiter.shutdown();
+    }
+
+    private HttpClient createInsecureHttpClient() {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(10));
         try {
             // Trust all certificates
             javax.net.ssl.TrustManager[] trustAllCerts = new javax.net.ssl.TrustManager[] {
                     new javax.net.ssl.X509TrustManager() {
                         public java.security.cert.X509Certificate[] getAcceptedIssuers() {
-                            return null;
+                            return new java.security.cert.X509Certificate[0];
                         }
 
                         public void checkClientTrusted(
@@ -58,86 +142,512 @@ public class GroqService {
                     }
             };
 
-            // Install the all-trusting trust manager
             javax.net.ssl.SSLContext sc = javax.net.ssl.SSLContext.getInstance("TLS");
             sc.init(null, trustAllCerts, new java.security.SecureRandom());
-
-            org.springframework.http.client.SimpleClientHttpRequestFactory factory = new org.springframework.http.client.SimpleClientHttpRequestFactory() {
-                @Override
-                protected java.net.HttpURLConnection openConnection(java.net.URL url, java.net.Proxy proxy)
-                        throws java.io.IOException {
-                    java.net.HttpURLConnection connection = super.openConnection(url, proxy);
-                    if (connection instanceof javax.net.ssl.HttpsURLConnection) {
-                        ((javax.net.ssl.HttpsURLConnection) connection).setSSLSocketFactory(sc.getSocketFactory());
-                        ((javax.net.ssl.HttpsURLConnection) connection)
-                                .setHostnameVerifier((hostname, session) -> true);
-                    }
-                    return connection;
-                }
-            };
-
-            factory.setConnectTimeout(60000); // 60 seconds
-            factory.setReadTimeout(60000); // 60 seconds
-
-            return new RestTemplate(factory);
+            builder.sslContext(sc);
         } catch (Exception e) {
-            logger.error("Failed to create SSL bypassing RestTemplate", e);
-            return new RestTemplate();
+            logger.error("Failed to create SSL bypassing context, using default", e);
         }
+        return builder.build();
     }
 
     /**
-     * Send a completion request to Groq API
-     * 
+     * Send a completion request to Groq API (blocking)
+     *
      * @param messages     List of messages (role, content)
      * @param jsonResponse If true, enforces JSON object response format
      * @return Content string from the response
      */
     public String chatCompletion(List<Map<String, String>> messages, boolean jsonResponse) {
-        logger.info("Groq Request - Model: {}, URL: {}, Key present: {}", model, apiUrl,
-                (apiKey != null && !apiKey.isEmpty()));
+        try {
+            return chatCompletionAsync(messages, jsonResponse).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof TimeoutException) {
+                throw new RuntimeException("Failed to communicate with AI service: timed out after "
+                        + timeoutSeconds + "s");
+            }
+            throw new RuntimeException("Failed to communicate with AI service: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Send a completion request to Groq API without holding the calling thread.
+     *
+     * Identical concurrent requests (same model, messages and format) share one
+     * upstream call; each caller gets its own copy of the result with its own
+     * timeout, so one caller giving up does not affect the others.
+     *
+     * @param messages     List of messages (role, content)
+     * @param jsonResponse If true, enforces JSON object response format
+     * @return Future completing with the content string from the response
+     */
+    public CompletableFuture<String> chatCompletionAsync(List<Map<String, String>> messages, boolean jsonResponse) {
+        return chatCompletionAsync(messages, jsonResponse, GroqRateLimiter.Priority.INTERACTIVE);
+    }
+
+    /**
+     * @param priority BACKGROUND calls (sentence bank refill) only get a rate
+     *                 limiter permit while interactive headroom is left
+     */
+    public CompletableFuture<String> chatCompletionAsync(List<Map<String, String>> messages, boolean jsonResponse,
+            GroqRateLimiter.Priority priority) {
+        return chatCompletionAsync(messages, jsonResponse, priority, Duration.ofSeconds(timeoutSeconds));
+    }
+
+    public CompletableFuture<String> chatCompletionAsync(List<Map<String, String>> messages, boolean jsonResponse,
+            GroqRateLimiter.Priority priority, Duration callerTimeout) {
+        String key;
+        try {
+            key = requestKey(messages, jsonResponse, priority);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(
+                    new RuntimeException("Failed to communicate with AI service: " + e.getMessage()));
+        }
+
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> shared = inFlight.putIfAbsent(key, created);
+        if (shared != null) {
+            coalescedRequests.incrementAndGet();
+            logger.debug("Groq request coalesced with an in-flight call");
+        } else {
+            shared = created;
+            issuedRequests.incrementAndGet();
+            sendChatCompletion(messages, jsonResponse, priority).whenComplete((content, error) -> {
+                // Remove before completing so late arrivals start a fresh call instead of reusing a finished one
+                inFlight.remove(key, created);
+                if (error != null) {
+                    created.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error);
+                } else {
+                    created.complete(content);
+                }
+            });
+        }
+
+        return shared.copy().orTimeout(callerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("issuedRequests", issuedRequests.get());
+        stats.put("coalescedRequests", coalescedRequests.get());
+        stats.put("inFlight", inFlight.size());
+        stats.put("rateLimiter", rateLimiter.getStats());
+        stats.put("circuitBreaker", circuitBreaker.getStats());
+
+        Map<String, Object> retryStats = retryBudget.getStats();
+        retryStats.put("retries", retries.get());
+        retryStats.put("streamFailures", streamFailures.get());
+        stats.put("retry", retryStats);
+        return stats;
+    }
 
+    private CompletableFuture<String> sendChatCompletion(List<Map<String, String>> messages, boolean jsonResponse,
+            GroqRateLimiter.Priority priority) {
+        HttpRequest request;
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiKey);
-
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", model);
-            requestBody.put("messages", messages);
-            // Pratik modunda cümle üretirken çeşitlilik için temperature yüksek olmalı
-            // JSON formatı genelde bozulmaz, gerekirse 0.6-0.8 arası iyidir
-            requestBody.put("temperature", 0.7);
-
-            if (jsonResponse) {
-                Map<String, String> responseFormat = new HashMap<>();
-                responseFormat.put("type", "json_object");
-                requestBody.put("response_format", responseFormat);
+            request = buildRequest(messages, jsonResponse);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(
+                    new RuntimeException("Failed to communicate with AI service: " + e.getMessage()));
+        }
+
+        retryBudget.onRequest();
+        CompletableFuture<String> result = new CompletableFuture<>();
+        attempt(request, priority, 1, result);
+        return result;
+    }
+
+    /**
+     * One try: circuit breaker, then a rate limiter permit, then the HTTP call.
+     * 429, 5xx and I/O errors are retried with jittered exponential backoff
+     * while the retry budget allows it.
+     */
+    private void attempt(HttpRequest request, GroqRateLimiter.Priority priority, int attempt,
+            CompletableFuture<String> result) {
+        if (!circuitBreaker.tryAcquire()) {
+            result.completeExceptionally(
+                    new GroqApiException(503, "AI service is temporarily unavailable, please try again shortly"));
+            return;
+        }
+
+        rateLimiter.acquire(priority).whenComplete((permit, limitError) -> {
+            if (limitError != null) {
+                circuitBreaker.onIgnored();
+                result.completeExceptionally(new GroqApiException(429, "AI service is busy: " + limitError.getMessage()));
+                return;
             }
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+            logger.info("Groq Request - Model: {}, URL: {}, Key present: {}, attempt: {}, priority: {}", model, apiUrl,
+                    (apiKey != null && !apiKey.isEmpty()), attempt, priority);
 
-            logger.info("Sending request to Groq...");
-            ResponseEntity<Map> response = restTemplate.postForEntity(apiUrl, entity, Map.class);
-            logger.info("Groq Response Status: {}", response.getStatusCode());
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+                RuntimeException failure;
+                boolean retryable;
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    logger.error("Error calling Groq API", cause);
+                    circuitBreaker.onFailure();
+                    failure = new RuntimeException("Failed to communicate with AI service: " + cause.getMessage());
+                    retryable = true;
+                } else {
+                    int status = response.statusCode();
+                    logger.info("Groq Response Status: {}", status);
+                    rateLimiter.onResponse(status, response.headers());
+                    // 429 and other 4xx mean Groq is up; only 5xx counts against the breaker
+                    if (status >= 500) {
+                        circuitBreaker.onFailure();
+                    } else {
+                        circuitBreaker.onSuccess();
+                    }
+                    try {
+                        result.complete(extractContent(response));
+                        return;
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    }
+                    retryable = status == 429 || status >= 500;
+                }
 
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                Map body = response.getBody();
-                List choices = (List) body.get("choices");
-                if (choices != null && !choices.isEmpty()) {
-                    Map choice = (Map) choices.get(0);
-                    Map message = (Map) choice.get("message");
-                    return (String) message.get("content");
+                if (retryable && attempt < retryMaxAttempts && retryBudget.tryWithdraw()) {
+                    long delay = backoffMs(attempt);
+                    retries.incrementAndGet();
+                    logger.warn("Retrying Groq call in {} ms (attempt {}/{})", delay, attempt + 1, retryMaxAttempts);
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                            .execute(() -> attempt(request, priority, attempt + 1, result));
+                } else {
+                    result.completeExceptionally(failure);
                 }
+            });
+        });
+    }
+
+    /**
+     * Full jitter: uniform in [0, min(max, base * 2^(attempt-1))] so retries
+     * from many callers do not land on Groq at the same instant
+     */
+    private long backoffMs(int attempt) {
+        long ceiling = Math.min(retryMaxDelayMs, retryBaseDelayMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * SHA-256 over everything that determines the completion
+     */
+    private String requestKey(List<Map<String, String>> messages, boolean jsonResponse,
+            GroqRateLimiter.Priority priority) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(model.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) (jsonResponse ? 1 : 0));
+        // An interactive call must not end up waiting behind a queued background one
+        digest.update((byte) priority.ordinal());
+        digest.update(objectMapper.writeValueAsBytes(messages));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Stream a completion (Groq "stream": true). Each content delta is passed to
+     * onToken as soon as its SSE line arrives; the next line is only requested
+     * after onToken returns, so a slow consumer slows the download instead of
+     * buffering it. If onToken throws (e.g. client went away) the HTTP exchange
+     * is cancelled.
+     *
+     * Goes through the circuit breaker and rate limiter like chatCompletionAsync,
+     * but is not retried: tokens may already have reached the client.
+     *
+     * @return handle whose completion() yields the full text
+     */
+    public GroqStream streamChatCompletion(List<Map<String, String>> messages, boolean jsonResponse,
+            Consumer<String> onToken) {
+        logger.info("Groq Stream Request - Model: {}", model);
+
+        HttpRequest request;
+        try {
+            request = buildRequest(messages, jsonResponse, true);
+        } catch (Exception e) {
+            return GroqStream.failed(new RuntimeException("Failed to communicate with AI service: " + e.getMessage()));
+        }
+
+        if (!circuitBreaker.tryAcquire()) {
+            return GroqStream.failed(
+                    new GroqApiException(503, "AI service is temporarily unavailable, please try again shortly"));
+        }
+
+        retryBudget.onRequest();
+        StreamSubscriber subscriber = new StreamSubscriber(onToken);
+        HttpResponse.BodyHandler<Void> handler = responseInfo -> {
+            rateLimiter.onResponse(responseInfo.statusCode(), responseInfo.headers());
+            if (responseInfo.statusCode() < 200 || responseInfo.statusCode() >= 300) {
+                int status = responseInfo.statusCode();
+                return HttpResponse.BodySubscribers.mapping(
+                        HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8), body -> {
+                            logger.error("Groq API Error: Status={}, Body={}", status, body);
+                            throw new GroqApiException(status, "Groq API Error: " + body);
+                        });
+            }
+            return HttpResponse.BodySubscribers.fromLineSubscriber(subscriber);
+        };
+
+        subscriber.permit = rateLimiter.acquire(GroqRateLimiter.Priority.INTERACTIVE);
+        if (subscriber.cancelled) {
+            subscriber.permit.cancel(false); // cancelled while acquire() was running
+        }
+        subscriber.permit.whenComplete((permit, limitError) -> {
+            if (subscriber.cancelled || limitError != null) {
+                circuitBreaker.onIgnored();
+                subscriber.result.completeExceptionally(subscriber.cancelled
+                        ? new RuntimeException("AI stream cancelled")
+                        : new GroqApiException(429, "AI service is busy: " + limitError.getMessage()));
+                return;
+            }
+            httpClient.sendAsync(request, handler).whenComplete((response, error) -> settle(subscriber, error));
+        });
+        return new GroqStream(subscriber.result, subscriber);
+    }
+
+    /**
+     * Record the outcome of a stream with the circuit breaker and complete it.
+     * The line subscriber's onError and the sendAsync future can both report
+     * the same failure; only the first one counts.
+     */
+    private void settle(StreamSubscriber subscriber, Throwable error) {
+        if (!subscriber.settled.compareAndSet(false, true)) {
+            return;
+        }
+        if (error == null) {
+            circuitBreaker.onSuccess();
+            subscriber.result.complete(subscriber.text.toString());
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (subscriber.cancelled) {
+            circuitBreaker.onIgnored();
+        } else if (cause instanceof GroqApiException && ((GroqApiException) cause).getStatusCode() < 500) {
+            circuitBreaker.onSuccess();
+        } else {
+            logger.error("Groq stream failed", cause);
+            circuitBreaker.onFailure();
+            streamFailures.incrementAndGet();
+        }
+        subscriber.result.completeExceptionally(cause instanceof RuntimeException ? cause
+                : new RuntimeException("Failed to communicate with AI service: " + cause.getMessage()));
+    }
+
+    private HttpRequest buildRequest(List<Map<String, String>> messages, boolean jsonResponse) throws Exception {
+        return buildRequest(messages, jsonResponse, false);
+    }
+
+    private HttpRequest buildRequest(List<Map<String, String>> messages, boolean jsonResponse, boolean stream)
+            throws Exception {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model);
+        requestBody.put("messages", messages);
+        // Pratik modunda cümle üretirken çeşitlilik için temperature yüksek olmalı
+        // JSON formatı genelde bozulmaz, gerekirse 0.6-0.8 arası iyidir
+        requestBody.put("temperature", 0.7);
+
+        if (jsonResponse) {
+            Map<String, String> responseFormat = new HashMap<>();
+            responseFormat.put("type", "json_object");
+            requestBody.put("response_format", responseFormat);
+        }
+        if (stream) {
+            requestBody.put("stream", true);
+        }
+
+        return HttpRequest.newBuilder(URI.create(apiUrl))
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + apiKey)
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(requestBody)))
+                .build();
+    }
+
+    private String extractContent(HttpResponse<String> response) {
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            logger.error("Groq API Error: Status={}, Body={}", response.statusCode(), response.body());
+            throw new GroqApiException(response.statusCode(), "Groq API Error: " + response.body());
+        }
+        try {
+            JsonNode body = objectMapper.readTree(response.body());
+            JsonNode choices = body.path("choices");
+            if (choices.isArray() && choices.size() > 0) {
+                JsonNode content = choices.get(0).path("message").path("content");
+                return content.isMissingNode() || content.isNull() ? null : content.asText();
             }
-        } catch (org.springframework.web.client.HttpClientErrorException
-                | org.springframework.web.client.HttpServerErrorException e) {
-            logger.error("Groq API Error: Status={}, Body={}", e.getStatusCode(), e.getResponseBodyAsString());
-            throw new RuntimeException("Groq API Error: " + e.getResponseBodyAsString());
         } catch (Exception e) {
-            logger.error("Error calling Groq API", e);
             throw new RuntimeException("Failed to communicate with AI service: " + e.getMessage());
         }
         return null;
     }
+
+    /**
+     * Reads Groq's SSE body one line at a time ("data: {...}" per chunk, "data: [DONE]" at the end)
+     */
+    private class StreamSubscriber implements Flow.Subscriber<String> {
+        private final Consumer<String> onToken;
+        private final StringBuilder text = new StringBuilder();
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private volatile Flow.Subscription subscription;
+        private volatile CompletableFuture<Void> permit;
+        private volatile boolean cancelled = false;
+        private final AtomicBoolean settled = new AtomicBoolean(false);
+
+        StreamSubscriber(Consumer<String> onToken) {
+            this.onToken = onToken;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                if (line.startsWith("data:")) {
+                    String data = line.substring(5).trim();
+                    if (!"[DONE]".equals(data) && !data.isEmpty()) {
+                        JsonNode delta = objectMapper.readTree(data).path("choices").path(0).path("delta");
+                        JsonNode content = delta.path("content");
+                        if (content.isTextual() && !content.asText().isEmpty()) {
+                            text.append(content.asText());
+                            onToken.accept(content.asText());
+                        }
+                    }
+                }
+                subscription.request(1);
+            } catch (Exception e) {
+                cancel();
+                result.completeExceptionally(e instanceof RuntimeException ? e
+                        : new RuntimeException("Failed to read AI stream: " + e.getMessage()));
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // Connection reset or read timeout mid-body
+            settle(this, throwable);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        void cancel() {
+            cancelled = true;
+            // Still queued for a rate limiter permit: leave the queue instead of using one later
+            CompletableFuture<Void> p = permit;
+            if (p != null) {
+                p.cancel(false);
+            }
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+    }
+
+    /**
+     * Handle to an in-flight streamed completion
+     */
+    public static class GroqStream {
+        private final CompletableFuture<String> completion;
+        private final StreamSubscriber subscriber;
+
+        private GroqStream(CompletableFuture<String> completion, StreamSubscriber subscriber) {
+            this.completion = completion;
+            this.subscriber = subscriber;
+        }
+
+        public static GroqStream completed(String text) {
+            return new GroqStream(CompletableFuture.completedFuture(text), null);
+        }
+
+        public static GroqStream failed(Throwable error) {
+            return new GroqStream(CompletableFuture.failedFuture(error), null);
+        }
+
+        public CompletableFuture<String> completion() {
+            return completion;
+        }
+
+        /**
+         * Stop reading and close the upstream exchange (client disconnected)
+         */
+        public void cancel() {
+            if (subscriber != null) {
+                subscriber.cancel();
+                subscriber.result.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Retry token bucket: every request deposits {@code ratio}, every retry
+     * withdraws one, so retries stay below ~ratio of traffic even when Groq is
+     * failing everything (no retry storms on top of an outage).
+     */
+    private static class RetryBudget {
+        private final double ratio;
+        private final double max;
+        private double balance;
+        private long exhausted = 0;
+
+        RetryBudget(double ratio, double max) {
+            this.ratio = ratio;
+            this.max = max;
+            this.balance = max;
+        }
+
+        synchronized void onRequest() {
+            balance = Math.min(max, balance + ratio);
+        }
+
+        synchronized boolean tryWithdraw() {
+            if (balance >= 1) {
+                balance -= 1;
+                return true;
+            }
+            exhausted++;
+            return false;
+        }
+
+        synchronized Map<String, Object> getStats() {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("budgetBalance", Math.floor(balance * 100) / 100);
+            stats.put("budgetExhausted", exhausted);
+            return stats;
+        }
+    }
+
+    /**
+     * Non-2xx response from Groq, keeping the HTTP status for callers
+     */
+    public static class GroqApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+
+        public GroqApiException(int statusCode, String message) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
 }
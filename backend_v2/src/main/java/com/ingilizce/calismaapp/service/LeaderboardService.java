@@ -0,0 +1,572 @@
+package com.ingilizce.calismaapp.service;
+
+import com.ingilizce.calismaapp.dto.UserSummaryDto;
+import com.ingilizce.calismaapp.entity.WeeklyScore;
+import com.ingilizce.calismaapp.repository.UserRepository;
+import com.ingilizce.calismaapp.repository.WeeklyScoreRepository;
+import com.ingilizce.calismaapp.util.CurrentUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.DefaultStringTuple;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Leaderboards on Redis sorted sets, member = userId, score = metric:
+ *
+ * lb:xp:all, lb:xp:week:{monday}, lb:xp:day:{date}       XP earned (ZINCRBY per award)
+ * lb:words:all, lb:words:week:{monday}, lb:words:day:{date} words added
+ * lb:streak:all                                            current streak (ZADD)
+ *
+ * Scores are patched after commit by ProgressService, so a board view is a
+ * ZREVRANGE of N members plus one query for their names instead of sorting
+ * every user. Rank and around-me are ZREVRANK + ZREVRANGE, O(log n + N).
+ * Day and week boards expire on their own; a closed week is snapshotted into
+ * weekly_scores, which also serves reads of older weeks. The all-time XP and
+ * streak boards are rebuilt from user_progress if Redis lost them. The
+ * friends board scores only the user's friend set (FriendGraphService).
+ * Anonymous requests (CurrentUser.isAnonymous) never touch the boards.
+ */
+@Service
+public class LeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    public enum Metric {
+        XP, WORDS, STREAK;
+
+        static Metric parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown leaderboard: " + value);
+            }
+        }
+    }
+
+    public enum Period {
+        ALL, WEEK, DAY;
+
+        static Period parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown period: " + value);
+            }
+        }
+    }
+
+    private static final String KEY_PREFIX = "lb:";
+    // Set once the all-time boards have been rebuilt into this Redis
+    private static final String REBUILT_MARKER = KEY_PREFIX + "all:rebuilt";
+    private static final Duration DAY_TTL = Duration.ofDays(3);
+    private static final Duration WEEK_TTL = Duration.ofDays(15); // outlives the Monday snapshot
+    private static final int MAX_LIMIT = 100;
+    private static final int MAX_RADIUS = 25;
+    private static final int SNAPSHOT_PAGE_SIZE = 1000;
+
+    private static final String SNAPSHOT_UPSERT = """
+            INSERT INTO weekly_scores (user_id, week_start_date, weekly_xp, league, rank, created_at)
+            VALUES (?, ?, ?, 'bronze', ?, now())
+            ON CONFLICT (user_id, week_start_date)
+            DO UPDATE SET weekly_xp = EXCLUDED.weekly_xp, rank = EXCLUDED.rank
+            """;
+
+    // Compacted total + ledger rows above the watermark (the ledger is flushed first)
+    private static final String REBUILD_SELECT = """
+            SELECT p.user_id, p.current_streak,
+                   COALESCE(p.total_xp, 0) + COALESCE((SELECT SUM(t.amount) FROM xp_transactions t
+                        WHERE t.user_id = p.user_id AND t.id > COALESCE(p.xp_ledger_watermark, 0)), 0) AS xp
+            FROM user_progress p
+            """;
+
+    // After a Redis failure, skip the boards for a while instead of paying the timeout on every call
+    private static final long REDIS_BACKOFF_MS = 30_000;
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WeeklyScoreRepository weeklyScoreRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private XpLedger xpLedger;
+
+    @Autowired
+    private FriendGraphService friendGraphService;
+
+    @Autowired
+    private ActivityFeedService activityFeedService;
+
+    @Value("${leaderboard.enabled:true}")
+    private boolean enabled;
+
+    private volatile long redisRetryAt = 0;
+
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public boolean isAvailable() {
+        return enabled && redisTemplate != null && System.currentTimeMillis() >= redisRetryAt;
+    }
+
+    // === Updates (after commit) ===
+
+    public void onXp(Long userId, int amount) {
+        if (amount != 0) {
+            afterCommit(() -> {
+                Double today = increment(Metric.XP, userId, amount);
+                if (today != null) {
+                    activityFeedService.onDailyXp(userId, today.longValue() - amount, today.longValue());
+                }
+            });
+        }
+    }
+
+    public void onWords(Long userId, int count) {
+        if (count != 0) {
+            afterCommit(() -> increment(Metric.WORDS, userId, count));
+        }
+    }
+
+    public void onStreak(Long userId, int streak) {
+        afterCommit(() -> {
+            try {
+                redisTemplate.opsForZSet().add(key(Metric.STREAK, Period.ALL, LocalDate.now()),
+                        userId.toString(), streak);
+                updates.incrementAndGet();
+            } catch (Exception e) {
+                onRedisError("update", e);
+            }
+        });
+    }
+
+    // Returns the user's new score on today's board, null if Redis failed
+    private Double increment(Metric metric, Long userId, int delta) {
+        LocalDate today = LocalDate.now();
+        String member = userId.toString();
+        try {
+            ZSetOperations<String, String> zset = redisTemplate.opsForZSet();
+            zset.incrementScore(key(metric, Period.ALL, today), member, delta);
+
+            String week = key(metric, Period.WEEK, today);
+            zset.incrementScore(week, member, delta);
+            redisTemplate.expire(week, WEEK_TTL);
+
+            String day = key(metric, Period.DAY, today);
+            Double score = zset.incrementScore(day, member, delta);
+            redisTemplate.expire(day, DAY_TTL);
+            updates.incrementAndGet();
+            return score;
+        } catch (Exception e) {
+            onRedisError("update", e);
+            return null;
+        }
+    }
+
+    private void afterCommit(Runnable update) {
+        // The fallback user id of an anonymous request belongs to a real user
+        if (!isAvailable() || CurrentUser.isAnonymous()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    // === Reads ===
+
+    /**
+     * Top N of a board
+     *
+     * @param date any day of the wanted day/week (null = today)
+     * @return board map (metric, period, total, entries)
+     */
+    public Map<String, Object> getTop(String metricName, String periodName, LocalDate date, int limit) {
+        Metric metric = Metric.parse(metricName);
+        Period period = Period.parse(periodName);
+        LocalDate day = date != null ? date : LocalDate.now();
+        int n = clamp(limit, 1, MAX_LIMIT);
+
+        if (metric == Metric.XP && period == Period.WEEK && weekStart(day).isBefore(weekStart(LocalDate.now()))) {
+            Map<String, Object> closed = getClosedWeek(weekStart(day), n);
+            if (closed != null) {
+                return closed;
+            }
+        }
+
+        Map<String, Object> result = board(metric, period, day);
+        requireRedis();
+        try {
+            String key = key(metric, period, day);
+            Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet()
+                    .reverseRangeWithScores(key, 0, n - 1L);
+            Long total = redisTemplate.opsForZSet().zCard(key);
+            reads.incrementAndGet();
+            result.put("entries", entries(tuples, 1));
+            result.put("total", total != null ? total : 0);
+            return result;
+        } catch (Exception e) {
+            throw onReadError(e);
+        }
+    }
+
+    /**
+     * Rank and score of one user (rank null if the user is not on the board)
+     */
+    public Map<String, Object> getRank(Long userId, String metricName, String periodName) {
+        Metric metric = Metric.parse(metricName);
+        Period period = Period.parse(periodName);
+        LocalDate today = LocalDate.now();
+        Map<String, Object> result = board(metric, period, today);
+        requireRedis();
+        try {
+            String key = key(metric, period, today);
+            Long position = redisTemplate.opsForZSet().reverseRank(key, userId.toString());
+            Double score = redisTemplate.opsForZSet().score(key, userId.toString());
+            Long total = redisTemplate.opsForZSet().zCard(key);
+            reads.incrementAndGet();
+            result.put("userId", userId);
+            result.put("rank", position != null ? position + 1 : null);
+            result.put("score", score != null ? score.longValue() : 0);
+            result.put("total", total != null ? total : 0);
+            return result;
+        } catch (Exception e) {
+            throw onReadError(e);
+        }
+    }
+
+    /**
+     * The user with {@code radius} neighbours above and below
+     */
+    public Map<String, Object> getAroundMe(Long userId, String metricName, String periodName, int radius) {
+        Metric metric = Metric.parse(metricName);
+        Period period = Period.parse(periodName);
+        LocalDate today = LocalDate.now();
+        int r = clamp(radius, 1, MAX_RADIUS);
+        Map<String, Object> result = board(metric, period, today);
+        requireRedis();
+        try {
+            String key = key(metric, period, today);
+            Long position = redisTemplate.opsForZSet().reverseRank(key, userId.toString());
+            Long total = redisTemplate.opsForZSet().zCard(key);
+            reads.incrementAndGet();
+            result.put("userId", userId);
+            result.put("total", total != null ? total : 0);
+            if (position == null) {
+                result.put("rank", null);
+                result.put("entries", List.of());
+                return result;
+            }
+            long start = Math.max(0, position - r);
+            Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet()
+                    .reverseRangeWithScores(key, start, position + r);
+            result.put("rank", position + 1);
+            result.put("entries", entries(tuples, start + 1));
+            return result;
+        } catch (Exception e) {
+            throw onReadError(e);
+        }
+    }
+
+    /**
+     * The user and their friends on a board: ZMSCORE of the cached friend set
+     * instead of a ranking over all users
+     */
+    public Map<String, Object> getFriends(Long userId, String metricName, String periodName) {
+        Metric metric = Metric.parse(metricName);
+        Period period = Period.parse(periodName);
+        LocalDate today = LocalDate.now();
+        Map<String, Object> result = board(metric, period, today);
+        requireRedis();
+
+        List<Long> ids = new ArrayList<>(friendGraphService.getFriendIds(userId));
+        ids.add(userId);
+        try {
+            List<Double> values = redisTemplate.opsForZSet().score(key(metric, period, today),
+                    ids.stream().map(String::valueOf).toArray());
+            reads.incrementAndGet();
+            List<Map.Entry<Long, Long>> scores = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) {
+                Double value = values != null ? values.get(i) : null;
+                scores.add(Map.entry(ids.get(i), value != null ? value.longValue() : 0L));
+            }
+            scores.sort(Map.Entry.<Long, Long>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+
+            Map<Long, UserSummaryDto> users = summaries(ids);
+            List<Map<String, Object>> entries = new ArrayList<>();
+            int rank = 1;
+            for (Map.Entry<Long, Long> score : scores) {
+                if (score.getKey().equals(userId)) {
+                    result.put("rank", rank);
+                }
+                entries.add(entry(rank++, score.getKey(), score.getValue(), users));
+            }
+            result.put("userId", userId);
+            result.put("entries", entries);
+            result.put("total", entries.size());
+            return result;
+        } catch (Exception e) {
+            throw onReadError(e);
+        }
+    }
+
+    private Map<String, Object> getClosedWeek(LocalDate weekStart, int limit) {
+        List<WeeklyScore> scores = weeklyScoreRepository.findByWeekStartDateOrderByRankAsc(weekStart,
+                PageRequest.of(0, limit));
+        if (scores.isEmpty()) {
+            return null; // not snapshotted yet, the Redis board may still be there
+        }
+        Map<Long, UserSummaryDto> users = summaries(scores.stream().map(WeeklyScore::getUserId).toList());
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (WeeklyScore score : scores) {
+            entries.add(entry(score.getRank(), score.getUserId(), score.getWeeklyXp(), users));
+        }
+        Map<String, Object> result = board(Metric.XP, Period.WEEK, weekStart);
+        result.put("entries", entries);
+        result.put("closed", true);
+        return result;
+    }
+
+    private List<Map<String, Object>> entries(Set<ZSetOperations.TypedTuple<String>> tuples, long firstRank) {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        if (tuples == null || tuples.isEmpty()) {
+            return entries;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            ids.add(Long.valueOf(tuple.getValue()));
+        }
+        Map<Long, UserSummaryDto> users = summaries(ids);
+        long rank = firstRank;
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            long score = tuple.getScore() != null ? tuple.getScore().longValue() : 0;
+            entries.add(entry(rank++, Long.valueOf(tuple.getValue()), score, users));
+        }
+        return entries;
+    }
+
+    private static Map<String, Object> entry(Number rank, Long userId, Number score, Map<Long, UserSummaryDto> users) {
+        UserSummaryDto user = users.get(userId);
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("rank", rank);
+        entry.put("userId", userId);
+        entry.put("score", score);
+        entry.put("displayName", user != null ? user.displayName() : null);
+        entry.put("userTag", user != null ? user.userTag() : null);
+        entry.put("avatarUrl", user != null ? user.avatarUrl() : null);
+        return entry;
+    }
+
+    // One query for the page's users only
+    private Map<Long, UserSummaryDto> summaries(List<Long> ids) {
+        Map<Long, UserSummaryDto> users = new HashMap<>();
+        for (UserSummaryDto user : userRepository.findSummariesByIdIn(ids)) {
+            users.put(user.id(), user);
+        }
+        return users;
+    }
+
+    private static Map<String, Object> board(Metric metric, Period period, LocalDate day) {
+        if (metric == Metric.STREAK && period != Period.ALL) {
+            throw new IllegalArgumentException("The streak leaderboard has no " + period.name().toLowerCase(Locale.ROOT)
+                    + " period");
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("metric", metric.name().toLowerCase(Locale.ROOT));
+        result.put("period", period.name().toLowerCase(Locale.ROOT));
+        if (period == Period.WEEK) {
+            result.put("weekStart", weekStart(day).toString());
+        } else if (period == Period.DAY) {
+            result.put("date", day.toString());
+        }
+        return result;
+    }
+
+    // === Weekly snapshot ===
+
+    /**
+     * Monday night: write last week's final standings to weekly_scores.
+     * Idempotent upsert, so every instance may run it.
+     */
+    @Scheduled(cron = "${leaderboard.weekly-snapshot-cron:0 10 0 * * MON}")
+    public void snapshotLastWeek() {
+        snapshotWeek(weekStart(LocalDate.now()).minusWeeks(1));
+    }
+
+    public int snapshotWeek(LocalDate weekStart) {
+        if (!isAvailable()) {
+            return 0;
+        }
+        String key = key(Metric.XP, Period.WEEK, weekStart);
+        int written = 0;
+        try {
+            long offset = 0;
+            while (true) {
+                Set<ZSetOperations.TypedTuple<String>> page = redisTemplate.opsForZSet()
+                        .reverseRangeWithScores(key, offset, offset + SNAPSHOT_PAGE_SIZE - 1);
+                if (page == null || page.isEmpty()) {
+                    break;
+                }
+                List<Object[]> rows = new ArrayList<>(page.size());
+                long rank = offset + 1;
+                for (ZSetOperations.TypedTuple<String> tuple : page) {
+                    int xp = tuple.getScore() != null ? tuple.getScore().intValue() : 0;
+                    rows.add(new Object[] { Long.valueOf(tuple.getValue()), Date.valueOf(weekStart), xp, (int) rank++ });
+                }
+                jdbcTemplate.batchUpdate(SNAPSHOT_UPSERT, rows);
+                written += rows.size();
+                offset += SNAPSHOT_PAGE_SIZE;
+            }
+            logger.info("Weekly leaderboard {} snapshotted: {} users", weekStart, written);
+        } catch (Exception e) {
+            onRedisError("snapshot", e);
+        }
+        return written;
+    }
+
+    // === Rebuild ===
+
+    /**
+     * Redis restarted without persistence: rebuild the all-time XP and streak
+     * boards from the database. Day/week boards and word counts cannot be
+     * recovered and start over.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfMissing() {
+        if (!isAvailable()) {
+            return;
+        }
+        try {
+            // A marker rather than the board itself: live ZINCRBYs recreate the board right away
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(REBUILT_MARKER))) {
+                return;
+            }
+            LocalDate today = LocalDate.now();
+            String xpKey = key(Metric.XP, Period.ALL, today);
+            String streakKey = key(Metric.STREAK, Period.ALL, today);
+            xpLedger.flush();
+            // Built in place while awards keep arriving after commit: GT keeps a live XP total
+            // that is already above the database one, NX never overwrites a streak patched live
+            Set<StringRedisConnection.StringTuple> xp = new HashSet<>();
+            Set<StringRedisConnection.StringTuple> streaks = new HashSet<>();
+            AtomicLong users = new AtomicLong();
+            jdbcTemplate.query(REBUILD_SELECT, rs -> {
+                String member = String.valueOf(rs.getLong("user_id"));
+                xp.add(new DefaultStringTuple(member, rs.getLong("xp")));
+                streaks.add(new DefaultStringTuple(member, rs.getInt("current_streak")));
+                users.incrementAndGet();
+                if (xp.size() >= SNAPSHOT_PAGE_SIZE) {
+                    merge(xpKey, xp, streakKey, streaks);
+                }
+            });
+            merge(xpKey, xp, streakKey, streaks);
+            redisTemplate.opsForValue().set(REBUILT_MARKER, "1");
+            logger.info("Rebuilt all-time leaderboards from the database: {} users", users.get());
+        } catch (Exception e) {
+            onRedisError("rebuild", e);
+        }
+    }
+
+    private void merge(String xpKey, Set<StringRedisConnection.StringTuple> xp, String streakKey,
+            Set<StringRedisConnection.StringTuple> streaks) {
+        if (xp.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.zAdd(xpKey, xp, RedisZSetCommands.ZAddArgs.empty().gt());
+            redis.zAdd(streakKey, streaks, RedisZSetCommands.ZAddArgs.ifNotExists());
+            return null;
+        });
+        xp.clear();
+        streaks.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("available", isAvailable());
+        stats.put("updates", updates.get());
+        stats.put("reads", reads.get());
+        stats.put("errors", errors.get());
+        return stats;
+    }
+
+    static String key(Metric metric, Period period, LocalDate day) {
+        String prefix = KEY_PREFIX + metric.name().toLowerCase(Locale.ROOT);
+        return switch (period) {
+            case ALL -> prefix + ":all";
+            case WEEK -> prefix + ":week:" + weekStart(day);
+            case DAY -> prefix + ":day:" + day;
+        };
+    }
+
+    static LocalDate weekStart(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(value, max));
+    }
+
+    private void requireRedis() {
+        if (!isAvailable()) {
+            throw new IllegalStateException("Leaderboards are temporarily unavailable");
+        }
+    }
+
+    private IllegalStateException onReadError(Exception e) {
+        onRedisError("read", e);
+        return new IllegalStateException("Leaderboards are temporarily unavailable", e);
+    }
+
+    private void onRedisError(String operation, Exception e) {
+        errors.incrementAndGet();
+        redisRetryAt = System.currentTimeMillis() + REDIS_BACKOFF_MS;
+        logger.warn("Leaderboard {} failed, pausing Redis access for {} ms: {}", operation,
+                REDIS_BACKOFF_MS, e.getMessage());
+    }
+}
@@ -0,0 +1,190 @@
+package com.ingilizce.calismaapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redis cache for Groq completions.
+ *
+ * Key = SHA-256(systemPrompt, normalized userMessage, jsonMode), namespaced by
+ * endpoint. Each key holds a list of up to N generations ("variety pool"): while
+ * the pool is filling every request goes to Groq and its answer is appended;
+ * once full, a random entry is served. N = 1 is a plain exact-match cache.
+ *
+ * Per-endpoint settings: llm.cache.ttl.{endpoint} (seconds, 0 disables) and
+ * llm.cache.variety.{endpoint}. Without configuration nothing is cached: a
+ * generative endpoint served from a one-entry pool would repeat the same
+ * answer for the whole TTL.
+ */
+@Service
+public class LlmResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmResponseCache.class);
+
+    private static final String KEY_PREFIX = "llm:";
+
+    // After a Redis failure, skip the cache for a while instead of paying the timeout on every call
+    private static final long REDIS_BACKOFF_MS = 30_000;
+
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${llm.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${llm.cache.default-ttl-seconds:0}")
+    private long defaultTtlSeconds;
+
+    private volatile long redisRetryAt = 0;
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public boolean isEnabled(String endpoint) {
+        return enabled && redisTemplate != null && ttlSeconds(endpoint) > 0
+                && System.currentTimeMillis() >= redisRetryAt;
+    }
+
+    public String key(String endpoint, String systemPrompt, String userMessage, boolean jsonMode) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(systemPrompt.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(normalize(userMessage).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update((byte) (jsonMode ? 1 : 0));
+            return KEY_PREFIX + endpoint + ":" + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Case, Unicode form and whitespace differences should not create separate entries
+     */
+    public static String normalize(String message) {
+        if (message == null) {
+            return "";
+        }
+        return Normalizer.normalize(message, Normalizer.Form.NFC).trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    /**
+     * @return a cached generation, or null when the key is absent or its variety
+     *         pool is not full yet
+     */
+    public String lookup(String endpoint, String key) {
+        Counters c = counters(endpoint);
+        if (!isEnabled(endpoint)) {
+            c.bypassed.incrementAndGet();
+            return null;
+        }
+        try {
+            List<Object> pool = redisTemplate.opsForList().range(key, 0, -1);
+            if (pool != null && !pool.isEmpty() && pool.size() >= varietySize(endpoint)) {
+                c.hits.incrementAndGet();
+                return (String) pool.get(ThreadLocalRandom.current().nextInt(pool.size()));
+            }
+        } catch (Exception e) {
+            onRedisError(c, e);
+            return null;
+        }
+        c.misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Append a fresh generation to the key's pool, keeping at most N entries
+     */
+    public void store(String endpoint, String key, String response) {
+        if (response == null || response.isBlank() || !isEnabled(endpoint)) {
+            return;
+        }
+        Counters c = counters(endpoint);
+        try {
+            int variety = varietySize(endpoint);
+            redisTemplate.opsForList().rightPush(key, response);
+            redisTemplate.opsForList().trim(key, -variety, -1);
+            redisTemplate.expire(key, Duration.ofSeconds(ttlSeconds(endpoint)));
+            c.stores.incrementAndGet();
+        } catch (Exception e) {
+            onRedisError(c, e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled && redisTemplate != null);
+        Map<String, Object> endpoints = new HashMap<>();
+        long totalHits = 0, totalMisses = 0;
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            Counters c = entry.getValue();
+            long hits = c.hits.get();
+            long misses = c.misses.get();
+            totalHits += hits;
+            totalMisses += misses;
+
+            Map<String, Object> endpointStats = new HashMap<>();
+            endpointStats.put("hits", hits);
+            endpointStats.put("misses", misses);
+            endpointStats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+            endpointStats.put("bypassed", c.bypassed.get());
+            endpointStats.put("stores", c.stores.get());
+            endpointStats.put("errors", c.errors.get());
+            endpointStats.put("ttlSeconds", ttlSeconds(entry.getKey()));
+            endpointStats.put("variety", varietySize(entry.getKey()));
+            endpoints.put(entry.getKey(), endpointStats);
+        }
+        stats.put("endpoints", endpoints);
+        stats.put("hits", totalHits);
+        stats.put("misses", totalMisses);
+        stats.put("hitRate", totalHits + totalMisses == 0 ? 0.0 : (double) totalHits / (totalHits + totalMisses));
+        return stats;
+    }
+
+    private long ttlSeconds(String endpoint) {
+        return environment.getProperty("llm.cache.ttl." + endpoint, Long.class, defaultTtlSeconds);
+    }
+
+    private int varietySize(String endpoint) {
+        return Math.max(1, environment.getProperty("llm.cache.variety." + endpoint, Integer.class, 1));
+    }
+
+    private Counters counters(String endpoint) {
+        return counters.computeIfAbsent(endpoint, k -> new Counters());
+    }
+
+    private void onRedisError(Counters c, Exception e) {
+        c.errors.incrementAndGet();
+        redisRetryAt = System.currentTimeMillis() + REDIS_BACKOFF_MS;
+        logger.warn("LLM cache unavailable, bypassing for {} ms: {}", REDIS_BACKOFF_MS, e.getMessage());
+    }
+
+    private static class Counters {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong bypassed = new AtomicLong();
+        final AtomicLong stores = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+    }
+}
@@ -1,18 +1,34 @@
 package com.ingilizce.calismaapp.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import com.ingilizce.calismaapp.util.WavUtils;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.UUID;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
 
 @Service
 public class PiperTtsService {
     
+    private static final Logger logger = LoggerFactory.getLogger(PiperTtsService.class);
+    
     @Value("${piper.tts.path:}")
     private String configuredPiperPath;
     
@@ -28,6 +44,74 @@ public class PiperTtsService {
     private static final String MODEL_AMY = "en_US-amy-medium.onnx";
     private static final String MODEL_ALAN = "en_GB-alan-medium.onnx";
     
+    private final TtsAudioCache audioCache;
+
+    public PiperTtsService(TtsAudioCache audioCache) {
+        this.audioCache = audioCache;
+    }
+
+    @Value("${piper.pool.workers-per-voice:2}")
+    private int workersPerVoice;
+
+    @Value("${piper.pool.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${piper.pool.synthesis-timeout-seconds:30}")
+    private long synthesisTimeoutSeconds;
+
+    private static final String[] VOICES = { "lessac", "amy", "alan" };
+
+    private static final Pattern SENTENCE_BOUNDARY = Pattern.compile("(?<=[.!?])\\s+");
+    private static final int STREAM_BUFFER_SIZE = 16 * 1024;
+
+    // voice -> long-lived Piper workers for that model
+    private final Map<String, PiperWorkerPool> pools = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void startWorkerPools() {
+        String piperPath = findPiperPath();
+        Path outputDir = Paths.get(System.getProperty("java.io.tmpdir"), "piper-pool");
+        try {
+            Files.createDirectories(outputDir);
+        } catch (IOException e) {
+            logger.error("Could not create Piper output directory {}: {}", outputDir, e.getMessage());
+            return;
+        }
+
+        for (String voice : VOICES) {
+            File modelFile = new File(MODEL_BASE_DIR + File.separator + getModelFileName(voice));
+            if (!modelFile.exists()) {
+                logger.warn("Piper model for voice '{}' not found at {}, voice disabled", voice,
+                        modelFile.getAbsolutePath());
+                continue;
+            }
+            PiperWorkerPool pool = new PiperWorkerPool(voice, piperPath, modelFile.getAbsolutePath(),
+                    new File(MODEL_BASE_DIR), outputDir, workersPerVoice, queueCapacity,
+                    TimeUnit.SECONDS.toMillis(synthesisTimeoutSeconds));
+            pool.start();
+            pools.put(voice, pool);
+        }
+        logger.info("Piper worker pools started for voices: {}", pools.keySet());
+    }
+
+    @PreDestroy
+    public void stopWorkerPools() {
+        pools.values().forEach(PiperWorkerPool::shutdown);
+    }
+
+    /**
+     * Health check: restart crashed Piper workers
+     */
+    @Scheduled(fixedDelayString = "${piper.pool.health-check-interval-ms:15000}")
+    public void probeWorkers() {
+        pools.forEach((voice, pool) -> {
+            int alive = pool.probe();
+            if (alive == 0) {
+                logger.warn("No live Piper workers for voice '{}'", voice);
+            }
+        });
+    }
+
     /**
      * Generate speech audio from text using Piper TTS
      * @param text Text to convert to speech
@@ -35,149 +119,228 @@ public class PiperTtsService {
      * @return Base64 encoded WAV audio data
      */
     public String synthesizeSpeech(String text, String voice) {
+        String cached = audioCache.get(audioCache.key(voice, text));
+        if (cached != null) {
+            return cached;
+        }
         try {
-            // Select model based on voice
-            String modelFile = getModelFile(voice);
-            
-            // Create temporary output file
-            String tempDir = System.getProperty("java.io.tmpdir");
-            String outputFile = tempDir + File.separator + UUID.randomUUID().toString() + ".wav";
-            
-            // Build Piper command - use absolute path for model file
-            File modelFileObj = new File(modelFile);
-            String absoluteModelPath = modelFileObj.getAbsolutePath();
-            
-            // Verify model file exists
-            if (!modelFileObj.exists()) {
-                throw new RuntimeException("Model file not found at SAFE path: " + absoluteModelPath);
+            // Keyed by the voice that actually speaks, so fallback audio never answers for the requested voice
+            String spoken = requireVoice(voice);
+            String key = audioCache.key(spoken, text);
+            if (!spoken.equals(TtsAudioCache.normalizeVoice(voice)) && (cached = audioCache.get(key)) != null) {
+                return cached;
             }
-            System.out.println("Using SAFE model file: " + absoluteModelPath);
-            System.out.println("Model file exists: " + modelFileObj.exists());
-            
-            String piperPath = findPiperPath();
-            System.out.println("Using Piper path: " + piperPath);
-            
-            ProcessBuilder processBuilder = new ProcessBuilder(
-                piperPath,
-                "--model", absoluteModelPath,
-                "--output_file", outputFile
-            );
-            
-            // Working directory is less important now since we use absolute paths, 
-            // but setting it to the model base directory ensures espeak-ng-data is found easily.
-            File workingDir = new File(MODEL_BASE_DIR);
-            if (workingDir.exists()) {
-                processBuilder.directory(workingDir);
+            Path audioPath = awaitSynthesis(submitSynthesis(TtsAudioCache.normalizeText(text), spoken));
+            return audioCache.put(key, audioPath, true);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to synthesize speech: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pre-render audio into the disk cache tier (used by the warm-up job)
+     *
+     * @return true if new audio was synthesized
+     */
+    public boolean prerender(String text, String voice) throws Exception {
+        String key = audioCache.key(voice, text);
+        if (audioCache.contains(key)) {
+            return false;
+        }
+        String spoken = requireVoice(voice);
+        if (!spoken.equals(TtsAudioCache.normalizeVoice(voice))) {
+            // The voice is down; warming its fallback would not help later requests for it
+            return false;
+        }
+        Path audioPath = awaitSynthesis(submitSynthesis(TtsAudioCache.normalizeText(text), spoken));
+        if (audioCache.storeFile(key, audioPath) == null) {
+            Files.deleteIfExists(audioPath);
+        }
+        return true;
+    }
+
+    public boolean isCached(String text, String voice) {
+        return audioCache.contains(audioCache.key(voice, text));
+    }
+
+    /**
+     * Synthesize text with a pooled Piper worker and return the WAV file path.
+     * The caller owns the returned file and is responsible for deleting it.
+     */
+    public Path synthesizeToFile(String text, String voice) throws Exception {
+        return awaitSynthesis(submitSynthesis(text, requireVoice(voice)));
+    }
+
+    /**
+     * Queue text on the worker pool of a voice returned by {@link #resolveVoice}
+     * without waiting for the result
+     */
+    private CompletableFuture<Path> submitSynthesis(String text, String spoken) {
+        PiperWorkerPool pool = pools.get(spoken);
+        if (pool == null) {
+            throw new IllegalStateException("Piper TTS is not available");
+        }
+        return pool.submit(text);
+    }
+
+    private Path awaitSynthesis(CompletableFuture<Path> future) throws Exception {
+        try {
+            // Queue wait + synthesis; the worker itself enforces the synthesis timeout
+            return future.get(synthesisTimeoutSeconds * 2, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } catch (TimeoutException e) {
+            discard(future);
+            throw new IllegalStateException("Piper TTS request timed out in queue", e);
+        }
+    }
+
+    private void discard(CompletableFuture<Path> future) {
+        future.thenAccept(path -> path.toFile().delete());
+    }
+
+    /**
+     * Write WAV audio for the text to the output stream as it becomes available.
+     *
+     * Cached audio is copied straight from the disk tier. Otherwise the text is
+     * split into sentences that are synthesized one ahead of the one being sent,
+     * so playback can start after the first sentence and memory per request is a
+     * single copy buffer regardless of text length.
+     */
+    public void streamSpeech(String text, String voice, OutputStream out) throws Exception {
+        Path cachedFile = audioCache.findFile(audioCache.key(voice, text));
+        String spoken = null;
+        String key = null;
+        if (cachedFile == null) {
+            spoken = requireVoice(voice);
+            key = audioCache.key(spoken, text);
+            if (!spoken.equals(TtsAudioCache.normalizeVoice(voice))) {
+                cachedFile = audioCache.findFile(key);
             }
-            
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-            
-            // Write text to process stdin and explicitly close it
-            OutputStream stdin = process.getOutputStream();
-            try (BufferedWriter writer = new BufferedWriter(
-                    new OutputStreamWriter(stdin, java.nio.charset.StandardCharsets.UTF_8))) {
-                writer.write(text);
-                writer.flush();
+        }
+        if (cachedFile != null) {
+            try (InputStream in = Files.newInputStream(cachedFile)) {
+                copy(in, out, Long.MAX_VALUE);
+            }
+            return;
+        }
+
+        List<String> segments = splitSentences(TtsAudioCache.normalizeText(text));
+        if (segments.size() == 1) {
+            Path synthesized = awaitSynthesis(submitSynthesis(segments.get(0), spoken));
+            Path stored = audioCache.storeFile(key, synthesized);
+            try (InputStream in = Files.newInputStream(stored != null ? stored : synthesized)) {
+                copy(in, out, Long.MAX_VALUE);
             } finally {
-                // Explicitly close stdin to signal end of input
-                try {
-                    stdin.close();
-                } catch (IOException e) {
-                    System.err.println("Error closing stdin: " + e.getMessage());
+                if (stored == null) {
+                    Files.deleteIfExists(synthesized);
                 }
             }
-            
-            // Read output/error stream in a separate thread to prevent blocking
-            StringBuilder output = new StringBuilder();
-            final Process finalProcess = process;
-            
-            Thread outputThread = new Thread(() -> {
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(finalProcess.getInputStream(), java.nio.charset.StandardCharsets.UTF_8))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        output.append(line).append("\n");
-                        System.out.println("Piper output: " + line);
-                    }
-                } catch (IOException e) {
-                    System.err.println("Error reading Piper output: " + e.getMessage());
+            return;
+        }
+
+        // Every segment goes to the same voice, even if the requested one recovers mid-stream
+        CompletableFuture<Path> next = submitSynthesis(segments.get(0), spoken);
+        boolean headerWritten = false;
+        for (int i = 0; i < segments.size(); i++) {
+            Path segmentFile = awaitSynthesis(next);
+            next = i + 1 < segments.size() ? submitSynthesis(segments.get(i + 1), spoken) : null;
+            try {
+                WavUtils.WavInfo info = WavUtils.parse(segmentFile);
+                if (!headerWritten) {
+                    out.write(WavUtils.streamingHeader(info));
+                    headerWritten = true;
                 }
-            });
-            outputThread.setDaemon(true);
-            outputThread.start();
-            
-            // Wait for process to complete with timeout (30 seconds)
-            boolean finished = process.waitFor(30, TimeUnit.SECONDS);
-            if (!finished) {
-                process.destroyForcibly();
-                throw new RuntimeException("Piper TTS process timed out after 30 seconds");
+                try (InputStream in = Files.newInputStream(segmentFile)) {
+                    in.skipNBytes(info.dataOffset());
+                    copy(in, out, info.dataLength());
+                }
+                out.flush();
+            } catch (Exception e) {
+                if (next != null) {
+                    discard(next);
+                }
+                throw e;
+            } finally {
+                Files.deleteIfExists(segmentFile);
             }
-            
-            outputThread.join(5000); // Wait max 5 seconds for output thread
-            
-            int exitCode = process.exitValue();
-            
-            if (exitCode != 0) {
-                String errorMsg = output.length() > 0 ? output.toString() : "Unknown error (exit code: " + exitCode + ")";
-                System.err.println("Piper TTS failed with exit code: " + exitCode);
-                System.err.println("Piper output: " + errorMsg);
-                throw new RuntimeException("Piper TTS failed: " + errorMsg);
+        }
+    }
+
+    /**
+     * Split text at sentence boundaries, keeping the punctuation for prosody
+     */
+    private List<String> splitSentences(String text) {
+        List<String> segments = new ArrayList<>();
+        for (String part : SENTENCE_BOUNDARY.split(text)) {
+            if (!part.isBlank()) {
+                segments.add(part.trim());
             }
-            
-            // Read generated audio file
-            Path audioPath = Paths.get(outputFile);
-            byte[] audioData = Files.readAllBytes(audioPath);
-            
-            // Clean up temporary file
-            Files.deleteIfExists(audioPath);
-            
-            // Return base64 encoded audio
-            return Base64.getEncoder().encodeToString(audioData);
-            
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to synthesize speech: " + e.getMessage(), e);
         }
+        if (segments.isEmpty()) {
+            segments.add(text);
+        }
+        return segments;
     }
-    
+
+    private void copy(InputStream in, OutputStream out, long limit) throws IOException {
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        long remaining = limit;
+        int read;
+        while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
     /**
-     * Get model file path based on voice name
+     * Voice that will synthesize a request for {@code voice}: the requested one
+     * if its pool is live, else amy, else any live voice; null if none is live
      */
-    private String getModelFile(String voice) {
-        if (voice == null || voice.isEmpty()) {
-            voice = "amy"; // Default to amy since it's available
+    private String resolveVoice(String voice) {
+        String requested = TtsAudioCache.normalizeVoice(voice);
+        for (String candidate : new String[] { requested, "amy" }) {
+            PiperWorkerPool pool = pools.get(candidate);
+            if (pool != null && pool.isHealthy()) {
+                return candidate;
+            }
         }
-        
-        String modelFileName;
+        return pools.entrySet().stream()
+                .filter(entry -> entry.getValue().isHealthy())
+                .map(Map.Entry::getKey)
+                .findFirst().orElse(null);
+    }
+
+    private String requireVoice(String voice) {
+        String spoken = resolveVoice(voice);
+        if (spoken == null) {
+            throw new IllegalStateException("Piper TTS is not available");
+        }
+        return spoken;
+    }
+
+    /**
+     * Pool size, queue depth and counters per voice
+     */
+    public Map<String, Object> getPoolStats() {
+        Map<String, Object> stats = new HashMap<>();
+        pools.forEach((voice, pool) -> stats.put(voice, pool.getStats()));
+        return stats;
+    }
+
+    /**
+     * Get model file name based on voice name
+     */
+    private String getModelFileName(String voice) {
         switch (voice.toLowerCase()) {
-            case "amy":
-                modelFileName = MODEL_AMY;
-                break;
             case "alan":
-                modelFileName = MODEL_ALAN;
-                break;
+                return MODEL_ALAN;
             case "lessac":
-                modelFileName = MODEL_LESSAC;
-                break;
+                return MODEL_LESSAC;
+            case "amy":
             default:
-                // Fallback to amy if requested voice not found
-                modelFileName = MODEL_AMY;
-                break;
+                return MODEL_AMY;
         }
-        
-        // Construct full path: C:\piper + \ + en_US-amy-medium.onnx
-        String fullPath = MODEL_BASE_DIR + File.separator + modelFileName;
-        
-        // Check if file exists, if not fallback to amy
-        File modelFile = new File(fullPath);
-        if (!modelFile.exists()) {
-            System.out.println("Model not found: " + fullPath + ", falling back to amy");
-            fullPath = MODEL_BASE_DIR + File.separator + MODEL_AMY;
-            modelFile = new File(fullPath);
-        }
-        
-        System.out.println("Selected model path (SAFE - C:\\piper): " + fullPath);
-        return fullPath;
     }
     
     /**
@@ -223,40 +386,9 @@ public class PiperTtsService {
     }
     
     /**
-     * Check if Piper TTS is available
+     * Check if Piper TTS is available (at least one live worker, no process fork)
      */
     public boolean isAvailable() {
-        try {
-            String piperPath = findPiperPath();
-            System.out.println("Trying Piper path: " + piperPath);
-            
-            ProcessBuilder processBuilder = new ProcessBuilder(piperPath, "--version");
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-            
-            long startTime = System.currentTimeMillis();
-            while (process.isAlive() && (System.currentTimeMillis() - startTime) < 5000) {
-                Thread.sleep(100);
-            }
-            
-            if (process.isAlive()) {
-                process.destroy();
-                return false;
-            }
-            
-            int exitCode = process.exitValue();
-            
-            // Also check if model file exists in the NEW location
-            String amyModelPath = MODEL_BASE_DIR + File.separator + MODEL_AMY;
-            File amyModel = new File(amyModelPath);
-            boolean modelExists = amyModel.exists();
-            
-            System.out.println("Piper TTS check - path: " + piperPath + ", exitCode: " + exitCode + ", modelExists: " + modelExists);
-            
-            return exitCode == 0 && modelExists;
-        } catch (Exception e) {
-            System.err.println("Piper TTS availability check failed: " + e.getMessage());
-            return false;
-        }
+        return pools.values().stream().anyMatch(PiperWorkerPool::isHealthy);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,354 @@
+package com.ingilizce.calismaapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-lived Piper processes for a single voice model.
+ *
+ * Each worker keeps one "piper --json-input" process alive so the ONNX model
+ * is loaded only once. Requests are written to stdin as one JSON line
+ * ({"text": ..., "output_file": ...}) and Piper answers with the output path
+ * on stdout when the WAV is complete.
+ */
+public class PiperWorkerPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(PiperWorkerPool.class);
+
+    // Reader thread puts this on the line queue when stdout reaches EOF
+    private static final String EOF_MARKER = "\u0000EOF";
+
+    private final String voice;
+    private final String piperPath;
+    private final String modelPath;
+    private final File workingDir;
+    private final Path outputDir;
+    private final long synthesisTimeoutMs;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BlockingQueue<Job> queue;
+    private final int queueCapacity;
+    private final List<Worker> workers = new ArrayList<>();
+
+    private final AtomicInteger busy = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong restarts = new AtomicLong();
+
+    private volatile boolean shuttingDown = false;
+
+    public PiperWorkerPool(String voice, String piperPath, String modelPath, File workingDir, Path outputDir,
+            int size, int queueCapacity, long synthesisTimeoutMs) {
+        this.voice = voice;
+        this.piperPath = piperPath;
+        this.modelPath = modelPath;
+        this.workingDir = workingDir;
+        this.outputDir = outputDir;
+        this.synthesisTimeoutMs = synthesisTimeoutMs;
+        this.queueCapacity = queueCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        for (int i = 0; i < size; i++) {
+            workers.add(new Worker(i));
+        }
+    }
+
+    /**
+     * Start all worker processes and their dispatch threads
+     */
+    public void start() {
+        for (Worker worker : workers) {
+            worker.startProcess();
+            Thread thread = new Thread(worker::runLoop, "piper-" + voice + "-" + worker.index);
+            thread.setDaemon(true);
+            worker.thread = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Queue a synthesis request. The returned future completes with the path of
+     * the generated WAV file; the caller owns the file and must delete it.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public CompletableFuture<Path> submit(String text) {
+        Job job = new Job(text);
+        if (shuttingDown || !queue.offer(job)) {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Piper queue for voice '" + voice + "' is full");
+        }
+        return job.future;
+    }
+
+    /**
+     * Restart dead worker processes. Called periodically by the health check.
+     *
+     * @return number of live workers after probing
+     */
+    public int probe() {
+        int alive = 0;
+        for (Worker worker : workers) {
+            if (!worker.isAlive() && !worker.working) {
+                logger.warn("Piper worker {}-{} is down, restarting", voice, worker.index);
+                worker.restartIfDead();
+            }
+            if (worker.isAlive()) {
+                alive++;
+            }
+        }
+        return alive;
+    }
+
+    public boolean isHealthy() {
+        for (Worker worker : workers) {
+            if (worker.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Map<String, Object> getStats() {
+        int alive = 0;
+        for (Worker worker : workers) {
+            if (worker.isAlive()) {
+                alive++;
+            }
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("poolSize", workers.size());
+        stats.put("aliveWorkers", alive);
+        stats.put("busyWorkers", busy.get());
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("completed", completed.get());
+        stats.put("failed", failed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("restarts", restarts.get());
+        return stats;
+    }
+
+    public void shutdown() {
+        shuttingDown = true;
+        for (Worker worker : workers) {
+            if (worker.thread != null) {
+                worker.thread.interrupt();
+            }
+            worker.destroyProcess();
+        }
+        Job job;
+        while ((job = queue.poll()) != null) {
+            job.future.completeExceptionally(new IllegalStateException("Piper pool is shutting down"));
+        }
+    }
+
+    private static class Job {
+        final String text;
+        final CompletableFuture<Path> future = new CompletableFuture<>();
+
+        Job(String text) {
+            this.text = text;
+        }
+    }
+
+    private class Worker {
+        final int index;
+        volatile Thread thread;
+        volatile Process process;
+        volatile BufferedWriter stdin;
+        volatile BlockingQueue<String> stdoutLines;
+        volatile boolean working = false;
+
+        Worker(int index) {
+            this.index = index;
+        }
+
+        boolean isAlive() {
+            Process p = process;
+            return p != null && p.isAlive();
+        }
+
+        synchronized void startProcess() {
+            try {
+                ProcessBuilder processBuilder = new ProcessBuilder(
+                        piperPath,
+                        "--model", modelPath,
+                        "--json-input",
+                        "--output_dir", outputDir.toString());
+                if (workingDir.exists()) {
+                    processBuilder.directory(workingDir);
+                }
+                Process p = processBuilder.start();
+
+                BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+                Thread stdoutThread = new Thread(() -> {
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            lines.add(line);
+                        }
+                    } catch (IOException e) {
+                        // Process closed; EOF marker below wakes the worker
+                    }
+                    lines.add(EOF_MARKER);
+                }, "piper-" + voice + "-" + index + "-stdout");
+                stdoutThread.setDaemon(true);
+                stdoutThread.start();
+
+                // Piper logs to stderr; drain it so the process never blocks on a full pipe
+                Thread stderrThread = new Thread(() -> {
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(p.getErrorStream(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            logger.debug("Piper[{}-{}]: {}", voice, index, line);
+                        }
+                    } catch (IOException e) {
+                        // ignore
+                    }
+                }, "piper-" + voice + "-" + index + "-stderr");
+                stderrThread.setDaemon(true);
+                stderrThread.start();
+
+                this.stdoutLines = lines;
+                this.stdin = new BufferedWriter(new OutputStreamWriter(p.getOutputStream(), StandardCharsets.UTF_8));
+                this.process = p;
+                logger.info("Started Piper worker {}-{} (model: {})", voice, index, modelPath);
+            } catch (IOException e) {
+                this.process = null;
+                logger.error("Failed to start Piper worker {}-{}: {}", voice, index, e.getMessage());
+            }
+        }
+
+        synchronized void destroyProcess() {
+            Process p = process;
+            process = null;
+            if (p != null) {
+                try {
+                    stdin.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+                p.destroyForcibly();
+            }
+        }
+
+        synchronized void restartProcess() {
+            destroyProcess();
+            if (!shuttingDown) {
+                restarts.incrementAndGet();
+                startProcess();
+            }
+        }
+
+        /**
+         * Restart unless the process is alive. The health check and the worker
+         * thread can both find it dead; re-checking under the lock makes the
+         * second caller a no-op instead of killing the fresh process.
+         */
+        synchronized void restartIfDead() {
+            if (!isAlive()) {
+                restartProcess();
+            }
+        }
+
+        void runLoop() {
+            while (!shuttingDown) {
+                Job job;
+                try {
+                    job = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                working = true;
+                busy.incrementAndGet();
+                try {
+                    Path output = synthesize(job.text);
+                    completed.incrementAndGet();
+                    job.future.complete(output);
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    job.future.completeExceptionally(e);
+                } finally {
+                    busy.decrementAndGet();
+                    working = false;
+                }
+            }
+        }
+
+        private Path synthesize(String text) throws Exception {
+            if (!isAlive()) {
+                restartIfDead();
+                if (!isAlive()) {
+                    throw new IllegalStateException("Piper worker " + voice + "-" + index + " is not running");
+                }
+            }
+
+            Path outputFile = outputDir.resolve(UUID.randomUUID() + ".wav");
+            Map<String, String> request = new HashMap<>();
+            // Piper reads one utterance per line; newlines inside the text would split it
+            request.put("text", text.replace('\n', ' ').replace('\r', ' '));
+            request.put("output_file", outputFile.toString());
+
+            BlockingQueue<String> lines = stdoutLines;
+            lines.clear();
+            try {
+                stdin.write(objectMapper.writeValueAsString(request));
+                stdin.newLine();
+                stdin.flush();
+            } catch (IOException e) {
+                restartProcess();
+                throw new IOException("Piper worker " + voice + "-" + index + " stdin closed", e);
+            }
+
+            long deadline = System.currentTimeMillis() + synthesisTimeoutMs;
+            while (true) {
+                long remaining = deadline - System.currentTimeMillis();
+                String line = remaining > 0 ? lines.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                if (line == null) {
+                    logger.error("Piper worker {}-{} timed out, restarting", voice, index);
+                    restartProcess();
+                    Files.deleteIfExists(outputFile);
+                    throw new IllegalStateException(
+                            "Piper TTS timed out after " + synthesisTimeoutMs + " ms");
+                }
+                if (EOF_MARKER.equals(line)) {
+                    restartProcess();
+                    Files.deleteIfExists(outputFile);
+                    throw new IllegalStateException("Piper worker " + voice + "-" + index + " exited unexpectedly");
+                }
+                if (line.trim().endsWith(outputFile.getFileName().toString()) && Files.exists(outputFile)) {
+                    return outputFile;
+                }
+            }
+        }
+    }
+}
@@ -1,32 +1,56 @@
 package com.ingilizce.calismaapp.service;
 
-import com.ingilizce.calismaapp.entity.User;
 import com.ingilizce.calismaapp.entity.UserAchievement;
 import com.ingilizce.calismaapp.entity.UserProgress;
+import com.ingilizce.calismaapp.entity.XpTransaction;
 import com.ingilizce.calismaapp.model.Achievement;
+import com.ingilizce.calismaapp.model.XpSource;
 import com.ingilizce.calismaapp.repository.UserAchievementRepository;
 import com.ingilizce.calismaapp.repository.UserProgressRepository;
-import com.ingilizce.calismaapp.repository.UserRepository;
-import com.ingilizce.calismaapp.repository.WordRepository;
-import com.ingilizce.calismaapp.repository.WordReviewRepository;
+import com.ingilizce.calismaapp.repository.XpTransactionRepository;
+import com.ingilizce.calismaapp.util.CurrentUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * XP, streak and achievements of the current user (CurrentUser), or of an
+ * explicit user for work that runs outside a request. Hot state is
+ * partitioned per user: XP in XpLedger, achievements in AchievementEngine,
+ * and get-or-create of the progress row under a per-user lock stripe.
+ */
 @Service
 public class ProgressService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProgressService.class);
-    private static final Long DEFAULT_USER_ID = 1L;
+
+    private static final int LOCK_STRIPES = 64;
+    private final Object[] progressLocks = new Object[LOCK_STRIPES];
+
+    // Day each user's streak was last counted, so repeat activity skips the row read
+    private final Map<Long, LocalDate> streakCountedOn = new ConcurrentHashMap<>();
+
+    {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            progressLocks[i] = new Object();
+        }
+    }
 
     @Autowired
     private UserProgressRepository progressRepository;
@@ -35,24 +59,59 @@ public class ProgressService {
     private UserAchievementRepository achievementRepository;
 
     @Autowired
-    private WordRepository wordRepository;
+    private AchievementEngine achievementEngine;
+
+    @Autowired
+    private XpLedger xpLedger;
+
+    @Autowired
+    private XpTransactionRepository xpTransactionRepository;
 
     @Autowired
-    private WordReviewRepository reviewRepository;
+    private PlatformTransactionManager transactionManager;
 
     @Autowired
-    private UserRepository userRepository;
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private ActivityFeedService activityFeedService;
 
     /**
      * Get or create user progress
      */
     public UserProgress getUserProgress() {
-        return progressRepository.findByUserId(DEFAULT_USER_ID)
-                .orElseGet(() -> {
-                    UserProgress progress = new UserProgress();
-                    progress.setUserId(DEFAULT_USER_ID);
-                    return progressRepository.save(progress);
+        return getUserProgress(CurrentUser.id());
+    }
+
+    public UserProgress getUserProgress(Long userId) {
+        return progressRepository.findByUserId(userId)
+                .orElseGet(() -> createUserProgress(userId));
+    }
+
+    /**
+     * Insert the row in its own transaction, committed before the stripe lock
+     * is released, so a concurrent first request of the same user sees it.
+     * Another instance may still win the race: the unique user_id makes its
+     * insert fail here and the committed row is read instead.
+     */
+    private UserProgress createUserProgress(Long userId) {
+        synchronized (lockFor(userId)) {
+            try {
+                TransactionTemplate insert = new TransactionTemplate(transactionManager);
+                insert.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                insert.executeWithoutResult(status -> {
+                    if (progressRepository.findByUserId(userId).isEmpty()) {
+                        UserProgress progress = new UserProgress();
+                        progress.setUserId(userId);
+                        progressRepository.save(progress);
+                    }
                 });
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Progress row of user {} was created concurrently", userId);
+            }
+        }
+        return progressRepository.findByUserId(userId)
+                .orElseThrow(() -> new IllegalStateException("No progress row for user " + userId));
     }
 
     /**
@@ -64,18 +123,60 @@ public class ProgressService {
      */
     @Transactional
     public List<Achievement> awardXp(int xp, String reason) {
-        logger.info("Awarding {} XP for: {}", xp, reason);
+        return awardXp(CurrentUser.id(), xp, reason, XpSource.MANUAL, 0);
+    }
 
-        UserProgress progress = getUserProgress();
-        boolean leveledUp = progress.addXp(xp);
-        progressRepository.save(progress);
+    /**
+     * Award XP for an activity and evaluate only the achievements it can unlock
+     * 
+     * @param source What the XP is for (drives the achievement counters)
+     * @param count  Words / reviews the award covers
+     * @return List of newly unlocked achievements
+     */
+    @Transactional
+    public List<Achievement> awardXp(int xp, String reason, XpSource source, int count) {
+        return awardXp(CurrentUser.id(), xp, reason, source, count);
+    }
 
-        if (leveledUp) {
-            logger.info("User leveled up to level {}!", progress.getLevel());
+    @Transactional
+    public List<Achievement> awardXp(Long userId, int xp, String reason, XpSource source, int count) {
+        return awardXp(userId, xp, reason, source, count, CurrentUser.isAnonymous());
+    }
+
+    /**
+     * @param anonymous earned without a logged-in user: {@code userId} is the
+     *                  fallback user, so leaderboards and activity feeds are skipped.
+     *                  Work outside a request (imports) captures this at submit time.
+     */
+    @Transactional
+    public List<Achievement> awardXp(Long userId, int xp, String reason, XpSource source, int count,
+            boolean anonymous) {
+        logger.info("Awarding {} XP to user {} for: {}", xp, userId, reason);
+
+        // Write-behind: no UserProgress read-modify-write per award
+        int before = xpLedger.getTotalXp(userId);
+        xpLedger.append(userId, xp, reason, source);
+        if (!anonymous) {
+            leaderboardService.onXp(userId, xp);
+            if (source == XpSource.WORD_ADDED || source == XpSource.WORDS_IMPORTED) {
+                leaderboardService.onWords(userId, count);
+            }
         }
+        int total = before + xp;
+        int level = UserProgress.levelForXp(total);
 
-        // Check for new achievements
-        return checkAndUnlockAchievements();
+        List<Achievement> unlocked = new ArrayList<>(achievementEngine.onEvent(userId, source, count, level));
+        grantRewards(userId, unlocked, before, total, anonymous);
+        return unlocked;
+    }
+
+    /**
+     * Words were deleted: lower the word counter without a recount
+     */
+    public void onWordsDeleted(int count) {
+        Long userId = CurrentUser.id();
+        achievementEngine.adjust(userId, AchievementEngine.Metric.WORDS, -count);
+        leaderboardService.onWords(userId, -count);
     }
 
     /**
@@ -83,8 +184,24 @@ public class ProgressService {
      */
     @Transactional
     public void updateStreak() {
-        UserProgress progress = getUserProgress();
+        updateStreak(CurrentUser.id());
+    }
+
+    @Transactional
+    public void updateStreak(Long userId) {
+        updateStreak(userId, CurrentUser.isAnonymous());
+    }
+
+    /**
+     * @param anonymous see {@link #awardXp(Long, int, String, XpSource, int, boolean)}
+     */
+    @Transactional
+    public void updateStreak(Long userId, boolean anonymous) {
         LocalDate today = LocalDate.now();
+        if (today.equals(streakCountedOn.get(userId))) {
+            return;
+        }
+        UserProgress progress = getUserProgress(userId);
         LocalDate lastActivity = progress.getLastActivityDate();
 
         if (lastActivity == null) {
@@ -93,6 +210,7 @@ public class ProgressService {
             progress.setLongestStreak(1);
         } else if (lastActivity.equals(today)) {
             // Already counted today
+            streakCountedOn.put(userId, today);
             return;
         } else if (lastActivity.equals(today.minusDays(1))) {
             // Consecutive day
@@ -109,122 +227,104 @@ public class ProgressService {
 
         progress.setLastActivityDate(today);
         progressRepository.save(progress);
+        markStreakCounted(userId, today);
+        if (!anonymous) {
+            leaderboardService.onStreak(userId, progress.getCurrentStreak());
+        }
+        List<Achievement> unlocked = new ArrayList<>(achievementEngine.onMetric(userId,
+                AchievementEngine.Metric.STREAK, progress.getCurrentStreak()));
+        int total = xpLedger.getTotalXp(userId);
+        grantRewards(userId, unlocked, total, total, anonymous);
 
         logger.info("Streak updated: current={}, longest={}",
                 progress.getCurrentStreak(), progress.getLongestStreak());
     }
 
     /**
-     * Check and unlock achievements
+     * Check and unlock achievements (full re-evaluation with fresh counts)
      * 
      * @return List of newly unlocked achievements
      */
     @Transactional
     public List<Achievement> checkAndUnlockAchievements() {
-        List<Achievement> newlyUnlocked = new ArrayList<>();
-
-        UserProgress progress = getUserProgress();
-        long wordCount = wordRepository.count();
-        long reviewCount = reviewRepository.count();
-        int currentStreak = progress.getCurrentStreak();
-        int level = progress.getLevel();
-
-        // Word count achievements
-        checkAchievement(Achievement.FIRST_WORD, wordCount >= 1, newlyUnlocked);
-        checkAchievement(Achievement.WORD_COLLECTOR_10, wordCount >= 10, newlyUnlocked);
-        checkAchievement(Achievement.WORD_COLLECTOR_25, wordCount >= 25, newlyUnlocked);
-        checkAchievement(Achievement.WORD_COLLECTOR_50, wordCount >= 50, newlyUnlocked);
-        checkAchievement(Achievement.WORD_COLLECTOR_100, wordCount >= 100, newlyUnlocked);
-        checkAchievement(Achievement.WORD_COLLECTOR_250, wordCount >= 250, newlyUnlocked);
-        checkAchievement(Achievement.WORD_COLLECTOR_500, wordCount >= 500, newlyUnlocked);
-
-        // Review achievements
-        checkAchievement(Achievement.FIRST_REVIEW, reviewCount >= 1, newlyUnlocked);
-        checkAchievement(Achievement.REVIEW_MASTER_10, reviewCount >= 10, newlyUnlocked);
-        checkAchievement(Achievement.REVIEW_MASTER_50, reviewCount >= 50, newlyUnlocked);
-        checkAchievement(Achievement.REVIEW_MASTER_100, reviewCount >= 100, newlyUnlocked);
-
-        // Streak achievements
-        checkAchievement(Achievement.STREAK_3, currentStreak >= 3, newlyUnlocked);
-        checkAchievement(Achievement.STREAK_7, currentStreak >= 7, newlyUnlocked);
-        checkAchievement(Achievement.STREAK_14, currentStreak >= 14, newlyUnlocked);
-        checkAchievement(Achievement.STREAK_30, currentStreak >= 30, newlyUnlocked);
-        checkAchievement(Achievement.STREAK_100, currentStreak >= 100, newlyUnlocked);
-
-        // Level achievements
-        checkAchievement(Achievement.LEVEL_5, level >= 5, newlyUnlocked);
-        checkAchievement(Achievement.LEVEL_10, level >= 10, newlyUnlocked);
-        checkAchievement(Achievement.LEVEL_20, level >= 20, newlyUnlocked);
-
-        // Time-based achievements (check current time)
-        LocalTime now = LocalTime.now();
-        if (now.isBefore(LocalTime.of(8, 0))) {
-            checkAchievement(Achievement.EARLY_BIRD, true, newlyUnlocked);
-        }
-        if (now.isAfter(LocalTime.of(23, 0))) {
-            checkAchievement(Achievement.NIGHT_OWL, true, newlyUnlocked);
-        }
+        Long userId = CurrentUser.id();
+        UserProgress progress = getUserProgress(userId);
+        int total = xpLedger.getTotalXp(userId);
+        List<Achievement> newlyUnlocked = new ArrayList<>(achievementEngine.reevaluate(userId,
+                progress.getCurrentStreak(), UserProgress.levelForXp(total)));
+        grantRewards(userId, newlyUnlocked, total, total, CurrentUser.isAnonymous());
+        return newlyUnlocked;
+    }
 
-        // Award XP for newly unlocked achievements
-        for (Achievement achievement : newlyUnlocked) {
-            progress.addXp(achievement.getXpReward());
-            logger.info("Achievement unlocked: {} (+{} XP)",
-                    achievement.getTitle(), achievement.getXpReward());
+    /**
+     * Add the XP of newly unlocked achievements; the reward itself can cross a
+     * level threshold, so repeat until nothing new unlocks. Unlocks and a
+     * level-up (from {@code previousXp}) go to the friends' activity feeds,
+     * unless the user is {@code anonymous}.
+     */
+    private void grantRewards(Long userId, List<Achievement> unlocked, int previousXp, int totalXp,
+            boolean anonymous) {
+        int granted = 0;
+        while (granted < unlocked.size()) {
+            for (; granted < unlocked.size(); granted++) {
+                Achievement achievement = unlocked.get(granted);
+                xpLedger.append(userId, achievement.getXpReward(), "Achievement: " + achievement.getCode(),
+                        XpSource.ACHIEVEMENT);
+                totalXp += achievement.getXpReward();
+                logger.info("Achievement unlocked: {} (+{} XP)",
+                        achievement.getTitle(), achievement.getXpReward());
+                if (anonymous) {
+                    continue;
+                }
+                leaderboardService.onXp(userId, achievement.getXpReward());
+                activityFeedService.publish(userId, ActivityFeedService.ACHIEVEMENT, Map.of(
+                        "code", achievement.getCode(),
+                        "title", achievement.getTitle(),
+                        "icon", achievement.getIcon()));
+            }
+            unlocked.addAll(achievementEngine.onMetric(userId, AchievementEngine.Metric.LEVEL,
+                    UserProgress.levelForXp(totalXp)));
         }
 
-        if (!newlyUnlocked.isEmpty()) {
-            progressRepository.save(progress);
+        int level = UserProgress.levelForXp(totalXp);
+        if (level > UserProgress.levelForXp(previousXp)) {
+            logger.info("User leveled up to level {}!", level);
+            if (!anonymous) {
+                activityFeedService.publish(userId, ActivityFeedService.LEVEL_UP, Map.of("level", level));
+            }
         }
-
-        return newlyUnlocked;
     }
 
-    /**
-     * Helper method to check and unlock a single achievement
-     */
-    private void checkAchievement(Achievement achievement, boolean condition, List<Achievement> newlyUnlocked) {
-        if (condition && !isAchievementUnlocked(achievement)) {
-            unlockAchievement(achievement);
-            newlyUnlocked.add(achievement);
+    // Only once the streak update is committed
+    private void markStreakCounted(Long userId, LocalDate day) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            streakCountedOn.put(userId, day);
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                streakCountedOn.put(userId, day);
+            }
+        });
     }
 
-    /**
-     * Check if achievement is already unlocked
-     */
-    public boolean isAchievementUnlocked(Achievement achievement) {
-        return achievementRepository.existsByUserIdAndAchievementCode(
-                DEFAULT_USER_ID, achievement.getCode());
+    private Object lockFor(Long userId) {
+        return progressLocks[Math.floorMod(userId.hashCode(), LOCK_STRIPES)];
     }
 
     /**
-     * Unlock an achievement
+     * Check if achievement is already unlocked
      */
-    @Transactional
-    public void unlockAchievement(Achievement achievement) {
-        if (!isAchievementUnlocked(achievement)) {
-            // Varsayılan kullanıcıyı bul veya oluştur
-            @SuppressWarnings("null")
-            User user = userRepository.findById(Long.valueOf(DEFAULT_USER_ID))
-                    .orElseGet(() -> {
-                        User newUser = new User("default@example.com", "Default User", "temp_hash", "#00001");
-                        return userRepository.save(newUser);
-                    });
-
-            UserAchievement userAchievement = new UserAchievement(user, achievement.getCode());
-            userAchievement.setAchievementName(achievement.getTitle());
-            userAchievement.setAchievementDescription(achievement.getDescription());
-            userAchievement.setXpReward(achievement.getXpReward());
-            achievementRepository.save(userAchievement);
-            logger.info("Unlocked achievement: {}", achievement.getCode());
-        }
+    public boolean isAchievementUnlocked(Achievement achievement) {
+        return achievementEngine.isUnlocked(CurrentUser.id(), achievement);
     }
 
     /**
      * Get all unlocked achievements
      */
     public List<Map<String, Object>> getUnlockedAchievements() {
-        List<UserAchievement> userAchievements = achievementRepository.findByUserId(DEFAULT_USER_ID);
+        List<UserAchievement> userAchievements = achievementRepository.findByUserId(CurrentUser.id());
         List<Map<String, Object>> result = new ArrayList<>();
 
         for (UserAchievement ua : userAchievements) {
@@ -264,23 +364,38 @@ public class ProgressService {
         return result;
     }
 
+    /**
+     * Latest XP ledger entries, newest first
+     */
+    public List<XpTransaction> getXpHistory(int limit) {
+        xpLedger.flush(); // include awards still queued in memory
+        return xpTransactionRepository.findByUserIdOrderByIdDesc(CurrentUser.id(),
+                PageRequest.of(0, Math.max(1, Math.min(limit, 200))));
+    }
+
     /**
      * Get progress stats
      */
     public Map<String, Object> getStats() {
-        UserProgress progress = getUserProgress();
+        Long userId = CurrentUser.id();
+        UserProgress progress = getUserProgress(userId);
+
+        // Live XP from the ledger; the stored total is only the compacted part
+        UserProgress live = new UserProgress();
+        live.setTotalXp(xpLedger.getTotalXp(userId));
+        live.setLevel(UserProgress.levelForXp(live.getTotalXp()));
 
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalXp", progress.getTotalXp());
-        stats.put("level", progress.getLevel());
+        stats.put("totalXp", live.getTotalXp());
+        stats.put("level", live.getLevel());
         stats.put("currentStreak", progress.getCurrentStreak());
         stats.put("longestStreak", progress.getLongestStreak());
-        stats.put("xpForNextLevel", progress.getXpForNextLevel());
-        stats.put("levelProgress", progress.getLevelProgress());
+        stats.put("xpForNextLevel", live.getXpForNextLevel());
+        stats.put("levelProgress", live.getLevelProgress());
         stats.put("lastActivityDate", progress.getLastActivityDate());
 
         // Achievement count
-        long unlockedCount = achievementRepository.findByUserId(DEFAULT_USER_ID).size();
+        long unlockedCount = achievementEngine.getUnlocked(userId).size();
         long totalCount = Achievement.values().length;
         stats.put("achievementsUnlocked", unlockedCount);
         stats.put("achievementsTotal", totalCount);
@@ -1,19 +1,50 @@
 package com.ingilizce.calismaapp.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingilizce.calismaapp.dto.ReviewSubmissionItem;
+import com.ingilizce.calismaapp.dto.ReviewWordDto;
+import com.ingilizce.calismaapp.dto.SentenceDto;
+import com.ingilizce.calismaapp.entity.ReviewSubmission;
 import com.ingilizce.calismaapp.entity.Word;
+import com.ingilizce.calismaapp.entity.WordReview;
+import com.ingilizce.calismaapp.model.Achievement;
+import com.ingilizce.calismaapp.model.ReviewState;
+import com.ingilizce.calismaapp.model.XpSource;
+import com.ingilizce.calismaapp.repository.ReviewSubmissionRepository;
+import com.ingilizce.calismaapp.repository.SentenceRepository;
 import com.ingilizce.calismaapp.repository.WordRepository;
+import com.ingilizce.calismaapp.repository.WordReviewRepository;
+import com.ingilizce.calismaapp.util.CursorCodec;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Spaced Repetition System (SRS) Service
- * Implements SuperMemo SM-2 algorithm for optimal learning intervals
+ * Scheduling is delegated to a SchedulingAlgorithm (SM-2 or FSRS, see srs.algorithm)
  */
 @Service
 public class SRSService {
@@ -23,13 +54,57 @@ public class SRSService {
     @Autowired
     private WordRepository wordRepository;
 
+    @Autowired
+    private SentenceRepository sentenceRepository;
+
     @Autowired
     private ProgressService progressService;
 
-    // SM-2 Algorithm Constants
-    private static final double MIN_EASE_FACTOR = 1.3;
+    @Autowired
+    private ReviewSubmissionRepository reviewSubmissionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private WordReviewRepository wordReviewRepository;
+
+    @Autowired
+    private DueQueueService dueQueueService;
+
+    @Autowired
+    private List<SchedulingAlgorithm> algorithms;
+
+    // sm2 | fsrs
+    @Value("${srs.algorithm:sm2}")
+    private String algorithmName;
+
+    private SchedulingAlgorithm algorithm;
+
     private static final int INITIAL_INTERVAL = 1; // days
-    private static final int SECOND_INTERVAL = 6; // days
+
+    public static final int MAX_QUEUE_PAGE_SIZE = 200;
+    public static final int MAX_BATCH_REVIEWS = 500;
+    private static final String REVIEW_TYPE_SRS = "srs";
+    private static final int UPCOMING_DAYS = 30;
+
+    // Word tablosu kullanıcıya bağlı değil, bu yüzden tek (global) bir stats girdisi yeterli
+    @Value("${srs.stats.cache-ttl-seconds:30}")
+    private long statsCacheTtlSeconds;
+
+    private volatile CachedStats cachedStats;
+
+    @PostConstruct
+    void selectAlgorithm() {
+        algorithm = algorithms.stream()
+                .filter(a -> a.name().equalsIgnoreCase(algorithmName.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown srs.algorithm: " + algorithmName));
+        logger.info("SRS scheduling algorithm: {}", algorithm.name());
+    }
 
     /**
      * Get all words that need review today or earlier
@@ -47,6 +122,100 @@ public class SRSService {
         return reviewWords;
     }
 
+    /**
+     * One page of the review queue: due words, most overdue first, then lowest
+     * ease factor (hardest words first). Keyset-paginated on
+     * (nextReviewDate, easeFactor, id) so deep pages cost the same as the first.
+     *
+     * @param cursor           nextCursor of the previous page, or null for the first page
+     * @param limit            page size (1..MAX_QUEUE_PAGE_SIZE)
+     * @param includeSentences load sentences for the page in one extra query
+     * @return map with "items" and "nextCursor" (null on the last page)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getReviewQueue(String cursor, int limit, boolean includeSentences) {
+        if (limit < 1 || limit > MAX_QUEUE_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_QUEUE_PAGE_SIZE);
+        }
+        LocalDate today = LocalDate.now();
+        PageRequest page = PageRequest.of(0, limit);
+
+        Slice<ReviewWordDto> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = wordRepository.findReviewQueue(today, page);
+        } else {
+            String[] keys = CursorCodec.decode(cursor, 3);
+            LocalDate afterDate;
+            Double afterEase;
+            Long afterId;
+            try {
+                afterDate = LocalDate.parse(keys[0]);
+                afterEase = Double.valueOf(keys[1]);
+                afterId = Long.valueOf(keys[2]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            slice = wordRepository.findReviewQueueAfter(today, afterDate, afterEase, afterId, page);
+        }
+
+        List<ReviewWordDto> items = includeSentences ? attachSentences(slice.getContent()) : slice.getContent();
+
+        String nextCursor = null;
+        if (slice.hasNext() && !items.isEmpty()) {
+            ReviewWordDto last = items.get(items.size() - 1);
+            nextCursor = CursorCodec.encode(last.nextReviewDate(),
+                    last.easeFactor() != null ? last.easeFactor() : 2.5, last.id());
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("items", items);
+        result.put("nextCursor", nextCursor);
+        return result;
+    }
+
+    /**
+     * Today's review queue, served from the materialized Redis queue when
+     * available and from the database otherwise (same order either way)
+     *
+     * @param offset multiple of limit when the database fallback is used
+     */
+    public Map<String, Object> getMaterializedQueue(int offset, int limit) {
+        if (limit < 1 || limit > MAX_QUEUE_PAGE_SIZE || offset < 0) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_QUEUE_PAGE_SIZE);
+        }
+        Map<String, Object> result = dueQueueService.getQueue(offset, limit);
+        if (result != null) {
+            result.put("source", "materialized");
+            return result;
+        }
+        LocalDate today = LocalDate.now();
+        Slice<ReviewWordDto> slice = wordRepository.findReviewQueue(today, PageRequest.of(offset / limit, limit));
+        result = new HashMap<>();
+        result.put("date", today.toString());
+        result.put("items", slice.getContent());
+        result.put("source", "database");
+        return result;
+    }
+
+    private List<ReviewWordDto> attachSentences(List<ReviewWordDto> words) {
+        if (words.isEmpty()) {
+            return words;
+        }
+        List<Long> ids = new ArrayList<>(words.size());
+        for (ReviewWordDto word : words) {
+            ids.add(word.id());
+        }
+        Map<Long, List<SentenceDto>> byWord = new HashMap<>();
+        for (SentenceDto sentence : sentenceRepository.findDtosByWordIdIn(ids)) {
+            byWord.computeIfAbsent(sentence.wordId(), k -> new ArrayList<>()).add(sentence);
+        }
+        List<ReviewWordDto> result = new ArrayList<>(words.size());
+        for (ReviewWordDto word : words) {
+            result.add(word.withSentences(byWord.getOrDefault(word.id(), new ArrayList<>())));
+        }
+        return result;
+    }
+
     /**
      * Submit a review result and calculate next review date
      * 
@@ -76,94 +245,200 @@ public class SRSService {
             initializeWordForSRS(word);
         }
 
-        // Update review count
-        int reviewCount = word.getReviewCount() + 1;
-        word.setReviewCount(reviewCount);
-
-        // Update last review date
-        word.setLastReviewDate(LocalDate.now());
-
-        // Calculate new ease factor using SM-2 algorithm
-        double easeFactor = calculateEaseFactor(word.getEaseFactor(), quality);
-        word.setEaseFactor(easeFactor);
-
-        // Calculate next review interval
-        int interval = calculateInterval(reviewCount, easeFactor, quality);
-
-        // Set next review date
-        LocalDate nextReviewDate = LocalDate.now().plusDays(interval);
-        word.setNextReviewDate(nextReviewDate);
-
-        logger.info("Updated word '{}': reviewCount={}, easeFactor={}, interval={} days, nextReview={}",
-                word.getEnglishWord(), reviewCount, easeFactor, interval, nextReviewDate);
+        LocalDate today = LocalDate.now();
+        ReviewState next = algorithm.schedule(new ReviewState(word.getReviewCount(),
+                word.getEaseFactor() != null ? word.getEaseFactor() : Sm2Scheduler.DEFAULT_EASE_FACTOR,
+                word.getFsrsStability(), word.getFsrsDifficulty(), word.getLastReviewDate(),
+                word.getNextReviewDate()), quality, today);
+
+        word.setReviewCount(next.reviewCount());
+        word.setEaseFactor(next.easeFactor());
+        word.setFsrsStability(next.stability());
+        word.setFsrsDifficulty(next.difficulty());
+        word.setLastReviewDate(today);
+        word.setNextReviewDate(next.nextReviewDate());
+
+        logger.info("Updated word '{}' ({}): reviewCount={}, easeFactor={}, nextReview={}",
+                word.getEnglishWord(), algorithm.name(), next.reviewCount(), next.easeFactor(),
+                next.nextReviewDate());
+
+        // Review log (calendar + FSRS optimizer input)
+        WordReview log = new WordReview(word, today);
+        log.setReviewType(REVIEW_TYPE_SRS);
+        log.setQuality(quality);
+        wordReviewRepository.save(log);
 
         Word savedWord = wordRepository.save(word);
+        invalidateStats();
+        dueQueueService.refreshAfterCommit(List.of(wordId));
 
-        // Award XP based on quality
-        int xpEarned = 0;
-        switch (quality) {
-            case 5:
-                xpEarned = 5;
-                break; // Easy
-            case 4:
-                xpEarned = 4;
-                break; // Good
-            case 3:
-                xpEarned = 2;
-                break; // Hard
-            default:
-                xpEarned = 1;
-                break; // Again (Teselli puanı)
-        }
-
-        progressService.awardXp(xpEarned, "Review: " + word.getEnglishWord() + " (Quality: " + quality + ")");
+        int xpEarned = xpForQuality(quality);
+        progressService.awardXp(xpEarned, "Review: " + word.getEnglishWord() + " (Quality: " + quality + ")",
+                XpSource.REVIEW, 1);
         progressService.updateStreak(); // Update daily streak
 
         return savedWord;
     }
 
     /**
-     * Calculate new ease factor using SM-2 algorithm
-     * EF' = EF + (0.1 - (5 - q) * (0.08 + (5 - q) * 0.02))
+     * Apply a whole offline review session at once.
+     * 
+     * Words are loaded with one projection query, scheduling runs in memory (cards
+     * for the same word are applied in review order), rows are written with a
+     * single JDBC batch, and XP, streak and achievements are evaluated once for
+     * the session. The result is stored under the idempotency key, so a
+     * replay returns it unchanged instead of reviewing the cards twice.
+     * 
+     * @return response map (processed, skipped word ids, xpEarned, results, ...)
      */
-    private double calculateEaseFactor(Double currentEF, int quality) {
-        double ef = (currentEF != null) ? currentEF : 2.5;
+    @Transactional
+    public Map<String, Object> submitReviews(String idempotencyKey, List<ReviewSubmissionItem> reviews) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > 100) {
+            throw new IllegalArgumentException("idempotencyKey is required (max 100 characters)");
+        }
+        if (reviews == null || reviews.isEmpty() || reviews.size() > MAX_BATCH_REVIEWS) {
+            throw new IllegalArgumentException("reviews must contain 1 to " + MAX_BATCH_REVIEWS + " items");
+        }
+        for (ReviewSubmissionItem review : reviews) {
+            if (review.wordId() == null) {
+                throw new IllegalArgumentException("wordId is required");
+            }
+            if (review.quality() < 0 || review.quality() > 5) {
+                throw new IllegalArgumentException("Quality must be between 0 and 5");
+            }
+        }
 
-        // SM-2 formula
-        ef = ef + (0.1 - (5 - quality) * (0.08 + (5 - quality) * 0.02));
+        Optional<Map<String, Object>> previous = findSubmission(idempotencyKey);
+        if (previous.isPresent()) {
+            logger.info("Review submission '{}' already processed, replaying stored result", idempotencyKey);
+            return previous.get();
+        }
 
-        // Ensure EF doesn't go below minimum
-        if (ef < MIN_EASE_FACTOR) {
-            ef = MIN_EASE_FACTOR;
+        LocalDate today = LocalDate.now();
+        Set<Long> wordIds = new LinkedHashSet<>();
+        for (ReviewSubmissionItem review : reviews) {
+            wordIds.add(review.wordId());
+        }
+        Map<Long, WordRepository.SrsState> states = new HashMap<>();
+        for (WordRepository.SrsState state : wordRepository.findSrsStateByIdIn(wordIds)) {
+            states.put(state.getId(), state);
         }
 
-        return Math.round(ef * 100.0) / 100.0; // Round to 2 decimal places
-    }
+        // Stable sort: cards of the same word keep their submitted order within a day
+        List<ReviewSubmissionItem> ordered = new ArrayList<>(reviews);
+        ordered.sort(Comparator.comparing(r -> r.reviewedOn() != null ? r.reviewedOn() : today));
 
-    /**
-     * Calculate interval until next review
-     */
-    private int calculateInterval(int reviewCount, double easeFactor, int quality) {
-        // If quality < 3, reset to beginning
-        if (quality < 3) {
-            return INITIAL_INTERVAL;
+        Map<Long, ReviewState> updated = new LinkedHashMap<>();
+        List<Object[]> reviewLog = new ArrayList<>(reviews.size());
+        List<Long> skipped = new ArrayList<>();
+        int xpEarned = 0;
+        for (ReviewSubmissionItem review : ordered) {
+            WordRepository.SrsState state = states.get(review.wordId());
+            if (state == null) {
+                skipped.add(review.wordId());
+                continue;
+            }
+            // Device clocks can be ahead; never schedule from a future date
+            LocalDate reviewedOn = review.reviewedOn() == null || review.reviewedOn().isAfter(today)
+                    ? today
+                    : review.reviewedOn();
+
+            ReviewState current = updated.get(review.wordId());
+            if (current == null) {
+                current = new ReviewState(state.getReviewCount() != null ? state.getReviewCount() : 0,
+                        state.getEaseFactor() != null ? state.getEaseFactor() : Sm2Scheduler.DEFAULT_EASE_FACTOR,
+                        state.getFsrsStability(), state.getFsrsDifficulty(), state.getLastReviewDate(),
+                        state.getNextReviewDate());
+            }
+            updated.put(review.wordId(), algorithm.schedule(current, review.quality(), reviewedOn));
+            reviewLog.add(new Object[] { review.wordId(), reviewedOn, REVIEW_TYPE_SRS, review.quality() });
+            xpEarned += xpForQuality(review.quality());
         }
 
-        // First review
-        if (reviewCount == 1) {
-            return INITIAL_INTERVAL;
+        List<Object[]> batchArgs = new ArrayList<>(updated.size());
+        List<Map<String, Object>> results = new ArrayList<>(updated.size());
+        for (Map.Entry<Long, ReviewState> entry : updated.entrySet()) {
+            ReviewState v = entry.getValue();
+            batchArgs.add(new Object[] { v.reviewCount(), v.easeFactor(), v.stability(), v.difficulty(),
+                    v.nextReviewDate(), v.lastReviewDate(), entry.getKey() });
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("wordId", entry.getKey());
+            result.put("reviewCount", v.reviewCount());
+            result.put("easeFactor", v.easeFactor());
+            result.put("nextReviewDate", v.nextReviewDate().toString());
+            results.add(result);
+        }
+        if (!batchArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE words SET review_count = ?, ease_factor = ?, fsrs_stability = ?, "
+                    + "fsrs_difficulty = ?, next_review_date = ?, last_review_date = ? WHERE id = ?", batchArgs);
+            jdbcTemplate.batchUpdate("INSERT INTO word_reviews (word_id, review_date, review_type, quality) "
+                    + "VALUES (?, ?, ?, ?)", reviewLog);
         }
 
-        // Second review
-        if (reviewCount == 2) {
-            return SECOND_INTERVAL;
+        List<String> unlocked = new ArrayList<>();
+        if (!updated.isEmpty()) {
+            // Streak first so streak achievements see today's value
+            progressService.updateStreak();
+            for (Achievement achievement : progressService.awardXp(xpEarned,
+                    "Review session: " + (reviews.size() - skipped.size()) + " cards", XpSource.REVIEW,
+                    reviews.size() - skipped.size())) {
+                unlocked.add(achievement.getCode());
+            }
+        }
+        invalidateStats();
+        dueQueueService.refreshAfterCommit(updated.keySet());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("idempotencyKey", idempotencyKey);
+        response.put("processed", reviews.size() - skipped.size());
+        response.put("skippedWordIds", skipped);
+        response.put("xpEarned", xpEarned);
+        response.put("newAchievements", unlocked);
+        response.put("results", results);
+        response.put("replayed", false);
+
+        try {
+            reviewSubmissionRepository.saveAndFlush(
+                    new ReviewSubmission(idempotencyKey, objectMapper.writeValueAsString(response)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store review submission", e);
         }
 
-        // Subsequent reviews: multiply previous interval by ease factor
-        // For simplicity, we'll use a formula: interval = 6 * (EF ^ (n-2))
-        int interval = (int) Math.round(SECOND_INTERVAL * Math.pow(easeFactor, reviewCount - 2));
+        logger.info("Review session '{}': {} cards, {} words updated, {} skipped, +{} XP", idempotencyKey,
+                reviews.size(), updated.size(), skipped.size(), xpEarned);
+        return response;
+    }
+
+    /**
+     * Stored result of an already processed submission, marked as replayed
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> findSubmission(String idempotencyKey) {
+        return reviewSubmissionRepository.findByIdempotencyKey(idempotencyKey).map(submission -> {
+            try {
+                Map<String, Object> stored = objectMapper.readValue(submission.getResponseJson(),
+                        new TypeReference<Map<String, Object>>() {
+                        });
+                stored.put("replayed", true);
+                return stored;
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Stored review submission is unreadable", e);
+            }
+        });
+    }
 
-        return interval;
+    private int xpForQuality(int quality) {
+        switch (quality) {
+            case 5:
+                return 5; // Easy
+            case 4:
+                return 4; // Good
+            case 3:
+                return 2; // Hard
+            default:
+                return 1; // Again (Teselli puanı)
+        }
     }
 
     /**
@@ -179,7 +454,7 @@ public class SRSService {
             word.setReviewCount(0);
         }
         if (word.getEaseFactor() == null) {
-            word.setEaseFactor(2.5);
+            word.setEaseFactor(Sm2Scheduler.DEFAULT_EASE_FACTOR);
         }
 
         logger.info("Initialized SRS for word '{}': nextReview={}",
@@ -189,28 +464,77 @@ public class SRSService {
     /**
      * Get SRS statistics
      * 
+     * Computed by one GROUP BY over words and cached for a few seconds; any
+     * review submission drops the cache so counters never lag behind the user.
+     * 
      * @return Map of statistics
      */
-    public java.util.Map<String, Object> getStats() {
-        java.util.Map<String, Object> stats = new java.util.HashMap<>();
-
+    public Map<String, Object> getStats() {
+        CachedStats cached = cachedStats;
         LocalDate today = LocalDate.now();
+        if (cached != null && cached.date.equals(today) && System.currentTimeMillis() < cached.expiresAt) {
+            return cached.stats;
+        }
 
-        // Words due today
-        List<Word> dueToday = wordRepository.findByNextReviewDateLessThanEqual(today);
-        stats.put("dueToday", dueToday.size());
+        long total = 0, reviewed = 0, overdue = 0, dueOnlyToday = 0;
+        long[] upcoming = new long[UPCOMING_DAYS + 1];
+        for (Object[] row : wordRepository.aggregateReviewBuckets(today)) {
+            long words = ((Number) row[1]).longValue();
+            total += words;
+            reviewed += ((Number) row[2]).longValue();
+            if (row[0] == null) {
+                continue;
+            }
+            int bucket = ((Number) row[0]).intValue();
+            if (bucket < 0) {
+                overdue += words;
+            } else if (bucket == 0) {
+                dueOnlyToday += words;
+            } else if (bucket <= UPCOMING_DAYS) {
+                upcoming[bucket] = words;
+            }
+        }
 
-        // Total words
-        long totalWords = wordRepository.count();
-        stats.put("totalWords", totalWords);
+        List<Map<String, Object>> histogram = new ArrayList<>(UPCOMING_DAYS);
+        for (int day = 1; day <= UPCOMING_DAYS; day++) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("date", today.plusDays(day).toString());
+            entry.put("count", upcoming[day]);
+            histogram.add(entry);
+        }
 
-        // Words reviewed (review_count > 0)
-        List<Word> reviewedWords = wordRepository.findByReviewCountGreaterThan(0);
-        stats.put("reviewedWords", reviewedWords.size());
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("dueToday", overdue + dueOnlyToday); // includes overdue, as before
+        stats.put("overdue", overdue);
+        stats.put("totalWords", total);
+        stats.put("reviewedWords", reviewed);
+        stats.put("upcoming", histogram);
 
-        logger.info("SRS Stats: dueToday={}, totalWords={}, reviewedWords={}",
-                dueToday.size(), totalWords, reviewedWords.size());
+        logger.debug("SRS Stats: dueToday={}, overdue={}, totalWords={}, reviewedWords={}",
+                overdue + dueOnlyToday, overdue, total, reviewed);
 
+        if (statsCacheTtlSeconds > 0) {
+            cachedStats = new CachedStats(today, System.currentTimeMillis() + statsCacheTtlSeconds * 1000, stats);
+        }
         return stats;
     }
+
+    /**
+     * Drop cached stats (called after anything that changes review dates or counts)
+     */
+    public void invalidateStats() {
+        cachedStats = null;
+        // A read between now and commit would cache pre-commit counts; drop again once committed
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cachedStats = null;
+                }
+            });
+        }
+    }
+
+    private record CachedStats(LocalDate date, long expiresAt, Map<String, Object> stats) {
+    }
 }
@@ -0,0 +1,22 @@
+package com.ingilizce.calismaapp.service;
+
+import com.ingilizce.calismaapp.model.ReviewState;
+
+import java.time.LocalDate;
+
+/**
+ * Spaced repetition scheduler. SRSService picks the implementation whose
+ * name() matches srs.algorithm.
+ */
+public interface SchedulingAlgorithm {
+
+    String name();
+
+    /**
+     * @param current    state before the review
+     * @param quality    recall quality 0-5 (see SRSService.submitReview)
+     * @param reviewedOn day of the review
+     * @return state after the review, including the next review date
+     */
+    ReviewState schedule(ReviewState current, int quality, LocalDate reviewedOn);
+}
@@ -0,0 +1,194 @@
+package com.ingilizce.calismaapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Word and sentence search on PostgreSQL pg_trgm.
+ *
+ * Text is compared through search_fold(): lower case with Turkish letters
+ * folded to ASCII (İ/I/ı -> i, ç -> c, ğ -> g, ...), so "kisi", "kişi" and
+ * "KİŞİ" all match. The GIN trigram indexes are expression indexes on
+ * search_fold(column), kept up to date by Postgres itself on every write,
+ * and serve both the typo-tolerant similarity (%, <%) and substring LIKE
+ * predicates; a text_pattern_ops index serves short prefixes.
+ *
+ * If the extension cannot be installed (no privilege) search degrades to
+ * search_fold(...) LIKE, which folds the same way but is not indexed;
+ * search_fold() itself needs only core functions and is created first.
+ */
+@Service
+public class SearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+
+    public static final int MAX_LIMIT = 50;
+
+    // Same mapping as fold() below; IMMUTABLE so it can back an index
+    private static final String FOLD_FUNCTION = "CREATE OR REPLACE FUNCTION search_fold(text) RETURNS text "
+            + "LANGUAGE sql IMMUTABLE PARALLEL SAFE AS "
+            + "$$ SELECT translate(lower(translate($1, 'İIı', 'iii')), 'çğöşüâîû', 'cgosuaiu') $$";
+
+    private static final List<String> INDEXES = List.of(
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_words_english_trgm "
+                    + "ON words USING gin (search_fold(english_word) gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_words_turkish_trgm "
+                    + "ON words USING gin (search_fold(turkish_meaning) gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_words_english_fold_prefix "
+                    + "ON words (search_fold(english_word) text_pattern_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_sentences_sentence_trgm "
+                    + "ON sentences USING gin (search_fold(sentence) gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_sentences_translation_trgm "
+                    + "ON sentences USING gin (search_fold(translation) gin_trgm_ops)");
+
+    private static final String WORD_SEARCH = "SELECT id, english_word, turkish_meaning, difficulty, score FROM ("
+            + " SELECT w.id, w.english_word, w.turkish_meaning, w.difficulty,"
+            + " CASE WHEN search_fold(w.english_word) = ? THEN 3"
+            + " WHEN search_fold(w.english_word) LIKE ? THEN 2"
+            + " WHEN search_fold(w.turkish_meaning) LIKE ? THEN 1.5 ELSE 0 END"
+            + " + GREATEST(similarity(search_fold(w.english_word), ?),"
+            + " COALESCE(similarity(search_fold(w.turkish_meaning), ?), 0)) AS score"
+            + " FROM words w"
+            + " WHERE search_fold(w.english_word) LIKE ? OR search_fold(w.english_word) % ?"
+            + " OR search_fold(w.turkish_meaning) LIKE ? OR search_fold(w.turkish_meaning) % ?"
+            + ") ranked ORDER BY score DESC, id LIMIT ?";
+
+    private static final String SENTENCE_SEARCH = "SELECT id, word_id, sentence, translation, score FROM ("
+            + " SELECT s.id, s.word_id, s.sentence, s.translation,"
+            + " CASE WHEN search_fold(s.sentence) LIKE ? OR search_fold(s.translation) LIKE ? THEN 1 ELSE 0 END"
+            + " + GREATEST(word_similarity(?, search_fold(s.sentence)),"
+            + " COALESCE(word_similarity(?, search_fold(s.translation)), 0)) AS score"
+            + " FROM sentences s"
+            + " WHERE search_fold(s.sentence) LIKE ? OR ? <% search_fold(s.sentence)"
+            + " OR search_fold(s.translation) LIKE ? OR ? <% search_fold(s.translation)"
+            + ") ranked ORDER BY score DESC, id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean indexed = false;
+
+    // Column wrapper for the LIKE fallback; lower() only if search_fold() could not be created
+    private volatile String foldColumn = "lower";
+
+    public SearchService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Idempotent: runs after Hibernate has created/updated the tables
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            jdbcTemplate.execute(FOLD_FUNCTION);
+            foldColumn = "search_fold";
+        } catch (Exception e) {
+            logger.warn("search_fold() could not be created, LIKE search will not fold Turkish letters: {}",
+                    e.getMessage());
+            return;
+        }
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            long started = System.currentTimeMillis();
+            for (String ddl : INDEXES) {
+                jdbcTemplate.execute(ddl);
+            }
+            indexed = true;
+            logger.info("Search indexes ready in {} ms", System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            logger.warn("pg_trgm search unavailable, falling back to LIKE search: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param type words | sentences | all
+     */
+    public Map<String, Object> search(String query, String type, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("q is required");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (!List.of("words", "sentences", "all").contains(type)) {
+            throw new IllegalArgumentException("type must be words, sentences or all");
+        }
+        long started = System.nanoTime();
+        String q = fold(query.trim());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("query", query);
+        if (!type.equals("sentences")) {
+            result.put("words", indexed ? searchWords(q, limit) : likeSearchWords(q, limit));
+        }
+        if (!type.equals("words")) {
+            result.put("sentences", indexed ? searchSentences(q, limit) : likeSearchSentences(q, limit));
+        }
+        result.put("mode", indexed ? "trigram" : "like");
+        result.put("tookMs", (System.nanoTime() - started) / 1_000_000.0);
+        return result;
+    }
+
+    private List<Map<String, Object>> searchWords(String q, int limit) {
+        String prefix = escapeLike(q) + "%";
+        return jdbcTemplate.queryForList(WORD_SEARCH, q, prefix, prefix, q, q, prefix, q, prefix, q, limit);
+    }
+
+    private List<Map<String, Object>> searchSentences(String q, int limit) {
+        String contains = "%" + escapeLike(q) + "%";
+        return jdbcTemplate.queryForList(SENTENCE_SEARCH, contains, contains, q, q, contains, q, contains, q,
+                limit);
+    }
+
+    private List<Map<String, Object>> likeSearchWords(String q, int limit) {
+        String contains = "%" + escapeLike(q) + "%";
+        String f = foldColumn;
+        return jdbcTemplate.queryForList("SELECT id, english_word, turkish_meaning, difficulty FROM words"
+                + " WHERE " + f + "(english_word) LIKE ? OR " + f + "(turkish_meaning) LIKE ?"
+                + " ORDER BY CASE WHEN " + f + "(english_word) LIKE ? THEN 0 ELSE 1 END, length(english_word), id"
+                + " LIMIT ?", contains, contains, escapeLike(q) + "%", limit);
+    }
+
+    private List<Map<String, Object>> likeSearchSentences(String q, int limit) {
+        String contains = "%" + escapeLike(q) + "%";
+        String f = foldColumn;
+        return jdbcTemplate.queryForList("SELECT id, word_id, sentence, translation FROM sentences"
+                + " WHERE " + f + "(sentence) LIKE ? OR " + f + "(translation) LIKE ? ORDER BY id LIMIT ?",
+                contains, contains, limit);
+    }
+
+    /**
+     * Java twin of the SQL search_fold() function
+     */
+    static String fold(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (char c : text.replace('İ', 'i').replace('I', 'i').replace('ı', 'i').toLowerCase(Locale.ROOT)
+                .toCharArray()) {
+            switch (c) {
+                case 'ç' -> sb.append('c');
+                case 'ğ' -> sb.append('g');
+                case 'ö' -> sb.append('o');
+                case 'ş' -> sb.append('s');
+                case 'ü' -> sb.append('u');
+                case 'â' -> sb.append('a');
+                case 'î' -> sb.append('i');
+                case 'û' -> sb.append('u');
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,216 @@
+package com.ingilizce.calismaapp.service;
+
+import com.ingilizce.calismaapp.dto.PracticeSentence;
+import com.ingilizce.calismaapp.repository.WordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the sentence bank at a target depth of unseen sentences, first for
+ * recently requested (word, level, length) combos, then for every Word in the
+ * database at the default level/length. The vocabulary scan resumes where the
+ * previous run ran out of budget and wraps around, so words late in the
+ * alphabet get their turn; depths are read with one grouped query per page.
+ * Generations bypass the LLM cache so every refill adds new sentences, and run
+ * at BACKGROUND priority so they only use Groq capacity that live users are
+ * not using.
+ */
+@Component
+public class SentenceBankRefillJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(SentenceBankRefillJob.class);
+    private static final int PAGE_SIZE = 200;
+    // A combo that keeps coming back empty (bad word, parse errors) should not eat the run budget
+    private static final int MAX_ATTEMPTS_PER_COMBO = 3;
+
+    private final SentenceBankService sentenceBankService;
+    private final ChatbotService chatbotService;
+    private final WordRepository wordRepository;
+
+    @Value("${sentence-bank.target-depth:10}")
+    private int targetDepth;
+
+    @Value("${sentence-bank.max-generations-per-run:30}")
+    private int maxGenerationsPerRun;
+
+    @Value("${sentence-bank.generation-timeout-seconds:60}")
+    private long generationTimeoutSeconds;
+
+    @Value("${sentence-bank.default-level:B1}")
+    private String defaultLevel;
+
+    @Value("${sentence-bank.default-length:medium}")
+    private String defaultLength;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile Map<String, Object> lastRun = new HashMap<>();
+
+    // Last word text the vocabulary scan reached; "" starts from the beginning
+    private volatile String scanCursor = "";
+
+    public SentenceBankRefillJob(SentenceBankService sentenceBankService, ChatbotService chatbotService,
+            WordRepository wordRepository) {
+        this.sentenceBankService = sentenceBankService;
+        this.chatbotService = chatbotService;
+        this.wordRepository = wordRepository;
+    }
+
+    @Scheduled(fixedDelayString = "${sentence-bank.refill-interval-ms:600000}", initialDelayString = "${sentence-bank.initial-delay-ms:120000}")
+    public void scheduledRefill() {
+        if (sentenceBankService.isEnabled()) {
+            start();
+        }
+    }
+
+    /**
+     * Start a refill run in the background (Groq calls must not hold the shared scheduler thread)
+     *
+     * @return false if a run is already in progress
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                run();
+            } catch (Exception e) {
+                logger.error("Sentence bank refill failed: {}", e.getMessage(), e);
+            } finally {
+                running.set(false);
+            }
+        }, "sentence-bank-refill");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public Map<String, Object> getLastRun() {
+        return lastRun;
+    }
+
+    private void run() {
+        long started = System.currentTimeMillis();
+        int[] counters = new int[3]; // generations, deposited, failed
+
+        // Hot combos first, then the whole vocabulary at the default level/length
+        Set<String> visited = new LinkedHashSet<>();
+        for (String[] combo : sentenceBankService.drainHotCombos()) {
+            if (counters[0] >= maxGenerationsPerRun) {
+                break;
+            }
+            if (visited.add(combo[0] + "|" + combo[1] + "|" + combo[2])) {
+                refill(combo[0], combo[1], combo[2],
+                        sentenceBankService.depth(combo[0], combo[1], combo[2]), counters);
+            }
+        }
+
+        // Resume after the word the previous run stopped at; wrap around once
+        String start = scanCursor;
+        String cursor = start;
+        boolean wrapped = false;
+        while (counters[0] < maxGenerationsPerRun) {
+            Slice<String> slice = wordRepository.findDistinctEnglishWordsAfter(cursor, PageRequest.of(0, PAGE_SIZE));
+            List<String> texts = slice.getContent();
+            boolean lapDone = !slice.hasNext();
+            if (wrapped) {
+                String from = start;
+                texts = texts.stream().filter(text -> text.compareTo(from) <= 0).toList();
+                lapDone |= texts.size() < slice.getNumberOfElements();
+            }
+            String reached = refillPage(texts, visited, counters);
+            if (reached != null) {
+                cursor = reached;
+            }
+            if (counters[0] >= maxGenerationsPerRun) {
+                break;
+            }
+            if (lapDone) {
+                // Whole vocabulary visited: the next run starts from the top
+                cursor = "";
+                if (wrapped || start.isEmpty()) {
+                    break;
+                }
+                wrapped = true;
+            }
+        }
+        scanCursor = cursor;
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("generations", counters[0]);
+        result.put("deposited", counters[1]);
+        result.put("failed", counters[2]);
+        result.put("combosVisited", visited.size());
+        result.put("scanCursor", cursor);
+        result.put("durationMs", System.currentTimeMillis() - started);
+        result.put("finishedAt", System.currentTimeMillis());
+        lastRun = result;
+        logger.info("Sentence bank refill finished: {}", result);
+    }
+
+    /**
+     * Refill the default level/length for one page of word texts
+     *
+     * @return the last text handled before the budget ran out, null if none
+     */
+    private String refillPage(List<String> texts, Set<String> visited, int[] counters) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String text : texts) {
+            if (text != null && !text.isBlank()) {
+                words.add(text.trim().toLowerCase());
+            }
+        }
+        Map<String, Long> depths = sentenceBankService.depths(words, defaultLevel, defaultLength);
+
+        String reached = null;
+        for (String text : texts) {
+            if (counters[0] >= maxGenerationsPerRun) {
+                break;
+            }
+            if (text != null && !text.isBlank()) {
+                String word = text.trim().toLowerCase();
+                if (visited.add(word + "|" + defaultLevel + "|" + defaultLength)) {
+                    refill(word, defaultLevel, defaultLength, depths.getOrDefault(word, 0L), counters);
+                }
+            }
+            reached = text;
+        }
+        return reached;
+    }
+
+    private void refill(String word, String level, String length, long depth, int[] counters) {
+        int attempts = 0;
+        while (attempts < MAX_ATTEMPTS_PER_COMBO && counters[0] < maxGenerationsPerRun && depth < targetDepth) {
+            attempts++;
+            counters[0]++;
+            try {
+                List<PracticeSentence> generated = chatbotService
+                        .generatePracticeSentences(word, List.of(level), List.of(length), true)
+                        .get(generationTimeoutSeconds, TimeUnit.SECONDS);
+                int added = sentenceBankService.deposit(word, level, length, generated);
+                counters[1] += added;
+                depth += added;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                counters[2]++;
+                logger.debug("Sentence bank refill failed for '{}' ({}/{}): {}", word, level, length,
+                        e.getMessage());
+            }
+        }
+    }
+}
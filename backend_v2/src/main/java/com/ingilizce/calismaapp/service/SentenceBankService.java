@@ -0,0 +1,189 @@
+package com.ingilizce.calismaapp.service;
+
+import com.ingilizce.calismaapp.dto.PracticeSentence;
+import com.ingilizce.calismaapp.entity.SentenceBankEntry;
+import com.ingilizce.calismaapp.repository.SentenceBankRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Postgres-backed bank of pre-generated practice sentences, keyed by
+ * (word, CEFR level, length). generate-sentences serves from here and only
+ * calls Groq on a miss; SentenceBankRefillJob keeps the bank topped up.
+ */
+@Service
+public class SentenceBankService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SentenceBankService.class);
+
+    // Bounds the in-memory demand table between refill runs
+    private static final int MAX_TRACKED_COMBOS = 10_000;
+
+    private final SentenceBankRepository sentenceBankRepository;
+
+    @Value("${sentence-bank.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sentence-bank.hot-threshold:3}")
+    private int hotThreshold;
+
+    // "word|level|length" -> requests since the last refill run
+    private final Map<String, AtomicInteger> demand = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong partialHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong deposited = new AtomicLong();
+
+    public SentenceBankService(SentenceBankRepository sentenceBankRepository) {
+        this.sentenceBankRepository = sentenceBankRepository;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Claim up to {@code count} unseen sentences and record the request as demand.
+     * Never throws: a bank failure just means a live generation.
+     */
+    public List<PracticeSentence> take(String word, List<String> levels, List<String> lengths, int count) {
+        if (!enabled) {
+            return Collections.emptyList();
+        }
+        recordDemand(word, levels, lengths);
+
+        List<SentenceBankEntry> entries;
+        try {
+            entries = sentenceBankRepository.takeRandom(word, levels, lengths, count);
+        } catch (Exception e) {
+            logger.warn("Sentence bank lookup failed for '{}': {}", word, e.getMessage());
+            misses.incrementAndGet();
+            return Collections.emptyList();
+        }
+
+        if (entries.size() >= count) {
+            hits.incrementAndGet();
+        } else if (!entries.isEmpty()) {
+            partialHits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+
+        List<PracticeSentence> sentences = new ArrayList<>(entries.size());
+        for (SentenceBankEntry entry : entries) {
+            sentences.add(new PracticeSentence(entry.getEnglishSentence(), entry.getTurkishTranslation(),
+                    entry.getTurkishFullTranslation()));
+        }
+        return sentences;
+    }
+
+    @Transactional
+    public int deposit(String word, String level, String length, List<PracticeSentence> sentences) {
+        List<SentenceBankEntry> entries = new ArrayList<>();
+        for (PracticeSentence ps : sentences) {
+            if (ps.englishSentence() == null || ps.englishSentence().isBlank()) {
+                continue;
+            }
+            entries.add(new SentenceBankEntry(word, level, length, ps.englishSentence(),
+                    ps.turkishTranslation(), ps.turkishFullTranslation()));
+        }
+        sentenceBankRepository.saveAll(entries);
+        deposited.addAndGet(entries.size());
+        return entries.size();
+    }
+
+    public long depth(String word, String level, String length) {
+        return sentenceBankRepository.countByWordAndLevelAndLength(word, level, length);
+    }
+
+    /**
+     * Depth of each word at one level/length, one grouped query for the batch
+     */
+    public Map<String, Long> depths(Collection<String> words, String level, String length) {
+        Map<String, Long> depths = new HashMap<>();
+        if (words.isEmpty()) {
+            return depths;
+        }
+        for (Object[] row : sentenceBankRepository.countByWordIn(words, level, length)) {
+            depths.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return depths;
+    }
+
+    /**
+     * Combos requested at least hot-threshold times since the last call, most
+     * requested first. Counters are halved afterwards so demand decays over time.
+     *
+     * @return list of {word, level, length}
+     */
+    public List<String[]> drainHotCombos() {
+        List<Map.Entry<String, AtomicInteger>> hot = new ArrayList<>();
+        for (Map.Entry<String, AtomicInteger> entry : demand.entrySet()) {
+            if (entry.getValue().get() >= hotThreshold) {
+                hot.add(entry);
+            }
+        }
+        hot.sort((a, b) -> Integer.compare(b.getValue().get(), a.getValue().get()));
+
+        List<String[]> combos = new ArrayList<>(hot.size());
+        for (Map.Entry<String, AtomicInteger> entry : hot) {
+            // Split from the right: level and length never contain '|', the word might
+            String key = entry.getKey();
+            int second = key.lastIndexOf('|');
+            int first = key.lastIndexOf('|', second - 1);
+            combos.add(new String[] { key.substring(0, first), key.substring(first + 1, second),
+                    key.substring(second + 1) });
+        }
+
+        demand.entrySet().removeIf(entry -> entry.getValue().updateAndGet(v -> v / 2) == 0);
+        return combos;
+    }
+
+    public Map<String, Object> getStats() {
+        long h = hits.get(), p = partialHits.get(), m = misses.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("hits", h);
+        stats.put("partialHits", p);
+        stats.put("misses", m);
+        stats.put("hitRate", h + p + m == 0 ? 0.0 : (double) h / (h + p + m));
+        stats.put("deposited", deposited.get());
+        stats.put("trackedCombos", demand.size());
+        try {
+            stats.put("bankSize", sentenceBankRepository.count());
+        } catch (Exception e) {
+            stats.put("bankSize", null);
+        }
+        return stats;
+    }
+
+    private void recordDemand(String word, List<String> levels, List<String> lengths) {
+        for (String level : levels) {
+            for (String length : lengths) {
+                String key = word + "|" + level + "|" + length;
+                AtomicInteger counter = demand.get(key);
+                if (counter == null) {
+                    if (demand.size() >= MAX_TRACKED_COMBOS) {
+                        continue;
+                    }
+                    counter = demand.computeIfAbsent(key, k -> new AtomicInteger());
+                }
+                counter.incrementAndGet();
+            }
+        }
+    }
+}
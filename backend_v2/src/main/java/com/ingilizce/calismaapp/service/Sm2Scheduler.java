@@ -0,0 +1,57 @@
+package com.ingilizce.calismaapp.service;
+
+import com.ingilizce.calismaapp.model.ReviewState;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * SuperMemo SM-2: 1 day, 6 days, then previous interval * EF.
+ * A failed recall (quality < 3) starts again at 1 day.
+ */
+@Component
+public class Sm2Scheduler implements SchedulingAlgorithm {
+
+    public static final double DEFAULT_EASE_FACTOR = 2.5;
+    private static final double MIN_EASE_FACTOR = 1.3;
+    private static final int INITIAL_INTERVAL = 1; // days
+    private static final int SECOND_INTERVAL = 6; // days
+
+    @Override
+    public String name() {
+        return "sm2";
+    }
+
+    @Override
+    public ReviewState schedule(ReviewState current, int quality, LocalDate reviewedOn) {
+        int reviewCount = current.reviewCount() + 1;
+        double easeFactor = nextEaseFactor(current.easeFactor(), quality);
+
+        int interval;
+        if (quality < 3 || reviewCount == 1) {
+            interval = INITIAL_INTERVAL;
+        } else if (reviewCount == 2) {
+            interval = SECOND_INTERVAL;
+        } else {
+            long previous = current.scheduledIntervalDays();
+            // Words scheduled before the previous interval was stored fall back to 6 * EF^(n-2)
+            interval = previous > 0
+                    ? (int) Math.round(previous * easeFactor)
+                    : (int) Math.round(SECOND_INTERVAL * Math.pow(easeFactor, reviewCount - 2));
+        }
+
+        return new ReviewState(reviewCount, easeFactor, current.stability(), current.difficulty(), reviewedOn,
+                reviewedOn.plusDays(interval));
+    }
+
+    /**
+     * EF' = EF + (0.1 - (5 - q) * (0.08 + (5 - q) * 0.02)), floored at 1.3
+     */
+    static double nextEaseFactor(double easeFactor, int quality) {
+        double ef = easeFactor + (0.1 - (5 - quality) * (0.08 + (5 - quality) * 0.02));
+        if (ef < MIN_EASE_FACTOR) {
+            ef = MIN_EASE_FACTOR;
+        }
+        return Math.round(ef * 100.0) / 100.0; // Round to 2 decimal places
+    }
+}
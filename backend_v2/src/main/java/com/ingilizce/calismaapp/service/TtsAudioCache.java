@@ -0,0 +1,303 @@
+package com.ingilizce.calismaapp.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache for synthesized TTS audio.
+ *
+ * Key = SHA-256(voice, normalized text). Tier 1 is a byte-bounded in-heap LRU
+ * of Base64 audio; tier 2 is a directory of WAV blobs with size-based LRU
+ * eviction, read through memory-mapped buffers.
+ */
+@Service
+public class TtsAudioCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TtsAudioCache.class);
+
+    @Value("${tts.cache.dir:${java.io.tmpdir}/tts-cache}")
+    private String cacheDir;
+
+    @Value("${tts.cache.memory-max-bytes:33554432}") // 32 MB
+    private long memoryMaxBytes;
+
+    @Value("${tts.cache.disk-max-bytes:536870912}") // 512 MB
+    private long diskMaxBytes;
+
+    private Path diskDir;
+
+    // Tier 1: key -> Base64 WAV, access-ordered for LRU eviction
+    private final LinkedHashMap<String, String> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes = 0;
+
+    // Tier 2 index: key -> file size, access-ordered for LRU eviction
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(1024, 0.75f, true);
+    private long diskBytes = 0;
+
+    private long memoryHits = 0;
+    private long diskHits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    @PostConstruct
+    public void init() {
+        diskDir = Paths.get(cacheDir);
+        try {
+            Files.createDirectories(diskDir);
+            // Rebuild the index from blobs left by a previous run (oldest first)
+            try (Stream<Path> files = Files.list(diskDir)) {
+                files.filter(p -> p.getFileName().toString().endsWith(".wav"))
+                        .sorted((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()))
+                        .forEach(p -> {
+                            String name = p.getFileName().toString();
+                            long size = p.toFile().length();
+                            synchronized (this) {
+                                disk.put(name.substring(0, name.length() - 4), size);
+                                diskBytes += size;
+                            }
+                        });
+            }
+            synchronized (this) {
+                evictDisk();
+            }
+            logger.info("TTS audio cache ready: {} blobs, {} bytes on disk ({})", disk.size(), diskBytes, diskDir);
+        } catch (IOException e) {
+            logger.error("TTS disk cache disabled, could not open {}: {}", diskDir, e.getMessage());
+            diskDir = null;
+        }
+    }
+
+    /**
+     * Collapse whitespace and normalize Unicode so equivalent inputs share a key
+     */
+    public static String normalizeText(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFC).trim().replaceAll("\\s+", " ");
+    }
+
+    public static String normalizeVoice(String voice) {
+        return (voice == null || voice.isBlank()) ? "amy" : voice.trim().toLowerCase();
+    }
+
+    public String key(String voice, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(normalizeVoice(voice).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(normalizeText(text).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Look up Base64 audio in memory, then on disk (promoting disk hits to memory)
+     *
+     * @return Base64 WAV or null on miss
+     */
+    public String get(String key) {
+        synchronized (this) {
+            String cached = memory.get(key);
+            if (cached != null) {
+                memoryHits++;
+                return cached;
+            }
+        }
+
+        Path file = getFile(key);
+        if (file != null) {
+            try {
+                String audio = encode(file);
+                synchronized (this) {
+                    diskHits++;
+                }
+                putMemory(key, audio);
+                return audio;
+            } catch (IOException e) {
+                logger.warn("Dropping unreadable TTS blob {}: {}", file, e.getMessage());
+                remove(key);
+            }
+        }
+
+        synchronized (this) {
+            misses++;
+        }
+        return null;
+    }
+
+    /**
+     * Look up the WAV blob for streaming, counting a disk hit or a miss
+     */
+    public Path findFile(String key) {
+        Path file = getFile(key);
+        synchronized (this) {
+            if (file != null) {
+                diskHits++;
+            } else {
+                misses++;
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Path of the cached WAV blob (no hit/miss accounting), or null
+     */
+    public Path getFile(String key) {
+        if (diskDir == null) {
+            return null;
+        }
+        synchronized (this) {
+            if (disk.get(key) == null) {
+                return null;
+            }
+        }
+        Path file = diskDir.resolve(key + ".wav");
+        return Files.exists(file) ? file : null;
+    }
+
+    public boolean contains(String key) {
+        synchronized (this) {
+            return memory.containsKey(key) || disk.containsKey(key);
+        }
+    }
+
+    /**
+     * Move a freshly synthesized WAV into the disk tier and return its Base64 form.
+     * The source file is consumed (moved or deleted).
+     *
+     * @param promote also keep the encoded audio in the memory tier
+     */
+    public String put(String key, Path wavFile, boolean promote) throws IOException {
+        Path stored = storeFile(key, wavFile);
+        String audio = encode(stored != null ? stored : wavFile);
+        if (stored == null) {
+            Files.deleteIfExists(wavFile);
+        }
+        if (promote) {
+            putMemory(key, audio);
+        }
+        return audio;
+    }
+
+    /**
+     * Move a WAV file into the disk tier without encoding it.
+     *
+     * @return path of the stored blob, or null when the disk tier is disabled
+     */
+    public Path storeFile(String key, Path wavFile) throws IOException {
+        if (diskDir == null) {
+            return null;
+        }
+        Path target = diskDir.resolve(key + ".wav");
+        try {
+            Files.move(wavFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(wavFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        long size = Files.size(target);
+        synchronized (this) {
+            Long previous = disk.put(key, size);
+            diskBytes += size - (previous != null ? previous : 0);
+            evictDisk();
+        }
+        return target;
+    }
+
+    public Map<String, Object> getStats() {
+        synchronized (this) {
+            long lookups = memoryHits + diskHits + misses;
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("memoryHits", memoryHits);
+            stats.put("diskHits", diskHits);
+            stats.put("misses", misses);
+            stats.put("hitRate", lookups == 0 ? 0.0 : (double) (memoryHits + diskHits) / lookups);
+            stats.put("memoryEntries", memory.size());
+            stats.put("memoryBytes", memoryBytes);
+            stats.put("diskEntries", disk.size());
+            stats.put("diskBytes", diskBytes);
+            stats.put("evictions", evictions);
+            return stats;
+        }
+    }
+
+    private String encode(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ByteBuffer encoded = Base64.getEncoder().encode(mapped);
+            return StandardCharsets.ISO_8859_1.decode(encoded).toString();
+        }
+    }
+
+    private synchronized void putMemory(String key, String audio) {
+        // Entries larger than a quarter of the tier would just churn it
+        if (audio.length() > memoryMaxBytes / 4) {
+            return;
+        }
+        String previous = memory.put(key, audio);
+        memoryBytes += audio.length() - (previous != null ? previous.length() : 0);
+        Iterator<Map.Entry<String, String>> it = memory.entrySet().iterator();
+        while (memoryBytes > memoryMaxBytes && it.hasNext()) {
+            Map.Entry<String, String> eldest = it.next();
+            memoryBytes -= eldest.getValue().length();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long size = disk.remove(key);
+        if (size != null) {
+            diskBytes -= size;
+        }
+        try {
+            Files.deleteIfExists(diskDir.resolve(key + ".wav"));
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    // Caller holds the monitor
+    private void evictDisk() {
+        Iterator<Map.Entry<String, Long>> it = disk.entrySet().iterator();
+        while (diskBytes > diskMaxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            try {
+                Files.deleteIfExists(diskDir.resolve(eldest.getKey() + ".wav"));
+            } catch (IOException e) {
+                logger.warn("Could not evict TTS blob {}: {}", eldest.getKey(), e.getMessage());
+            }
+            diskBytes -= eldest.getValue();
+            it.remove();
+            evictions++;
+        }
+    }
+}
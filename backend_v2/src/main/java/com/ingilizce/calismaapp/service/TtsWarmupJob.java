@@ -0,0 +1,127 @@
+package com.ingilizce.calismaapp.service;
+
+import com.ingilizce.calismaapp.repository.SentenceRepository;
+import com.ingilizce.calismaapp.repository.WordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Pre-renders TTS audio for every word and example sentence in the database
+ * so learners replaying them hit the disk cache instead of Piper.
+ */
+@Component
+public class TtsWarmupJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(TtsWarmupJob.class);
+    private static final int PAGE_SIZE = 200;
+
+    private final PiperTtsService piperTtsService;
+    private final WordRepository wordRepository;
+    private final SentenceRepository sentenceRepository;
+
+    @Value("${tts.warmup.voices:amy}")
+    private List<String> voices;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile Map<String, Object> lastRun = new HashMap<>();
+
+    public TtsWarmupJob(PiperTtsService piperTtsService, WordRepository wordRepository,
+            SentenceRepository sentenceRepository) {
+        this.piperTtsService = piperTtsService;
+        this.wordRepository = wordRepository;
+        this.sentenceRepository = sentenceRepository;
+    }
+
+    @Scheduled(cron = "${tts.warmup.cron:0 0 4 * * *}")
+    public void scheduledWarmup() {
+        start();
+    }
+
+    /**
+     * Start a warm-up run in the background
+     *
+     * @return false if a run is already in progress
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                run();
+            } finally {
+                running.set(false);
+            }
+        }, "tts-warmup");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public Map<String, Object> getLastRun() {
+        return lastRun;
+    }
+
+    private void run() {
+        if (!piperTtsService.isAvailable()) {
+            logger.warn("Skipping TTS warm-up: Piper is not available");
+            return;
+        }
+        long started = System.currentTimeMillis();
+        int[] counters = new int[3]; // rendered, skipped, failed
+
+        warm(wordRepository::findDistinctEnglishWords, counters);
+        warm(sentenceRepository::findDistinctSentences, counters);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("rendered", counters[0]);
+        result.put("alreadyCached", counters[1]);
+        result.put("failed", counters[2]);
+        result.put("durationMs", System.currentTimeMillis() - started);
+        result.put("finishedAt", System.currentTimeMillis());
+        lastRun = result;
+        logger.info("TTS warm-up finished: {}", result);
+    }
+
+    private void warm(Function<Pageable, Slice<String>> source, int[] counters) {
+        Pageable page = PageRequest.of(0, PAGE_SIZE);
+        Slice<String> slice;
+        do {
+            slice = source.apply(page);
+            for (String text : slice.getContent()) {
+                if (text == null || text.isBlank()) {
+                    continue;
+                }
+                for (String voice : voices) {
+                    try {
+                        if (piperTtsService.prerender(text, voice)) {
+                            counters[0]++;
+                        } else {
+                            counters[1]++;
+                        }
+                    } catch (Exception e) {
+                        counters[2]++;
+                        logger.debug("TTS warm-up failed for '{}': {}", text, e.getMessage());
+                    }
+                }
+            }
+            page = slice.nextPageable();
+        } while (slice.hasNext());
+    }
+}
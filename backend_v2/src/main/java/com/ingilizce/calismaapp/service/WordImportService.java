@@ -0,0 +1,537 @@
+package com.ingilizce.calismaapp.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingilizce.calismaapp.model.XpSource;
+import com.ingilizce.calismaapp.util.CurrentUser;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Bulk word import (CSV, Anki plain-text export, JSON).
+ *
+ * The upload is spooled to a temp file and parsed as a stream on a worker
+ * thread, one row at a time. A first pass only parses and counts, so a
+ * malformed or oversize file fails before any row is written; the second
+ * pass inserts the rows in JDBC batches (each committed on its own) with ids
+ * pre-allocated from the words sequence in one round trip, SRS fields are set
+ * in the INSERT itself, and XP/streak/achievements run once at the end for
+ * every committed row, even if a later batch fails. Progress is polled via getJob(jobId).
+ */
+@Service
+public class WordImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WordImportService.class);
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final long FINISHED_JOB_RETENTION_MS = 60 * 60 * 1000L;
+    private static final int XP_PER_WORD = 5; // same as adding a word by hand
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProgressService progressService;
+    private final SRSService srsService;
+    private final DueQueueService dueQueueService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${words.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${words.import.max-rows:50000}")
+    private int maxRows;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "word-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WordImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ProgressService progressService, SRSService srsService, DueQueueService dueQueueService,
+            ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.progressService = progressService;
+        this.srsService = srsService;
+        this.dueQueueService = dueQueueService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Spool the upload and queue the import
+     *
+     * @param format csv | anki | json, or null to detect from the file name
+     * @return job id for getJob
+     */
+    public String submit(MultipartFile file, String format, boolean skipDuplicates) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("file is required");
+        }
+        String resolved = resolveFormat(format, file.getOriginalFilename());
+
+        Path spool = Files.createTempFile("word-import-", "." + resolved);
+        file.transferTo(spool);
+
+        evictFinishedJobs();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), resolved, file.getOriginalFilename(),
+                CurrentUser.id(), CurrentUser.isAnonymous());
+        jobs.put(job.id, job);
+        executor.execute(() -> run(job, spool, skipDuplicates));
+        return job.id;
+    }
+
+    public Map<String, Object> getJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        return job != null ? job.toMap() : null;
+    }
+
+    private void run(ImportJob job, Path spool, boolean skipDuplicates) {
+        job.state = "RUNNING";
+        job.startedAt = System.currentTimeMillis();
+        Set<String> seen = new HashSet<>();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        try {
+            // Dry pass: a parse error or the row limit fails the job before anything is written
+            AtomicInteger rows = new AtomicInteger();
+            parse(job.format, spool, row -> {
+                if (rows.incrementAndGet() > maxRows) {
+                    throw new IllegalArgumentException("Import is limited to " + maxRows + " rows");
+                }
+            });
+
+            parse(job.format, spool, row -> {
+                job.processed.incrementAndGet();
+                if (row.english == null || row.english.isBlank()) {
+                    job.skipped.incrementAndGet();
+                    job.addError("Row " + job.processed.get() + ": missing English word");
+                    return;
+                }
+                if (skipDuplicates && !seen.add(row.english.toLowerCase(Locale.ROOT))) {
+                    job.skipped.incrementAndGet();
+                    return;
+                }
+                batch.add(row);
+                if (batch.size() >= batchSize) {
+                    flush(job, batch, skipDuplicates);
+                }
+            });
+            flush(job, batch, skipDuplicates);
+            job.state = "DONE";
+        } catch (Exception e) {
+            logger.warn("Word import {} failed after {} rows: {}", job.id, job.processed.get(), e.getMessage());
+            job.addError(e.getMessage());
+            job.state = "FAILED";
+        } finally {
+            // Batches commit on their own: credit whatever made it in, even if a later one failed
+            credit(job);
+            job.finishedAt = System.currentTimeMillis();
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                logger.debug("Could not delete import spool {}: {}", spool, e.getMessage());
+            }
+            logger.info("Word import {} {}: {}", job.id, job.state, job.toMap());
+        }
+    }
+
+    private void parse(String format, Path spool, Consumer<ImportRow> sink) throws IOException {
+        try (InputStream in = Files.newInputStream(spool)) {
+            switch (format) {
+                case "json" -> parseJson(in, sink);
+                case "anki" -> parseDelimited(in, '\t', false, sink);
+                default -> parseDelimited(in, (char) 0, true, sink);
+            }
+        }
+    }
+
+    /**
+     * XP, streak and achievements once per import instead of once per word.
+     * The worker thread has no request: credit the user who uploaded, and
+     * keep an anonymous upload off the leaderboards and activity feeds.
+     */
+    private void credit(ImportJob job) {
+        int imported = job.imported.get();
+        if (imported == 0) {
+            return;
+        }
+        try {
+            progressService.updateStreak(job.userId, job.anonymous);
+            progressService.awardXp(job.userId, imported * XP_PER_WORD, "Import: " + imported + " words",
+                    XpSource.WORDS_IMPORTED, imported, job.anonymous);
+        } catch (Exception e) {
+            logger.warn("Could not award XP for word import {}: {}", job.id, e.getMessage());
+        } finally {
+            srsService.invalidateStats();
+        }
+    }
+
+    /**
+     * Insert one batch in its own transaction so progress is visible and memory stays bounded
+     */
+    private void flush(ImportJob job, List<ImportRow> batch, boolean skipDuplicates) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            List<ImportRow> rows = batch;
+            if (skipDuplicates) {
+                Set<String> existing = new HashSet<>(namedJdbcTemplate.queryForList(
+                        "SELECT lower(english_word) FROM words WHERE lower(english_word) IN (:words)",
+                        Map.of("words", rows.stream().map(r -> r.english.toLowerCase(Locale.ROOT)).toList()),
+                        String.class));
+                if (!existing.isEmpty()) {
+                    rows = rows.stream().filter(r -> !existing.contains(r.english.toLowerCase(Locale.ROOT))).toList();
+                    job.skipped.addAndGet(batch.size() - rows.size());
+                }
+            }
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            // Pool ids: one round trip for the whole batch instead of one per row
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT nextval(pg_get_serial_sequence('words', 'id')) FROM generate_series(1, ?)",
+                    Long.class, rows.size());
+
+            LocalDate today = LocalDate.now();
+            LocalDate firstReview = today.plusDays(1);
+            List<Object[]> wordArgs = new ArrayList<>(rows.size());
+            List<Object[]> sentenceArgs = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                ImportRow row = rows.get(i);
+                Long id = ids.get(i);
+                wordArgs.add(new Object[] { id, row.english.trim(), row.turkish, row.learnedDate != null
+                        ? row.learnedDate
+                        : today, row.notes, row.difficulty, firstReview, 0, Sm2Scheduler.DEFAULT_EASE_FACTOR });
+                for (String[] sentence : row.sentences) {
+                    sentenceArgs.add(new Object[] { sentence[0], sentence[1], row.difficulty, id });
+                }
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO words (id, english_word, turkish_meaning, learned_date, notes, "
+                    + "difficulty, next_review_date, review_count, ease_factor) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    wordArgs);
+            if (!sentenceArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate("INSERT INTO sentences (sentence, translation, difficulty, word_id) "
+                        + "VALUES (?, ?, ?, ?)", sentenceArgs);
+            }
+            dueQueueService.refreshAfterCommit(ids);
+            job.imported.addAndGet(rows.size());
+            job.sentences.addAndGet(sentenceArgs.size());
+        });
+        batch.clear();
+    }
+
+    /**
+     * CSV / TSV. With a header row the columns are matched by name
+     * (english|word|front, turkish|meaning|back, notes, difficulty, date,
+     * sentence, sentenceTranslation); without one they are
+     * english, turkish, notes. Lines starting with '#' are Anki metadata.
+     *
+     * @param delimiter 0 = detect from the first line (',', ';' or tab)
+     */
+    private void parseDelimited(InputStream in, char delimiter, boolean header, Consumer<ImportRow> sink)
+            throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Map<String, Integer> columns = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (columns == null && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            if (delimiter == 0) {
+                delimiter = line.indexOf('\t') >= 0 ? '\t' : line.indexOf(';') > line.indexOf(',') ? ';' : ',';
+            }
+            // A quoted field may span lines
+            while (countQuotes(line) % 2 == 1) {
+                String next = reader.readLine();
+                if (next == null) {
+                    break;
+                }
+                line = line + "\n" + next;
+            }
+            List<String> fields = splitLine(line, delimiter);
+
+            if (header && columns == null) {
+                columns = new HashMap<>();
+                for (int i = 0; i < fields.size(); i++) {
+                    columns.put(canonicalColumn(fields.get(i)), i);
+                }
+                if (!columns.containsKey("english")) {
+                    throw new IllegalArgumentException("CSV header must contain an 'english' (or 'word') column");
+                }
+                continue;
+            }
+            if (columns == null) {
+                columns = Map.of("english", 0, "turkish", 1, "notes", 2);
+            }
+
+            ImportRow row = new ImportRow();
+            row.english = field(fields, columns, "english");
+            row.turkish = field(fields, columns, "turkish");
+            row.notes = field(fields, columns, "notes");
+            row.difficulty = field(fields, columns, "difficulty");
+            row.learnedDate = parseDate(field(fields, columns, "date"));
+            String sentence = field(fields, columns, "sentence");
+            if (sentence != null && !sentence.isBlank()) {
+                row.sentences.add(new String[] { sentence, field(fields, columns, "sentencetranslation") });
+            }
+            sink.accept(row);
+        }
+    }
+
+    /**
+     * JSON array of word objects (or {"words": [...]}), read one object at a time
+     */
+    private void parseJson(InputStream in, Consumer<ImportRow> sink) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                while ((token = parser.nextToken()) != null && token != JsonToken.START_ARRAY) {
+                    // skip to the first array ("words")
+                }
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("JSON must be an array of words or {\"words\": [...]}");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode node = objectMapper.readTree(parser);
+                ImportRow row = new ImportRow();
+                row.english = text(node, "english", "englishWord", "word", "front");
+                row.turkish = text(node, "turkish", "turkishMeaning", "meaning", "back");
+                row.notes = text(node, "notes");
+                row.difficulty = text(node, "difficulty");
+                row.learnedDate = parseDate(text(node, "learnedDate", "date"));
+                JsonNode sentences = node.path("sentences");
+                if (sentences.isArray()) {
+                    for (JsonNode s : sentences) {
+                        String sentence = s.isTextual() ? s.asText() : text(s, "sentence");
+                        if (sentence != null && !sentence.isBlank()) {
+                            row.sentences.add(new String[] { sentence, s.isObject() ? text(s, "translation") : null });
+                        }
+                    }
+                }
+                sink.accept(row);
+            }
+        }
+    }
+
+    private static String resolveFormat(String format, String fileName) {
+        String f = format != null && !format.isBlank() ? format.trim().toLowerCase(Locale.ROOT) : null;
+        String name = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+        if (f == null) {
+            if (name.endsWith(".json")) {
+                f = "json";
+            } else if (name.endsWith(".txt") || name.endsWith(".tsv")) {
+                f = "anki";
+            } else if (name.endsWith(".apkg")) {
+                f = "apkg";
+            } else {
+                f = "csv";
+            }
+        }
+        if ("apkg".equals(f)) {
+            throw new IllegalArgumentException(
+                    "Anki .apkg packages are not supported; export as 'Notes in Plain Text' (.txt) and upload that");
+        }
+        if (!List.of("csv", "anki", "json").contains(f)) {
+            throw new IllegalArgumentException("format must be csv, anki or json");
+        }
+        return f;
+    }
+
+    private static String canonicalColumn(String name) {
+        String n = name.trim().toLowerCase(Locale.ROOT).replace("_", "").replace(" ", "");
+        return switch (n) {
+            case "english", "englishword", "word", "front" -> "english";
+            case "turkish", "turkishmeaning", "meaning", "back", "translation" -> "turkish";
+            case "learneddate", "date", "addeddate" -> "date";
+            case "sentencetranslation", "exampletranslation" -> "sentencetranslation";
+            case "sentence", "example" -> "sentence";
+            default -> n;
+        };
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String text(JsonNode node, String... names) {
+        for (String name : names) {
+            JsonNode value = node.get(name);
+            if (value != null && !value.isNull()) {
+                return value.asText();
+            }
+        }
+        return null;
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim().substring(0, Math.min(10, value.trim().length())));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static int countQuotes(String line) {
+        int count = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // RFC 4180: quoted fields, "" inside quotes is a literal quote
+    private static List<String> splitLine(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private void evictFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - FINISHED_JOB_RETENTION_MS;
+        Iterator<ImportJob> it = jobs.values().iterator();
+        while (it.hasNext()) {
+            ImportJob job = it.next();
+            if (job.finishedAt > 0 && job.finishedAt < cutoff) {
+                it.remove();
+            }
+        }
+    }
+
+    private static class ImportRow {
+        String english;
+        String turkish;
+        String notes;
+        String difficulty;
+        LocalDate learnedDate;
+        final List<String[]> sentences = new ArrayList<>(1); // {sentence, translation}
+    }
+
+    private static class ImportJob {
+        final String id;
+        final String format;
+        final String fileName;
+        final Long userId;
+        final boolean anonymous; // uploaded without a logged-in user; userId is the fallback
+        volatile String state = "QUEUED";
+        volatile long startedAt;
+        volatile long finishedAt;
+        final AtomicInteger processed = new AtomicInteger();
+        final AtomicInteger imported = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicInteger sentences = new AtomicInteger();
+        final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        ImportJob(String id, String format, String fileName, Long userId, boolean anonymous) {
+            this.id = id;
+            this.format = format;
+            this.fileName = fileName;
+            this.userId = userId;
+            this.anonymous = anonymous;
+        }
+
+        void addError(String message) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(message);
+            }
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("jobId", id);
+            map.put("format", format);
+            map.put("fileName", fileName);
+            map.put("state", state);
+            map.put("processed", processed.get());
+            map.put("imported", imported.get());
+            map.put("skipped", skipped.get());
+            map.put("sentences", sentences.get());
+            map.put("errors", new ArrayList<>(errors));
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+            return map;
+        }
+    }
+}
@@ -12,6 +12,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+/**
+ * Manual calendar reviews. SRS review log rows (review_type = 'srs') live in
+ * the same table as FSRS optimizer input and are left out of every query here.
+ */
 @Service
 public class WordReviewService {
     
@@ -27,7 +31,7 @@ public class WordReviewService {
                 .orElseThrow(() -> new RuntimeException("Word not found"));
         
         // Check if already reviewed on this date
-        if (wordReviewRepository.existsByWordIdAndReviewDate(wordId, reviewDate)) {
+        if (wordReviewRepository.existsManualByWordIdAndReviewDate(wordId, reviewDate)) {
             throw new RuntimeException("Word already reviewed on this date");
         }
         
@@ -40,27 +44,27 @@ public class WordReviewService {
     
     // Get all reviews for a word
     public List<WordReview> getWordReviews(Long wordId) {
-        return wordReviewRepository.findByWordIdOrderByReviewDateDesc(wordId);
+        return wordReviewRepository.findManualByWordId(wordId);
     }
     
     // Get reviews for a specific date
     public List<WordReview> getReviewsByDate(LocalDate date) {
-        return wordReviewRepository.findByReviewDate(date);
+        return wordReviewRepository.findManualByReviewDate(date);
     }
     
     // Check if a word was reviewed on a specific date
     public boolean isWordReviewedOnDate(Long wordId, LocalDate date) {
-        return wordReviewRepository.existsByWordIdAndReviewDate(wordId, date);
+        return wordReviewRepository.existsManualByWordIdAndReviewDate(wordId, date);
     }
     
     // Get review count for a word
     public long getReviewCount(Long wordId) {
-        return wordReviewRepository.countByWordId(wordId);
+        return wordReviewRepository.countManualByWordId(wordId);
     }
     
     // Get review dates for a word (for calendar display)
     public List<LocalDate> getReviewDates(Long wordId) {
-        return wordReviewRepository.findByWordIdOrderByReviewDateDesc(wordId)
+        return wordReviewRepository.findManualByWordId(wordId)
                 .stream()
                 .map(WordReview::getReviewDate)
                 .collect(Collectors.toList());
@@ -68,7 +72,7 @@ public class WordReviewService {
     
     // Get review summary for a word (date -> review info)
     public Map<LocalDate, WordReview> getReviewSummary(Long wordId) {
-        return wordReviewRepository.findByWordIdOrderByReviewDateDesc(wordId)
+        return wordReviewRepository.findManualByWordId(wordId)
                 .stream()
                 .collect(Collectors.toMap(
                     WordReview::getReviewDate,
@@ -83,7 +87,7 @@ public class WordReviewService {
     
     // Delete review for a word on a specific date
     public void deleteReviewByWordAndDate(Long wordId, LocalDate date) {
-        List<WordReview> reviews = wordReviewRepository.findByWordIdAndReviewDate(wordId, date);
+        List<WordReview> reviews = wordReviewRepository.findManualByWordIdAndReviewDate(wordId, date);
         wordReviewRepository.deleteAll(reviews);
     }
 }
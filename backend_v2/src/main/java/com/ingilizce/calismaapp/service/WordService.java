@@ -3,14 +3,28 @@ package com.ingilizce.calismaapp.service;
 import com.ingilizce.calismaapp.entity.Word;
 import com.ingilizce.calismaapp.entity.Sentence;
 import com.ingilizce.calismaapp.dto.CreateWordRequest;
+import com.ingilizce.calismaapp.dto.SentenceDto;
+import com.ingilizce.calismaapp.dto.WordCompactDto;
+import com.ingilizce.calismaapp.dto.WordDto;
+import com.ingilizce.calismaapp.dto.WordQuery;
+import com.ingilizce.calismaapp.model.XpSource;
 import com.ingilizce.calismaapp.repository.WordRepository;
+import com.ingilizce.calismaapp.repository.WordRepositoryImpl;
 import com.ingilizce.calismaapp.repository.SentenceRepository;
+import com.ingilizce.calismaapp.repository.WordReviewRepository;
+import com.ingilizce.calismaapp.util.CursorCodec;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class WordService {
@@ -21,19 +35,134 @@ public class WordService {
     @Autowired
     private SentenceRepository sentenceRepository;
 
+    @Autowired
+    private WordReviewRepository wordReviewRepository;
+
     @Autowired
     private ProgressService progressService;
 
+    @Autowired
+    private DueQueueService dueQueueService;
+
     public List<Word> getAllWords() {
-        return wordRepository.findAll();
+        return wordRepository.findAllWithSentences();
+    }
+
+    public List<WordDto> getAllWordSummaries() {
+        return wordRepository.findAllDtos();
     }
 
     public List<Word> getWordsByDate(LocalDate date) {
-        return wordRepository.findByLearnedDate(date);
+        return wordRepository.findWithSentencesByLearnedDate(date);
+    }
+
+    public List<WordDto> getWordSummariesByDate(LocalDate date) {
+        return wordRepository.findDtosByLearnedDate(date);
     }
 
     public List<Word> getWordsByDateRange(LocalDate startDate, LocalDate endDate) {
-        return wordRepository.findByDateRange(startDate, endDate);
+        return wordRepository.findWithSentencesByDateRange(startDate, endDate);
+    }
+
+    public List<WordDto> getWordSummariesByDateRange(LocalDate startDate, LocalDate endDate) {
+        return wordRepository.findDtosByDateRange(startDate, endDate);
+    }
+
+    public static final Set<String> SORT_KEYS = Set.of("learnedDate", "englishWord", "nextReviewDate");
+    public static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * One keyset page of words
+     *
+     * @param query  filters, sort and limit; its after* values are ignored
+     * @param cursor nextCursor of the previous page, null for the first page
+     * @return {items, nextCursor}; nextCursor is null on the last page
+     */
+    public Map<String, Object> getWordPage(WordQuery query, String cursor, boolean compact,
+            boolean includeSentences) {
+        if (!SORT_KEYS.contains(query.sort())) {
+            throw new IllegalArgumentException("sort must be one of " + SORT_KEYS);
+        }
+        if (query.limit() < 1 || query.limit() > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        String order = query.descending() ? "desc" : "asc";
+
+        Object afterValue = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            // sort|order|id|value - the value goes last because words may contain the separator
+            String[] keys = CursorCodec.decode(cursor, 4);
+            if (!keys[0].equals(query.sort()) || !keys[1].equals(order)) {
+                throw new IllegalArgumentException("Cursor was issued for a different sort order");
+            }
+            try {
+                afterId = Long.valueOf(keys[2]);
+                afterValue = "englishWord".equals(query.sort()) ? keys[3] : LocalDate.parse(keys[3]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        // One extra row tells us whether there is a next page
+        WordQuery page = new WordQuery(query.sort(), query.descending(), query.from(), query.to(),
+                query.difficulty(), query.due(), query.hasSentences(), afterValue, afterId, query.limit() + 1);
+
+        List<?> items;
+        String nextCursor = null;
+        if (compact) {
+            List<WordCompactDto> rows = wordRepository.findCompactPage(page);
+            boolean hasNext = rows.size() > query.limit();
+            rows = hasNext ? rows.subList(0, query.limit()) : rows;
+            if (hasNext) {
+                WordCompactDto last = rows.get(rows.size() - 1);
+                nextCursor = CursorCodec.encode(query.sort(), order, last.id(),
+                        sortValue(query.sort(), last.learnedDate(), last.englishWord(), last.nextReviewDate()));
+            }
+            items = rows;
+        } else {
+            List<WordDto> rows = wordRepository.findPage(page);
+            boolean hasNext = rows.size() > query.limit();
+            rows = hasNext ? rows.subList(0, query.limit()) : rows;
+            if (hasNext) {
+                WordDto last = rows.get(rows.size() - 1);
+                nextCursor = CursorCodec.encode(query.sort(), order, last.id(),
+                        sortValue(query.sort(), last.learnedDate(), last.englishWord(), last.nextReviewDate()));
+            }
+            items = includeSentences ? attachSentences(rows) : rows;
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("items", items);
+        result.put("nextCursor", nextCursor);
+        return result;
+    }
+
+    private static Object sortValue(String sort, LocalDate learnedDate, String englishWord,
+            LocalDate nextReviewDate) {
+        return switch (sort) {
+            case "englishWord" -> englishWord;
+            case "nextReviewDate" -> nextReviewDate != null ? nextReviewDate : WordRepositoryImpl.UNSCHEDULED;
+            default -> learnedDate;
+        };
+    }
+
+    // Sentences for the whole page in one query
+    private List<WordDto> attachSentences(List<WordDto> words) {
+        if (words.isEmpty()) {
+            return words;
+        }
+        Map<Long, List<SentenceDto>> byWord = sentenceRepository
+                .findDtosByWordIdIn(words.stream().map(WordDto::id).toList())
+                .stream()
+                .collect(Collectors.groupingBy(SentenceDto::wordId));
+        return words.stream()
+                .map(w -> w.withSentences(byWord.getOrDefault(w.id(), List.of())))
+                .toList();
+    }
+
+    public List<Sentence> getSentences(Long wordId) {
+        return wordRepository.existsById(wordId) ? sentenceRepository.findByWordId(wordId) : null;
     }
 
     public List<LocalDate> getAllDistinctDates() {
@@ -43,9 +172,10 @@ public class WordService {
     public Word saveWord(Word word) {
         boolean isNew = (word.getId() == null);
         Word savedWord = wordRepository.save(word);
+        dueQueueService.refreshAfterCommit(List.of(savedWord.getId()));
 
         if (isNew) {
-            progressService.awardXp(5, "New Word: " + word.getEnglishWord());
+            progressService.awardXp(5, "New Word: " + word.getEnglishWord(), XpSource.WORD_ADDED, 1);
             progressService.updateStreak();
         }
 
@@ -67,11 +197,21 @@ public class WordService {
     }
 
     public Optional<Word> getWordById(Long id) {
-        return wordRepository.findById(id);
+        return wordRepository.findWithSentencesById(id);
     }
 
+    @Transactional
     public void deleteWord(Long id) {
-        wordRepository.deleteById(id);
+        Optional<Word> word = wordRepository.findById(id);
+        if (word.isEmpty()) {
+            return; // nothing removed: counters and boards stay as they are
+        }
+        // Review log rows (manual and SRS) reference the word; Word does not cascade to them
+        wordReviewRepository.deleteByWordId(id);
+        // A concurrent delete of the same row fails this one's flush and rolls it back, so it never decrements
+        wordRepository.delete(word.get());
+        progressService.onWordsDeleted(1);
+        dueQueueService.refreshAfterCommit(List.of(id));
     }
 
     public Word updateWord(Long id, Word wordDetails) {
@@ -82,7 +222,9 @@ public class WordService {
             word.setTurkishMeaning(wordDetails.getTurkishMeaning());
             word.setLearnedDate(wordDetails.getLearnedDate());
             word.setNotes(wordDetails.getNotes());
-            return wordRepository.save(word);
+            Word saved = wordRepository.save(word);
+            dueQueueService.refreshAfterCommit(List.of(id));
+            return saved;
         }
         return null;
     }
@@ -94,7 +236,8 @@ public class WordService {
             Word word = wordOpt.get();
             Sentence newSentence = new Sentence(sentence, translation, difficulty != null ? difficulty : "easy", word);
             word.addSentence(newSentence);
-            progressService.awardXp(3, "New Sentence for: " + word.getEnglishWord());
+            progressService.awardXp(3, "New Sentence for: " + word.getEnglishWord(), XpSource.SENTENCE_ADDED,
+                    1);
             return wordRepository.save(word);
         }
         return null;
@@ -0,0 +1,260 @@
+package com.ingilizce.calismaapp.service;
+
+import com.ingilizce.calismaapp.entity.UserProgress;
+import com.ingilizce.calismaapp.model.XpSource;
+import com.ingilizce.calismaapp.repository.UserProgressRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind XP ledger.
+ *
+ * An award is appended to an in-memory queue (after the caller's transaction
+ * commits) and costs no database round trip. The queue is written to
+ * xp_transactions in JDBC batches every flush interval, when it grows past
+ * the flush threshold, and on shutdown. UserProgress.totalXp is the
+ * compacted total: compaction periodically folds ledger rows above the
+ * user's watermark into it. The live total is kept in memory per user
+ * (compacted + ledger + queued) so reads don't wait for either.
+ */
+@Service
+public class XpLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(XpLedger.class);
+
+    private record Entry(Long userId, int amount, String reason, String source, LocalDateTime createdAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserProgressRepository progressRepository;
+
+    @Value("${xp.ledger.flush-threshold:500}")
+    private int flushThreshold;
+
+    private final ConcurrentHashMap<Long, AtomicInteger> totals = new ConcurrentHashMap<>();
+    private final List<Entry> pending = new ArrayList<>();
+    private final ReentrantLock writeLock = new ReentrantLock(); // flush vs compaction
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+
+    private final AtomicLong flushedEntries = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private volatile long lastCompactionAt = 0;
+
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "xp-ledger-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public XpLedger(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            UserProgressRepository progressRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.progressRepository = progressRepository;
+    }
+
+    /**
+     * Current total XP of the user (compacted + flushed + queued)
+     */
+    public int getTotalXp(Long userId) {
+        return totals.computeIfAbsent(userId, this::loadTotal).get();
+    }
+
+    /**
+     * Record an award. Inside a transaction it is queued only once the
+     * transaction commits, so rolled-back work earns nothing.
+     */
+    public void append(Long userId, int amount, String reason, XpSource source) {
+        Entry entry = new Entry(userId, amount, truncate(reason, 100), source.name(), LocalDateTime.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(entry);
+                }
+            });
+            return;
+        }
+        enqueue(entry);
+    }
+
+    private void enqueue(Entry entry) {
+        totals.computeIfAbsent(entry.userId(), this::loadTotal).addAndGet(entry.amount());
+        int size;
+        synchronized (pending) {
+            pending.add(entry);
+            size = pending.size();
+        }
+        if (size >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${xp.ledger.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * Write queued entries in one batch; on failure they go back to the head of the queue
+     */
+    public void flush() {
+        writeLock.lock();
+        try {
+            List<Entry> batch;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending);
+                pending.clear();
+            }
+            List<Object[]> args = new ArrayList<>(batch.size());
+            for (Entry entry : batch) {
+                args.add(new Object[] { entry.userId(), entry.amount(), entry.reason(), entry.source(),
+                        Timestamp.valueOf(entry.createdAt()) });
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                        "INSERT INTO xp_transactions (user_id, amount, reason, source, created_at) "
+                                + "VALUES (?, ?, ?, ?, ?)", args));
+                flushes.incrementAndGet();
+                flushedEntries.addAndGet(batch.size());
+            } catch (Exception e) {
+                failedFlushes.incrementAndGet();
+                logger.warn("XP ledger flush of {} entries failed, will retry: {}", batch.size(), e.getMessage());
+                synchronized (pending) {
+                    pending.addAll(0, batch);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Fold ledger rows above each user's watermark into UserProgress.totalXp/level
+     */
+    @Scheduled(cron = "${xp.ledger.compact-cron:0 */15 * * * *}")
+    public void compact() {
+        flush();
+        writeLock.lock();
+        try {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT x.user_id, MAX(x.id) AS max_id, SUM(x.amount) AS amount FROM xp_transactions x "
+                            + "LEFT JOIN user_progress p ON p.user_id = x.user_id "
+                            + "WHERE x.id > COALESCE(p.xp_ledger_watermark, 0) GROUP BY x.user_id");
+            for (Map<String, Object> row : rows) {
+                Long userId = ((Number) row.get("user_id")).longValue();
+                long maxId = ((Number) row.get("max_id")).longValue();
+                int amount = ((Number) row.get("amount")).intValue();
+                transactionTemplate.executeWithoutResult(status -> {
+                    UserProgress progress = progressRepository.findByUserId(userId).orElseGet(() -> {
+                        UserProgress created = new UserProgress();
+                        created.setUserId(userId);
+                        return created;
+                    });
+                    progress.addXp(amount);
+                    progress.setXpLedgerWatermark(maxId);
+                    progressRepository.save(progress);
+                });
+            }
+            lastCompactionAt = System.currentTimeMillis();
+            if (!rows.isEmpty()) {
+                logger.info("XP ledger compacted for {} users", rows.size());
+            }
+        } catch (Exception e) {
+            logger.warn("XP ledger compaction failed: {}", e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdown();
+        flush();
+        int left;
+        synchronized (pending) {
+            left = pending.size();
+        }
+        if (left > 0) {
+            logger.error("XP ledger shut down with {} unflushed entries", left);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (pending) {
+            stats.put("pending", pending.size());
+        }
+        stats.put("flushes", flushes.get());
+        stats.put("flushedEntries", flushedEntries.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        stats.put("lastCompactionAt", lastCompactionAt);
+        return stats;
+    }
+
+    // Compacted total plus ledger rows not compacted yet
+    private AtomicInteger loadTotal(Long userId) {
+        // Not while a flushed batch is between the queue and the table
+        writeLock.lock();
+        try {
+            return new AtomicInteger(readTotal(userId));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private int readTotal(Long userId) {
+        UserProgress progress = progressRepository.findByUserId(userId).orElse(null);
+        int compacted = progress != null ? progress.getTotalXp() : 0;
+        long watermark = progress != null && progress.getXpLedgerWatermark() != null
+                ? progress.getXpLedgerWatermark()
+                : 0;
+        Integer ledger = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(amount), 0) FROM xp_transactions WHERE user_id = ? AND id > ?",
+                Integer.class, userId, watermark);
+        int queued = 0;
+        synchronized (pending) {
+            for (Entry entry : pending) {
+                if (entry.userId().equals(userId)) {
+                    queued += entry.amount();
+                }
+            }
+        }
+        return compacted + (ledger != null ? ledger : 0) + queued;
+    }
+
+    private static String truncate(String value, int max) {
+        return value == null || value.length() <= max ? value : value.substring(0, max);
+    }
+}
@@ -0,0 +1,42 @@
+package com.ingilizce.calismaapp.util;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * User id of the current request, as resolved from the session token by
+ * CurrentUserInterceptor. Requests without a valid token (and work outside
+ * a request) fall back to the default user, so single-user clients keep
+ * working unchanged.
+ */
+public final class CurrentUser {
+
+    public static final Long DEFAULT_USER_ID = 1L;
+    public static final String REQUEST_ATTRIBUTE = CurrentUser.class.getName() + ".userId";
+
+    private CurrentUser() {
+    }
+
+    public static Long id() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            Object userId = attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (userId instanceof Long id) {
+                return id;
+            }
+        }
+        return DEFAULT_USER_ID;
+    }
+
+    /**
+     * True for a request without a valid session token. Its id() is
+     * DEFAULT_USER_ID, which is also a real users.id, so per-user rankings
+     * must not attribute anything to it. Work outside a request is not
+     * anonymous: it passes an explicit user id.
+     */
+    public static boolean isAnonymous() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+                && !(attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof Long);
+    }
+}
@@ -0,0 +1,106 @@
+package com.ingilizce.calismaapp.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Minimal RIFF/WAV helpers for streaming Piper output
+ */
+public class WavUtils {
+
+    // RIFF/data size used when the total length is unknown (streaming)
+    private static final int UNKNOWN_SIZE = 0xFFFFFFFF;
+
+    /**
+     * PCM format and the location of the sample data inside a WAV file
+     */
+    public record WavInfo(short audioFormat, short channels, int sampleRate, short bitsPerSample,
+            long dataOffset, long dataLength) {
+    }
+
+    /**
+     * Walk the RIFF chunks of a WAV file and locate "fmt " and "data"
+     */
+    public static WavInfo parse(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0);
+            if (!"RIFF".equals(fourCc(header, 0)) || !"WAVE".equals(fourCc(header, 8))) {
+                throw new IOException("Not a WAV file: " + file);
+            }
+
+            short audioFormat = 0, channels = 0, bits = 0;
+            int sampleRate = 0;
+            long pos = 12;
+            ByteBuffer chunk = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            while (pos + 8 <= fileSize) {
+                chunk.clear();
+                readFully(channel, chunk, pos);
+                String id = fourCc(chunk, 0);
+                long size = Integer.toUnsignedLong(chunk.getInt(4));
+
+                if ("fmt ".equals(id)) {
+                    ByteBuffer fmt = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+                    readFully(channel, fmt, pos + 8);
+                    audioFormat = fmt.getShort(0);
+                    channels = fmt.getShort(2);
+                    sampleRate = fmt.getInt(4);
+                    bits = fmt.getShort(14);
+                } else if ("data".equals(id)) {
+                    long dataOffset = pos + 8;
+                    long dataLength = Math.min(size, fileSize - dataOffset);
+                    return new WavInfo(audioFormat, channels, sampleRate, bits, dataOffset, dataLength);
+                }
+                // Chunks are word aligned
+                pos += 8 + size + (size & 1);
+            }
+            throw new IOException("WAV file has no data chunk: " + file);
+        }
+    }
+
+    /**
+     * 44-byte header with unknown RIFF/data sizes, for audio whose length is not
+     * known when the first bytes are sent
+     */
+    public static byte[] streamingHeader(WavInfo format) {
+        int blockAlign = format.channels() * format.bitsPerSample() / 8;
+        ByteBuffer header = ByteBuffer.allocate(44).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("RIFF".getBytes(StandardCharsets.US_ASCII));
+        header.putInt(UNKNOWN_SIZE);
+        header.put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        header.put("fmt ".getBytes(StandardCharsets.US_ASCII));
+        header.putInt(16);
+        header.putShort(format.audioFormat());
+        header.putShort(format.channels());
+        header.putInt(format.sampleRate());
+        header.putInt(format.sampleRate() * blockAlign);
+        header.putShort((short) blockAlign);
+        header.putShort(format.bitsPerSample());
+        header.put("data".getBytes(StandardCharsets.US_ASCII));
+        header.putInt(UNKNOWN_SIZE);
+        return header.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of WAV file");
+            }
+        }
+    }
+
+    private static String fourCc(ByteBuffer buffer, int offset) {
+        byte[] id = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            id[i] = buffer.get(offset + i);
+        }
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,19 @@
+-- Migration 004: Sentence Bank
+-- Description: Pre-generated practice sentences served by /api/chatbot/generate-sentences.
+-- Rows are deleted when served, so the table only holds unseen sentences.
+
+CREATE TABLE IF NOT EXISTS sentence_bank (
+    id BIGSERIAL PRIMARY KEY,
+    word VARCHAR(255) NOT NULL,
+    cefr_level VARCHAR(2) NOT NULL,
+    sentence_length VARCHAR(10) NOT NULL,
+    english_sentence TEXT NOT NULL,
+    turkish_translation TEXT,
+    turkish_full_translation TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_sentence_bank_lookup ON sentence_bank(word, cefr_level, sentence_length);
+
+COMMENT ON TABLE sentence_bank IS 'Unseen LLM-generated practice sentences, refilled by SentenceBankRefillJob';
+COMMENT ON COLUMN sentence_bank.word IS 'Normalized (trimmed, lower-case) target word';
@@ -0,0 +1,13 @@
+-- Migration 005: Batch review submissions
+-- Description: Idempotency log for POST /api/srs/submit-reviews.
+-- An offline client replaying a session with the same key gets the stored response back.
+
+CREATE TABLE IF NOT EXISTS review_submissions (
+    id BIGSERIAL PRIMARY KEY,
+    idempotency_key VARCHAR(100) NOT NULL,
+    response_json TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_review_submission_key UNIQUE (idempotency_key)
+);
+
+COMMENT ON TABLE review_submissions IS 'Processed /api/srs/submit-reviews batches keyed by client idempotency key';
@@ -0,0 +1,23 @@
+-- Migration 006: FSRS scheduling
+-- Description: Per-word FSRS state, graded review log and fitted FSRS weights.
+
+ALTER TABLE words ADD COLUMN IF NOT EXISTS fsrs_stability FLOAT;
+ALTER TABLE words ADD COLUMN IF NOT EXISTS fsrs_difficulty FLOAT;
+
+-- Recall quality (0-5) of SRS reviews; input of FsrsOptimizerJob
+ALTER TABLE word_reviews ADD COLUMN IF NOT EXISTS quality INT;
+CREATE INDEX IF NOT EXISTS idx_word_reviews_word_date ON word_reviews(word_id, review_date);
+
+CREATE TABLE IF NOT EXISTS fsrs_parameters (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    weights VARCHAR(1000) NOT NULL,
+    trained_on_reviews INT NOT NULL,
+    log_loss FLOAT,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_fsrs_parameters_user UNIQUE (user_id)
+);
+
+COMMENT ON COLUMN words.fsrs_stability IS 'FSRS stability: days until recall probability drops to 90%';
+COMMENT ON COLUMN words.fsrs_difficulty IS 'FSRS difficulty, 1 (easy) to 10 (hard)';
+COMMENT ON TABLE fsrs_parameters IS 'FSRS-4.5 weights fitted weekly from word_reviews';
@@ -0,0 +1,8 @@
+-- Migration 007: word list keyset pagination
+-- Description: (sort key, id) indexes backing the cursor pages of /api/words.
+
+CREATE INDEX IF NOT EXISTS idx_words_learned_date_id ON words(learned_date, id);
+CREATE INDEX IF NOT EXISTS idx_words_english_word_id ON words(english_word, id);
+-- Sorted on the bare column (WordRepositoryImpl): NULLS LAST ascending, NULLS FIRST descending,
+-- which is this index read forwards or backwards
+CREATE INDEX IF NOT EXISTS idx_words_next_review_date_id ON words(next_review_date, id);
@@ -0,0 +1,15 @@
+-- Migration 008: word / sentence search
+-- Description: pg_trgm expression indexes over Turkish-folded text (applied at startup by SearchService).
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- lower() plus Turkish folding: İ/I/ı -> i, ç -> c, ğ -> g, ö -> o, ş -> s, ü -> u
+CREATE OR REPLACE FUNCTION search_fold(text) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE
+    AS $$ SELECT translate(lower(translate($1, 'İIı', 'iii')), 'çğöşüâîû', 'cgosuaiu') $$;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_words_english_trgm ON words USING gin (search_fold(english_word) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_words_turkish_trgm ON words USING gin (search_fold(turkish_meaning) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_words_english_fold_prefix ON words (search_fold(english_word) text_pattern_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_sentences_sentence_trgm ON sentences USING gin (search_fold(sentence) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_sentences_translation_trgm ON sentences USING gin (search_fold(translation) gin_trgm_ops);
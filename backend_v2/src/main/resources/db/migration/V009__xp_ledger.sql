@@ -0,0 +1,17 @@
+-- Migration 009: write-behind XP ledger
+-- Description: xp_transactions as written by XpLedger (user_progress.user_id, not user_profiles) and the compaction watermark.
+
+CREATE TABLE IF NOT EXISTS xp_transactions (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    amount INT NOT NULL,
+    reason VARCHAR(100),
+    source VARCHAR(50),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_xp_transactions_user_id ON xp_transactions(user_id, id);
+
+-- Last xp_transactions.id folded into user_progress.total_xp
+ALTER TABLE user_progress ADD COLUMN IF NOT EXISTS xp_ledger_watermark BIGINT DEFAULT 0;
+
+COMMENT ON COLUMN user_progress.total_xp IS 'Compacted XP; live total = total_xp + ledger rows above xp_ledger_watermark';
@@ -0,0 +1,17 @@
+-- Migration 010: leaderboard snapshots
+-- Description: weekly_scores as written by LeaderboardService's Monday snapshot (users.id, not user_profiles).
+-- Live boards are Redis sorted sets (lb:*) and need no schema.
+
+CREATE TABLE IF NOT EXISTS weekly_scores (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    week_start_date DATE NOT NULL,
+    weekly_xp INT DEFAULT 0,
+    league VARCHAR(20) DEFAULT 'bronze',
+    rank INT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_weekly_scores_user_week UNIQUE (user_id, week_start_date)
+);
+
+-- Closed weeks are read by rank
+CREATE INDEX IF NOT EXISTS idx_weekly_scores_week_rank ON weekly_scores(week_start_date, rank);
@@ -0,0 +1,20 @@
+-- Migration 011: word_reviews follow their word
+-- Description: SRS reviews write a word_reviews row each, so deleting a reviewed word must remove its log rows.
+-- ddl-auto=update does not alter an existing foreign key; WordService.deleteWord also deletes them explicitly.
+
+DO $$
+DECLARE
+    fk_name TEXT;
+BEGIN
+    SELECT tc.constraint_name INTO fk_name
+    FROM information_schema.table_constraints tc
+    JOIN information_schema.key_column_usage kcu ON kcu.constraint_name = tc.constraint_name
+    WHERE tc.table_name = 'word_reviews' AND tc.constraint_type = 'FOREIGN KEY' AND kcu.column_name = 'word_id'
+    LIMIT 1;
+    IF fk_name IS NOT NULL THEN
+        EXECUTE format('ALTER TABLE word_reviews DROP CONSTRAINT %I', fk_name);
+    END IF;
+END $$;
+
+ALTER TABLE word_reviews ADD CONSTRAINT fk_word_reviews_word
+    FOREIGN KEY (word_id) REFERENCES words(id) ON DELETE CASCADE;
@@ -0,0 +1,8 @@
+-- Migration 012: one user_progress row per user
+-- Description: concurrent first requests could insert two rows for the same user. Keep the oldest row, then enforce uniqueness.
+
+DELETE FROM user_progress p
+USING user_progress older
+WHERE p.user_id = older.user_id AND p.id > older.id;
+
+ALTER TABLE user_progress ADD CONSTRAINT uk_user_progress_user_id UNIQUE (user_id);
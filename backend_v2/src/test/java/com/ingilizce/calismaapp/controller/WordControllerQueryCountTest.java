@@ -0,0 +1,113 @@
+package com.ingilizce.calismaapp.controller;
+
+import com.ingilizce.calismaapp.entity.Sentence;
+import com.ingilizce.calismaapp.entity.Word;
+import com.ingilizce.calismaapp.service.DueQueueService;
+import com.ingilizce.calismaapp.service.ProgressService;
+import com.ingilizce.calismaapp.service.WordImportService;
+import com.ingilizce.calismaapp.service.WordService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statements per word list endpoint, counted with Hibernate statistics:
+ * one query regardless of how many words and sentences there are (no N+1).
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({ WordController.class, WordService.class })
+class WordControllerQueryCountTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 5);
+    private static final int WORDS_PER_DAY = 5;
+    private static final int SENTENCES_PER_WORD = 3;
+
+    @Autowired
+    private WordController wordController;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private WordImportService wordImportService;
+
+    @MockBean
+    private ProgressService progressService;
+
+    @MockBean
+    private DueQueueService dueQueueService;
+
+    private MockMvc mockMvc;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int day = 0; day < 3; day++) {
+            for (int i = 0; i < WORDS_PER_DAY; i++) {
+                Word word = new Word("word" + day + "_" + i, "kelime" + day + "_" + i, DAY.plusDays(day));
+                entityManager.persist(word);
+                for (int s = 0; s < SENTENCES_PER_WORD; s++) {
+                    entityManager.persist(new Sentence("Sentence " + s + " for " + word.getEnglishWord(),
+                            "Cümle " + s, "easy", word));
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear(); // nothing served from the persistence context
+
+        mockMvc = MockMvcBuilders.standaloneSetup(wordController).build();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void listWithoutSentencesIsOneQuery() throws Exception {
+        expectStatements(1, "/api/words", jsonPath("$", hasSize(3 * WORDS_PER_DAY)),
+                jsonPath("$[0].sentences").doesNotExist());
+    }
+
+    @Test
+    void wordsOfADateIsOneQuery() throws Exception {
+        expectStatements(1, "/api/words/date/" + DAY, jsonPath("$", hasSize(WORDS_PER_DAY)));
+    }
+
+    @Test
+    void wordsOfARangeIsOneQuery() throws Exception {
+        expectStatements(1, "/api/words/range?startDate=" + DAY + "&endDate=" + DAY.plusDays(1),
+                jsonPath("$", hasSize(2 * WORDS_PER_DAY)));
+    }
+
+    @Test
+    void includeSentencesIsOneJoinFetch() throws Exception {
+        expectStatements(1, "/api/words?include=sentences", jsonPath("$", hasSize(3 * WORDS_PER_DAY)),
+                jsonPath("$[0].sentences", hasSize(SENTENCES_PER_WORD)));
+    }
+
+    private void expectStatements(long expected, String url, ResultMatcher... matchers) throws Exception {
+        mockMvc.perform(get(url)).andExpect(status().isOk()).andExpectAll(matchers);
+        assertEquals(expected, statistics.getPrepareStatementCount(), "statements for GET " + url);
+    }
+}
@@ -0,0 +1,67 @@
+package com.ingilizce.calismaapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The optimizer's objective: on a review log simulated from known weights,
+ * those weights must score a lower loss than other ones.
+ */
+class FsrsOptimizerJobTest {
+
+    private static final double[] TRUTH = FsrsScheduler.DEFAULT_WEIGHTS;
+
+    @Test
+    void generatingWeightsHaveTheLowestLoss() {
+        FsrsOptimizerJob.History history = simulate(TRUTH, 2000, 6, new Random(42));
+        double truthLoss = history.loss(TRUTH);
+
+        double[] optimistic = TRUTH.clone(); // remembers too well after a success
+        optimistic[8] = 2.8;
+        optimistic[0] = optimistic[1] = optimistic[2] = optimistic[3] = 30;
+        double[] pessimistic = TRUTH.clone(); // forgets too fast
+        pessimistic[0] = pessimistic[1] = pessimistic[2] = pessimistic[3] = 0.2;
+        pessimistic[8] = 0.3;
+
+        assertTrue(truthLoss < history.loss(optimistic), truthLoss + " vs " + history.loss(optimistic));
+        assertTrue(truthLoss < history.loss(pessimistic), truthLoss + " vs " + history.loss(pessimistic));
+    }
+
+    @Test
+    void onlyRepeatReviewsArePredicted() {
+        FsrsOptimizerJob.History history = simulate(TRUTH, 10, 3, new Random(7));
+        assertEquals(40, history.size);
+        assertEquals(30, history.predictions);
+        assertEquals(0, new FsrsOptimizerJob.History().loss(TRUTH));
+    }
+
+    /**
+     * {@code words} words, each learned once and then reviewed {@code reviews}
+     * times at random delays; recall is drawn from the model with {@code w}
+     */
+    private static FsrsOptimizerJob.History simulate(double[] w, int words, int reviews, Random random) {
+        FsrsOptimizerJob.History history = new FsrsOptimizerJob.History();
+        for (int word = 0; word < words; word++) {
+            int grade = 2 + random.nextInt(3);
+            history.add(true, 0, grade);
+            double s = FsrsScheduler.initStability(w, grade);
+            double d = FsrsScheduler.initDifficulty(w, grade);
+            for (int i = 0; i < reviews; i++) {
+                float elapsed = 1 + random.nextInt((int) Math.min(365, Math.ceil(s * 3)));
+                double r = FsrsScheduler.retrievability(elapsed, s);
+                grade = random.nextDouble() < r ? 2 + random.nextInt(3) : 1;
+                history.add(false, elapsed, grade);
+
+                double nextS = grade == 1 ? FsrsScheduler.forgetStability(w, d, s, r)
+                        : FsrsScheduler.recallStability(w, d, s, r, grade);
+                d = FsrsScheduler.nextDifficulty(w, d, grade);
+                s = Math.min(Math.max(nextS, 0.1), 36500);
+            }
+        }
+        return history;
+    }
+}
@@ -0,0 +1,83 @@
+package com.ingilizce.calismaapp.service;
+
+import com.ingilizce.calismaapp.model.ReviewState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FSRS model functions and interval placement with the default weights
+ */
+class FsrsSchedulerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 5);
+    private static final double[] W = FsrsScheduler.DEFAULT_WEIGHTS;
+
+    private FsrsScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new FsrsScheduler(null);
+        ReflectionTestUtils.setField(scheduler, "requestRetention", 0.9);
+        ReflectionTestUtils.setField(scheduler, "maximumInterval", 36500);
+    }
+
+    @Test
+    void qualityMapsToGrade() {
+        int[] expected = { 1, 1, 1, 2, 3, 4 }; // again, again, again, hard, good, easy
+        for (int quality = 0; quality <= 5; quality++) {
+            assertEquals(expected[quality], FsrsScheduler.gradeOf(quality), "quality " + quality);
+        }
+    }
+
+    @Test
+    void recallProbabilityIsNinetyPercentAfterStabilityDays() {
+        for (double stability : new double[] { 0.5, 1, 7.3, 120, 3650 }) {
+            assertEquals(0.9, FsrsScheduler.retrievability(stability, stability), 1e-12);
+        }
+        assertEquals(1.0, FsrsScheduler.retrievability(0, 10), 1e-12);
+    }
+
+    @Test
+    void lapseNeverRaisesStability() {
+        for (double s : new double[] { 0.1, 0.5, 2, 10, 100, 1000 }) {
+            for (double d = 1; d <= 10; d += 1.5) {
+                for (double r = 0.05; r < 1; r += 0.15) {
+                    double next = FsrsScheduler.forgetStability(W, d, s, r);
+                    assertTrue(next <= s, "S=" + s + " D=" + d + " R=" + r + " -> " + next);
+                    assertTrue(next >= 0.1);
+                }
+            }
+        }
+    }
+
+    @Test
+    void intervalEqualsStabilityAtNinetyPercentRetention() {
+        ReviewState next = scheduler.schedule(reviewed(20, 5, 20), 4, DAY);
+        assertEquals(Math.round(next.stability()), next.scheduledIntervalDays());
+    }
+
+    @Test
+    void intervalIsClampedToOneDayAndMaximumInterval() {
+        // First review forgotten: S = w[0] < 1 day
+        ReviewState forgotten = scheduler.schedule(new ReviewState(0, 2.5, null, null, null, null), 0, DAY);
+        assertTrue(forgotten.stability() < 1);
+        assertEquals(1, forgotten.scheduledIntervalDays());
+
+        ReflectionTestUtils.setField(scheduler, "maximumInterval", 30);
+        ReviewState easy = scheduler.schedule(reviewed(1000, 2, 1000), 5, DAY);
+        assertTrue(easy.stability() > 30);
+        assertEquals(30, easy.scheduledIntervalDays());
+        assertEquals(DAY.plusDays(30), easy.nextReviewDate());
+    }
+
+    private static ReviewState reviewed(double stability, double difficulty, int daysAgo) {
+        LocalDate last = DAY.minusDays(daysAgo);
+        return new ReviewState(3, 2.5, stability, difficulty, last, DAY);
+    }
+}
@@ -0,0 +1,193 @@
+package com.ingilizce.calismaapp.service;
+
+import com.ingilizce.calismaapp.entity.User;
+import com.ingilizce.calismaapp.entity.UserProgress;
+import com.ingilizce.calismaapp.model.Achievement;
+import com.ingilizce.calismaapp.model.XpSource;
+import com.ingilizce.calismaapp.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrency checks for per-user progress: XP awards must not wait on a
+ * user_progress row lock held elsewhere, and concurrent first requests of
+ * one user must not create two rows.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({ ProgressService.class, AchievementEngine.class, XpLedger.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // threads commit on their own
+class ProgressServiceLoadTest {
+
+    private static final int AWARDS_PER_USER = 200;
+
+    private static final long AWARD_DEADLINE_SECONDS = 60;
+
+    @Autowired
+    private ProgressService progressService;
+
+    @Autowired
+    private XpLedger xpLedger;
+
+    @Autowired
+    private AchievementEngine achievementEngine;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private LeaderboardService leaderboardService;
+
+    @MockBean
+    private ActivityFeedService activityFeedService;
+
+    private static final AtomicLong TAGS = new AtomicLong(1000);
+
+    @Test
+    void awardsDoNotWaitOnProgressRowLocks() throws Exception {
+        List<Long> userIds = createUsers(2);
+        Long locked = userIds.get(0);
+        userIds.forEach(progressService::getUserProgress);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Another transaction holds user A's progress row for the whole run
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService holder = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> lock = holder.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(
+                    status -> {
+                        jdbcTemplate.queryForList("SELECT id FROM user_progress WHERE user_id = ? FOR UPDATE",
+                                locked);
+                        held.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }));
+            assertTrue(held.await(30, TimeUnit.SECONDS), "row lock was not acquired");
+
+            // A row read-modify-write per award would block user A until the lock timeout
+            run(userIds, AWARDS_PER_USER);
+
+            release.countDown();
+            lock.get(30, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            holder.shutdownNow();
+        }
+
+        // Awards go through the in-memory ledger: the progress rows are never rewritten
+        assertEquals(0, statistics.getEntityStatistics(UserProgress.class.getName()).getUpdateCount());
+    }
+
+    @Test
+    void concurrentFirstRequestsCreateOneProgressRow() throws Exception {
+        Long userId = createUsers(1).get(0);
+        TransactionTemplate outer = new TransactionTemplate(transactionManager);
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    // Like updateStreak: the lookup runs inside a longer transaction
+                    return outer.execute(status -> progressService.getUserProgress(userId).getId());
+                }));
+            }
+            start.countDown();
+            Long first = results.get(0).get(30, TimeUnit.SECONDS);
+            for (Future<Long> result : results) {
+                assertEquals(first, result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_progress WHERE user_id = ?",
+                Integer.class, userId));
+    }
+
+    /**
+     * One thread per user, each awarding 1 XP {@code awards} times; fails if
+     * any user's awards are not done within the deadline
+     */
+    private void run(List<Long> userIds, int awards) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(userIds.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (Long userId : userIds) {
+                Callable<Void> task = () -> {
+                    start.await();
+                    for (int i = 0; i < awards; i++) {
+                        progressService.awardXp(userId, 1, "load", XpSource.MANUAL, 0);
+                    }
+                    return null;
+                };
+                results.add(pool.submit(task));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get(AWARD_DEADLINE_SECONDS, TimeUnit.SECONDS);
+            }
+
+            for (Long userId : userIds) {
+                // Time-of-day achievements may add their reward on top
+                int rewards = achievementEngine.getUnlocked(userId).stream().mapToInt(Achievement::getXpReward).sum();
+                assertEquals(awards + rewards, xpLedger.getTotalXp(userId));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<Long> createUsers(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long tag = TAGS.incrementAndGet();
+            User user = userRepository.save(new User("load" + tag + "@example.com", "Load " + tag, "hash",
+                    "#" + tag));
+            ids.add(user.getId());
+        }
+        return ids;
+    }
+}
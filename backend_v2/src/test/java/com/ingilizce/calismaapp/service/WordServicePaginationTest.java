@@ -0,0 +1,96 @@
+package com.ingilizce.calismaapp.service;
+
+import com.ingilizce.calismaapp.dto.WordDto;
+import com.ingilizce.calismaapp.dto.WordQuery;
+import com.ingilizce.calismaapp.entity.Word;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cursor pages of /api/words sorted by nextReviewDate: walking every page
+ * must return each word once, in the order of one unpaged query, with
+ * unscheduled words last ascending and first descending.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import(WordService.class)
+class WordServicePaginationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 5);
+
+    @Autowired
+    private WordService wordService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private ProgressService progressService;
+
+    @MockBean
+    private DueQueueService dueQueueService;
+
+    private final List<Word> words = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Ties on the date and several unscheduled words, so pages break inside both groups
+        LocalDate[] dates = { DAY, null, DAY.plusDays(2), DAY, null, DAY.plusDays(1), DAY, null, DAY.plusDays(2) };
+        for (int i = 0; i < dates.length; i++) {
+            Word word = new Word("word" + i, "kelime" + i, DAY);
+            word.setNextReviewDate(dates[i]);
+            entityManager.persist(word);
+            words.add(word);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void ascendingPagesPutUnscheduledWordsLast() {
+        Comparator<Word> order = Comparator.comparing(Word::getNextReviewDate,
+                Comparator.nullsLast(Comparator.<LocalDate>naturalOrder())).thenComparing(Word::getId);
+        assertEquals(expected(order), walk(false));
+    }
+
+    @Test
+    void descendingPagesPutUnscheduledWordsFirst() {
+        Comparator<Word> order = Comparator.comparing(Word::getNextReviewDate,
+                Comparator.nullsFirst(Comparator.<LocalDate>reverseOrder()))
+                .thenComparing(Word::getId, Comparator.reverseOrder());
+        assertEquals(expected(order), walk(true));
+    }
+
+    private List<Long> expected(Comparator<Word> order) {
+        return words.stream().sorted(order).map(Word::getId).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> walk(boolean descending) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            WordQuery query = new WordQuery("nextReviewDate", descending, null, null, null, null, null, null, null, 2);
+            Map<String, Object> page = wordService.getWordPage(query, cursor, false, false);
+            for (WordDto word : (List<WordDto>) page.get("items")) {
+                ids.add(word.id());
+            }
+            cursor = (String) page.get("nextCursor");
+        } while (cursor != null && ids.size() <= words.size());
+        return ids;
+    }
+}